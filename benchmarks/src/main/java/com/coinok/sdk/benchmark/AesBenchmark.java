@@ -0,0 +1,100 @@
+package com.coinok.sdk.benchmark;
+
+import com.coinok.sdk.crypto.AES;
+import com.coinok.sdk.crypto.AESForCryptoJS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AES：CBC、GCM和兼容CryptoJS的加解密，数据大小由size指定。
+ * <p>
+ * CBC使用固定的key和iv，单独统计密钥派生之外的加解密开销。
+ *
+ * @author Jingyu Yang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AesBenchmark {
+
+    private static final String PASSWORD = "benchmark-password";
+
+    @Param({"64", "4096"})
+    private int size;
+
+    private final byte[] key = new byte[32];
+
+    private final byte[] iv = new byte[16];
+
+    private byte[] data;
+
+    private byte[] encrypted;
+
+    private byte[] encryptedGcm;
+
+    private String text;
+
+    private String encryptedText;
+
+    @Setup
+    public void setup() throws Exception {
+        data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) i;
+        }
+        Arrays.fill(key, (byte) 7);
+        Arrays.fill(iv, (byte) 3);
+        encrypted = AES.encrypt(data, key, iv, AES.ALGORITHM);
+        encryptedGcm = AES.encryptGcm(data, key);
+
+        char[] chars = new char[size];
+        Arrays.fill(chars, 'a');
+        text = new String(chars);
+        encryptedText = AESForCryptoJS.encryptToBase64(text, PASSWORD);
+    }
+
+    @Benchmark
+    public byte[] encryptCbc() throws Exception {
+        return AES.encrypt(data, key, iv, AES.ALGORITHM);
+    }
+
+    @Benchmark
+    public byte[] decryptCbc() throws Exception {
+        return AES.decrypt(encrypted, key, iv, AES.ALGORITHM);
+    }
+
+    @Benchmark
+    public byte[] encryptGcm() throws Exception {
+        return AES.encryptGcm(data, key);
+    }
+
+    @Benchmark
+    public byte[] decryptGcm() throws Exception {
+        return AES.decryptGcm(encryptedGcm, key);
+    }
+
+    @Benchmark
+    public String cryptoJsEncrypt() throws Exception {
+        return AESForCryptoJS.encryptToBase64(text, PASSWORD);
+    }
+
+    @Benchmark
+    public String cryptoJsDecrypt() throws Exception {
+        return AESForCryptoJS.decrypt(encryptedText, PASSWORD);
+    }
+}
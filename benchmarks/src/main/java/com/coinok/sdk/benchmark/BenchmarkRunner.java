@@ -0,0 +1,52 @@
+package com.coinok.sdk.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.TreeSet;
+
+/**
+ * 依次使用不同的线程数运行基准测试，并打开gc profiler记录每次操作分配的内存（gc.alloc.rate.norm）。
+ * <p>
+ * 参数：[基准名称的正则表达式] [-t 线程数,线程数...]。默认运行全部基准，线程数为1、2、4和CPU核数。
+ * 每个线程数的结果写入target/jmh-线程数.json，升级依赖或修改实现后可以与之前的结果比较。
+ *
+ * @author Jingyu Yang
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = BenchmarkRunner.class.getPackage().getName() + ".*";
+        TreeSet<Integer> threads = new TreeSet<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-t".equals(args[i]) && i + 1 < args.length) {
+                for (String count : args[++i].split(",")) {
+                    threads.add(Integer.parseInt(count.trim()));
+                }
+            } else {
+                include = args[i];
+            }
+        }
+        if (threads.isEmpty()) {
+            threads.add(1);
+            threads.add(2);
+            threads.add(4);
+            threads.add(Runtime.getRuntime().availableProcessors());
+        }
+
+        for (int count : threads) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(count)
+                    .addProfiler(GCProfiler.class)
+                    .result("target/jmh-" + count + ".json")
+                    .resultFormat(ResultFormatType.JSON)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
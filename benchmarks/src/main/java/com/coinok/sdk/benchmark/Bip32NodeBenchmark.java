@@ -0,0 +1,91 @@
+package com.coinok.sdk.benchmark;
+
+import com.coinok.sdk.bip.Bip32Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BIP32：主节点、三种子节点派生、序列化和解析。
+ *
+ * @author Jingyu Yang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Bip32NodeBenchmark {
+
+    private byte[] seed;
+
+    private Bip32Node master;
+
+    private Bip32Node publicOnly;
+
+    private String xprv;
+
+    private String xpub;
+
+    @Setup
+    public void setup() {
+        seed = new byte[64];
+        for (int i = 0; i < seed.length; i++) {
+            seed[i] = (byte) i;
+        }
+        master = Bip32Node.getMasterKey(seed);
+        xprv = master.privSerialize(Bip32Node.TYPE_BITCOIN, true);
+        xpub = master.pubSerialize(Bip32Node.TYPE_BITCOIN, true);
+        publicOnly = Bip32Node.decode(xpub);
+    }
+
+    @Benchmark
+    public Bip32Node masterKey() {
+        return Bip32Node.getMasterKey(seed);
+    }
+
+    @Benchmark
+    public Bip32Node childHardened() {
+        return Bip32Node.getChildNode(master, Bip32Node.getHSeq(0));
+    }
+
+    @Benchmark
+    public Bip32Node childNormal() {
+        return Bip32Node.getChildNode(master, 0);
+    }
+
+    @Benchmark
+    public Bip32Node childPublicOnly() {
+        return Bip32Node.getChildNode(publicOnly, 0);
+    }
+
+    @Benchmark
+    public Bip32Node decodePrivate() {
+        return Bip32Node.decode(xprv);
+    }
+
+    @Benchmark
+    public Bip32Node decodePublic() {
+        return Bip32Node.decode(xpub);
+    }
+
+    @Benchmark
+    public String privSerialize() {
+        return master.privSerialize(Bip32Node.TYPE_BITCOIN, true);
+    }
+
+    @Benchmark
+    public String pubSerialize() {
+        return master.pubSerialize(Bip32Node.TYPE_BITCOIN, true);
+    }
+}
@@ -0,0 +1,59 @@
+package com.coinok.sdk.benchmark;
+
+import com.coinok.sdk.crypto.Bip38;
+import org.bitcoinj.params.MainNetParams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BIP38加解密，每次操作包含一次scrypt（N=16384, r=8, p=8），因此按单次耗时统计。
+ *
+ * @author Jingyu Yang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class Bip38Benchmark {
+
+    private static final String WIF = "L44B5gGEpqEDRS9vVPz7QT35jcBG2r3CZwSwQ4fCewXAhAhqGVpP";
+
+    private static final String PASSPHRASE = "TestingOneTwoThree";
+
+    private byte[] keyOut;
+
+    private String encrypted;
+
+    @Setup
+    public void setup() throws Exception {
+        keyOut = new byte[33];
+        encrypted = Bip38.encryptToBip38(WIF, PASSPHRASE);
+    }
+
+    @Benchmark
+    public String encrypt() throws Exception {
+        return Bip38.encryptToBip38(WIF, PASSPHRASE);
+    }
+
+    @Benchmark
+    public String decode() throws Exception {
+        return Bip38.decode(encrypted, PASSPHRASE, MainNetParams.get());
+    }
+
+    @Benchmark
+    public int decrypt() {
+        return Bip38.decrypt(encrypted, PASSPHRASE, MainNetParams.get(), keyOut);
+    }
+}
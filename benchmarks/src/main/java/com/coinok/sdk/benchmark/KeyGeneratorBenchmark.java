@@ -0,0 +1,104 @@
+package com.coinok.sdk.benchmark;
+
+import com.coinok.sdk.core.KeyGenerator;
+import com.coinok.sdk.core.MultiSignAddressGenerator;
+import com.coinok.sdk.util.Tools;
+import org.bitcoinj.core.Base58;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Utils;
+import org.bitcoinj.params.MainNetParams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 私钥WIF、Base58Check编码和校验、多签地址。
+ *
+ * @author Jingyu Yang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyGeneratorBenchmark {
+
+    private final NetworkParameters params = MainNetParams.get();
+
+    private KeyGenerator generator;
+
+    private String wif;
+
+    private byte[] pubKeyHash;
+
+    private byte[] checked;
+
+    private MultiSignAddressGenerator multiSign;
+
+    @Setup
+    public void setup() {
+        ECKey key = ECKey.fromPrivate(new BigInteger("1e99423a4ed27608a15a2616a2b0e9e52ced330ac530edcc32c8ffc6a526aedd",
+                16));
+        generator = new KeyGenerator(key, true);
+        wif = generator.getPrivateKeyWif(params);
+        pubKeyHash = key.getPubKeyHash();
+        checked = Base58.decode(Tools.byteToString((byte) 0, pubKeyHash));
+
+        multiSign = new MultiSignAddressGenerator();
+        for (int i = 2; i <= 4; i++) {
+            multiSign.addECKey(ECKey.fromPublicOnly(ECKey.fromPrivate(BigInteger.valueOf(i)).getPubKey()));
+        }
+    }
+
+    @Benchmark
+    public KeyGenerator fromWif() {
+        return KeyGenerator.fromPrivateKeyWif(wif);
+    }
+
+    @Benchmark
+    public String toWif() {
+        return generator.getPrivateKeyWif(params);
+    }
+
+    @Benchmark
+    public String wifRoundTrip() {
+        return KeyGenerator.fromPrivateKeyWif(wif).getPrivateKeyWif(params);
+    }
+
+    @Benchmark
+    public String address() {
+        return generator.getAddressStr(params);
+    }
+
+    @Benchmark
+    public String byteToString() {
+        return Tools.byteToString((byte) 0, pubKeyHash);
+    }
+
+    @Benchmark
+    public boolean check() {
+        return Tools.check(checked);
+    }
+
+    @Benchmark
+    public String multiSignAddress() {
+        return multiSign.generateAddress(params, 2);
+    }
+
+    @Benchmark
+    public String hex() {
+        return Utils.HEX.encode(pubKeyHash);
+    }
+}
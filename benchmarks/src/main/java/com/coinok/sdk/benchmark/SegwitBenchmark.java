@@ -0,0 +1,96 @@
+package com.coinok.sdk.benchmark;
+
+import com.coinok.sdk.header.AddressType;
+import com.coinok.sdk.header.BitcoinAddressCodec;
+import com.coinok.sdk.header.HeadInfo;
+import com.coinok.sdk.segwit.SegwitAddressUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 隔离见证地址的编码、解码和校验，以及地址编码SPI的Base58Check路径。
+ *
+ * @author Jingyu Yang
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SegwitBenchmark {
+
+    private static final String P2WPKH = "bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kv8f3t4";
+
+    private static final String P2TR = "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0";
+
+    private final HeadInfo head = HeadInfo.btcMain();
+
+    private final byte[] program = new byte[32];
+
+    /**
+     * program的前20位，P2WPKH的见证程序。
+     */
+    private byte[] program20;
+
+    private final byte[] programOut = new byte[40];
+
+    private final char[] chars = new char[BitcoinAddressCodec.MAX_LENGTH];
+
+    private String legacy;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < program.length; i++) {
+            program[i] = (byte) (i * 13);
+        }
+        program20 = Arrays.copyOf(program, 20);
+        legacy = BitcoinAddressCodec.INSTANCE.encode(head, AddressType.P2PKH, program20);
+    }
+
+    @Benchmark
+    public String encodeString() {
+        return SegwitAddressUtil.encode("bc", 0, program20);
+    }
+
+    @Benchmark
+    public int encodeBuffer() {
+        return SegwitAddressUtil.encode("bc", 0, program, 0, 20, chars, 0);
+    }
+
+    @Benchmark
+    public String decodeString() {
+        return SegwitAddressUtil.decode(P2WPKH);
+    }
+
+    @Benchmark
+    public int decodeBuffer() {
+        return SegwitAddressUtil.decode(P2TR, programOut, 0);
+    }
+
+    @Benchmark
+    public int validate() {
+        return SegwitAddressUtil.validate(P2WPKH);
+    }
+
+    @Benchmark
+    public int codecEncodeLegacy() {
+        return BitcoinAddressCodec.INSTANCE.encode(head, AddressType.P2PKH, program, 0, chars, 0);
+    }
+
+    @Benchmark
+    public AddressType codecDecodeLegacy() {
+        return BitcoinAddressCodec.INSTANCE.decode(head, legacy, programOut, 0);
+    }
+}
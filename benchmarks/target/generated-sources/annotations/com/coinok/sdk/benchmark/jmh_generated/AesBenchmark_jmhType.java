@@ -0,0 +1,4 @@
+package com.coinok.sdk.benchmark.jmh_generated;
+public class AesBenchmark_jmhType extends AesBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.coinok.sdk.benchmark.jmh_generated;
+public class Bip32NodeBenchmark_jmhType extends Bip32NodeBenchmark_jmhType_B3 {
+}
+
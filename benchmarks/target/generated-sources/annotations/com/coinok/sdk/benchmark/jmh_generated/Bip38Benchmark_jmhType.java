@@ -0,0 +1,4 @@
+package com.coinok.sdk.benchmark.jmh_generated;
+public class Bip38Benchmark_jmhType extends Bip38Benchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.coinok.sdk.benchmark.jmh_generated;
+public class KeyGeneratorBenchmark_jmhType extends KeyGeneratorBenchmark_jmhType_B3 {
+}
+
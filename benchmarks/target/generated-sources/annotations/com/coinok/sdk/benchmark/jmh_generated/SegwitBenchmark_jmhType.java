@@ -0,0 +1,4 @@
+package com.coinok.sdk.benchmark.jmh_generated;
+public class SegwitBenchmark_jmhType extends SegwitBenchmark_jmhType_B3 {
+}
+
@@ -1,6 +1,12 @@
 package com.coinok.sdk.bip;
 
 import com.coinok.sdk.crypto.DigestHash;
+import com.coinok.sdk.header.AddressType;
+import com.coinok.sdk.header.HeadInfo;
+import com.coinok.sdk.metrics.FlightEvents;
+import com.coinok.sdk.metrics.Metrics;
+import com.coinok.sdk.metrics.Operation;
+import com.coinok.sdk.segwit.SegwitAddressUtil;
 import com.coinok.sdk.util.Tools;
 import org.bitcoinj.core.AddressFormatException;
 import org.bitcoinj.core.Base58;
@@ -11,7 +17,10 @@ import org.bouncycastle.math.ec.ECPoint;
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * BIP32对应的实现： https://github.com/bitcoin/bips/blob/master/bip-0032.mediawiki
@@ -160,6 +169,7 @@ public class Bip32Node {
      * @return
      */
     public static Bip32Node getMasterKey(byte[] seed) {
+        long start = Metrics.start();
         byte[] result = Tools.hmacSha512(seed, BIP_SEED);
         if (result == null || result.length != 64) {
             throw new RuntimeException("seed转换后长度错误，请重试！");
@@ -173,7 +183,9 @@ public class Bip32Node {
             throw new RuntimeException("生成了一个不应该出现的数值！");
         }
 
-        return new Bip32Node(ECKey.fromPrivate(bigInt, true), right, 0, 0, 0);
+        Bip32Node master = new Bip32Node(ECKey.fromPrivate(bigInt, true), right, 0, 0, 0);
+        Metrics.record(Operation.BIP32_MASTER, start);
+        return master;
     }
 
     /**
@@ -183,8 +195,15 @@ public class Bip32Node {
      * @param sequence： 子节点对应的sequence
      * @return
      */
-    @SuppressWarnings("deprecation")
     public static Bip32Node getChildNode(Bip32Node node, int sequence) {
+        long start = Metrics.start();
+        Bip32Node child = deriveChild(node, sequence);
+        Metrics.record(Operation.BIP32_DERIVE, start);
+        return child;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bip32Node deriveChild(Bip32Node node, int sequence) {
         ECKey nodeKey = node.getEcKey();
         if (nodeKey == null || node.getChainCode() == null) {
             throw new IllegalArgumentException("密钥和“chain code”不能为空！");
@@ -242,9 +261,7 @@ public class Bip32Node {
                 throw new RuntimeException("生成了一个不应该出现的数值！");
             }
 
-//            pubKey = new ECPoint.Fp(ECKey.CURVE.getCurve(), point.getXCoord(), point.getYCoord())
-//                    .getEncoded();
-            return new Bip32Node(ECKey.fromPublicOnly(pubKey), right, node.getDepth() + 1,
+            return new Bip32Node(ECKey.fromPublicOnly(point.getEncoded(true)), right, node.getDepth() + 1,
                     node.fingerprint(), sequence);
         }
     }
@@ -256,13 +273,22 @@ public class Bip32Node {
      * @return
      */
     public static Bip32Node decode(String serialized) {
+        long start = Metrics.start();
+        Bip32Node node = parse(serialized);
+        Metrics.record(Operation.BIP32_DECODE, start);
+        return node;
+    }
+
+    private static Bip32Node parse(String serialized) {
         try {
             byte[] temp = Base58.decode(serialized);
             if (temp.length != 82) {
+                FlightEvents.base58Failure(Operation.BIP32_DECODE, serialized.length(), "length");
                 throw new IllegalArgumentException("输入的字符串格式错误！");
             }
 
             if (!Tools.check(temp)) {
+                FlightEvents.base58Failure(Operation.BIP32_DECODE, serialized.length(), "checksum");
                 throw new IllegalArgumentException("字符串检验码错误！");
             }
 
@@ -312,6 +338,7 @@ public class Bip32Node {
 
             return new Bip32Node(ecKey, chainCode, depth, parent, sequence);
         } catch (AddressFormatException e) {
+            FlightEvents.base58Failure(Operation.BIP32_DECODE, serialized.length(), "character");
             e.printStackTrace();
         }
 
@@ -413,6 +440,7 @@ public class Bip32Node {
      * @return
      */
     private String serialize(int coinType, boolean isMainNet, boolean isPrivate) {
+        long start = Metrics.start();
         byte[] result = new byte[78];
 
         int pos = 0;
@@ -448,7 +476,9 @@ public class Bip32Node {
             System.arraycopy(this.ecKey.getPubKey(), 0, result, pos, 33);
         }
 
-        return Tools.byteToString(result);
+        String serialized = Tools.byteToString(result);
+        Metrics.record(Operation.BIP32_SERIALIZE, start);
+        return serialized;
     }
 
     /**
@@ -496,6 +526,113 @@ public class Bip32Node {
         return Tools.ecKeyToAddress(ecKey, params);
     }
 
+    /**
+     * 使用网络对应的{@link com.coinok.sdk.header.AddressCodec}返回地址：P2PKH、P2WPKH，
+     * 或P2SH（即BIP49的P2SH-P2WPKH）。
+     *
+     * @param head
+     * @param type
+     * @return
+     */
+    public String getAddress(HeadInfo head, AddressType type) {
+        byte[] hash;
+        switch (type) {
+            case P2PKH:
+            case P2WPKH:
+                hash = ecKey.getPubKeyHash();
+                break;
+            case P2SH:
+                hash = DigestHash.sha256hash160(redeemScript());
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的地址类型：" + type);
+        }
+        return head.getAddressCodec().encode(head, type, hash);
+    }
+
+    /**
+     * 返回BIP84的P2WPKH地址（如bc1q开头），hash160直接编码，不经过十六进制字符串。
+     *
+     * @param params： 需要设置segwitAddressHrp
+     * @return
+     */
+    public String getP2wpkhAddress(NetworkParameters params) {
+        return getAddress(HeadInfo.getInfo(params), AddressType.P2WPKH);
+    }
+
+    /**
+     * 返回BIP49的P2SH-P2WPKH地址（如比特币的3开头），即redeemScript“0x00 0x14 hash160”的P2SH地址。
+     *
+     * @param params
+     * @return
+     */
+    public String getP2shP2wpkhAddress(NetworkParameters params) {
+        return getAddress(HeadInfo.getInfo(params), AddressType.P2SH);
+    }
+
+    /**
+     * 批量生成子节点[start, start + count)的P2WPKH地址，只使用非hardened序号，可以用只有公钥的节点。
+     *
+     * @param start
+     * @param count
+     * @param params
+     * @return
+     */
+    public List<String> getP2wpkhAddresses(int start, int count, NetworkParameters params) {
+        String hrp = segwitHrp(params);
+        List<byte[]> hashes = childNodes(start, count).stream().map(node -> node.getEcKey().getPubKeyHash())
+                .collect(Collectors.toList());
+        return Arrays.asList(SegwitAddressUtil.encode(hrp, 0, hashes));
+    }
+
+    /**
+     * 批量生成子节点[start, start + count)的P2SH-P2WPKH地址，只使用非hardened序号，可以用只有公钥的节点。
+     *
+     * @param start
+     * @param count
+     * @param params
+     * @return
+     */
+    public List<String> getP2shP2wpkhAddresses(int start, int count, NetworkParameters params) {
+        return childNodes(start, count).stream().map(node -> node.getP2shP2wpkhAddress(params))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 并行生成子节点[start, start + count)。
+     */
+    private List<Bip32Node> childNodes(int start, int count) {
+        if (start < 0 || count < 0 || (long) start + count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("序号范围错误，只支持非hardened序号！");
+        }
+        long begin = Metrics.start();
+        Object event = FlightEvents.begin(Operation.BIP32_BULK_DERIVE);
+        List<Bip32Node> children = IntStream.range(start, start + count).parallel().mapToObj(this::getChild)
+                .collect(Collectors.toList());
+        FlightEvents.end(event, Operation.BIP32_BULK_DERIVE, count);
+        Metrics.record(Operation.BIP32_BULK_DERIVE, begin);
+        return children;
+    }
+
+    /**
+     * P2SH-P2WPKH的redeemScript：OP_0 PUSH20 hash160。
+     */
+    private byte[] redeemScript() {
+        byte[] script = new byte[22];
+        script[0] = 0X00;
+        script[1] = 0X14;
+        System.arraycopy(ecKey.getPubKeyHash(), 0, script, 2, 20);
+        return script;
+    }
+
+    private static String segwitHrp(NetworkParameters params) {
+        String hrp = params.getSegwitAddressHrp();
+        if (hrp == null) {
+            throw new IllegalArgumentException("该网络不支持隔离见证地址！");
+        }
+        return hrp;
+    }
+
     public ECKey getEcKey() {
         return ecKey;
     }
@@ -1,5 +1,10 @@
 package com.coinok.sdk.core;
 
+import com.coinok.sdk.header.AddressType;
+import com.coinok.sdk.header.HeadInfo;
+import com.coinok.sdk.metrics.FlightEvents;
+import com.coinok.sdk.metrics.Metrics;
+import com.coinok.sdk.metrics.Operation;
 import com.coinok.sdk.util.Tools;
 import org.bitcoinj.core.*;
 import org.bitcoinj.script.Script;
@@ -27,8 +32,10 @@ public class KeyGenerator {
      * 随机生成一个新的私钥对。
      */
     public KeyGenerator() {
+        long start = Metrics.start();
         this.ecKey = new ECKey();
         this.compressed = true;
+        Metrics.record(Operation.KEY_GENERATE, start);
     }
 
     /**
@@ -49,15 +56,18 @@ public class KeyGenerator {
      * @return
      */
     public static KeyGenerator fromPrivateKeyWif(String keyWif) {
+        long start = Metrics.start();
         byte[] keyArr;
         try {
             keyArr = Base58.decode(keyWif);
         } catch (AddressFormatException e) {
+            FlightEvents.base58Failure(Operation.WIF_DECODE, keyWif.length(), "character");
             throw new IllegalArgumentException("Base58解码失败，错误的私钥字符串！");
         }
         int len = keyArr.length;
 
         if (!Tools.check(keyArr)) {
+            FlightEvents.base58Failure(Operation.WIF_DECODE, keyWif.length(), "checksum");
             throw new IllegalArgumentException("非法的私钥字符串，校验位错误！");
         }
 
@@ -83,6 +93,7 @@ public class KeyGenerator {
         }
 
         ECKey ecKey = ECKey.fromPrivate(data, compressed);
+        Metrics.record(Operation.WIF_DECODE, start);
         return new KeyGenerator(ecKey, compressed);
     }
 
@@ -92,6 +103,7 @@ public class KeyGenerator {
      * @return
      */
     public String getPrivateKeyWif(NetworkParameters params) {
+        long start = Metrics.start();
         byte[] bytes;
         byte[] privByteArr = Utils.bigIntegerToBytes(ecKey.getPrivKey(), 32);
         if (compressed) {
@@ -102,7 +114,9 @@ public class KeyGenerator {
             bytes = privByteArr;
         }
 
-        return Tools.byteToString((byte) params.getDumpedPrivateKeyHeader(), bytes);
+        String wif = Tools.byteToString((byte) params.getDumpedPrivateKeyHeader(), bytes);
+        Metrics.record(Operation.WIF_ENCODE, start);
+        return wif;
     }
 
     /**
@@ -122,7 +136,42 @@ public class KeyGenerator {
      * @return
      */
     public String getAddressStr(NetworkParameters params) {
-        return Tools.byteToString((byte) params.getAddressHeader(), ecKey.getPubKeyHash());
+        return getAddressStr(HeadInfo.getInfo(params), AddressType.P2PKH);
+    }
+
+    /**
+     * 根据地址首字节，获取对应的地址。
+     *
+     * @param addressPrefix
+     * @return
+     */
+    public String getAddressStr(byte addressPrefix) {
+        HeadInfo head = HeadInfo.getInfoByByte(addressPrefix);
+        if (head != null && head.getAddressPrefix() == addressPrefix) {
+            return getAddressStr(head, AddressType.P2PKH);
+        }
+        // 没有登记的首字节，没有对应的网络和编码实现
+        long start = Metrics.start();
+        String address = Tools.byteToString(addressPrefix, ecKey.getPubKeyHash());
+        Metrics.record(Operation.ADDRESS_ENCODE, start);
+        return address;
+    }
+
+    /**
+     * 使用网络对应的{@link com.coinok.sdk.header.AddressCodec}返回P2PKH或P2WPKH地址。
+     *
+     * @param head
+     * @param type
+     * @return
+     */
+    public String getAddressStr(HeadInfo head, AddressType type) {
+        if (type != AddressType.P2PKH && type != AddressType.P2WPKH) {
+            throw new IllegalArgumentException("不支持的地址类型：" + type);
+        }
+        long start = Metrics.start();
+        String address = head.getAddressCodec().encode(head, type, ecKey.getPubKeyHash());
+        Metrics.record(Operation.ADDRESS_ENCODE, start);
+        return address;
     }
 
     /**
@@ -4,10 +4,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
+import com.coinok.sdk.crypto.DigestHash;
+import com.coinok.sdk.header.AddressType;
+import com.coinok.sdk.header.HeadInfo;
+import com.coinok.sdk.metrics.Metrics;
+import com.coinok.sdk.metrics.Operation;
 import org.bitcoinj.core.*;
 import org.bitcoinj.script.Script;
 import org.bitcoinj.script.ScriptBuilder;
-import org.bitcoinj.script.ScriptPattern;
 
 /**
  * 多签地址生成类。
@@ -69,6 +73,18 @@ public class MultiSignAddressGenerator {
      * @throws IllegalArgumentException
      */
     public String generateAddress(NetworkParameters params, int minSignNum) {
+        return generateAddress(HeadInfo.getInfo(params), minSignNum);
+    }
+
+    /**
+     * 根据传入的公钥，使用网络对应的{@link com.coinok.sdk.header.AddressCodec}构建P2SH多签地址。
+     *
+     * @param head
+     * @param minSignNum
+     * @return
+     * @throws IllegalArgumentException
+     */
+    public String generateAddress(HeadInfo head, int minSignNum) {
         int size = this.ecKeyList.size();
 
         if (size < 2) {
@@ -81,10 +97,13 @@ public class MultiSignAddressGenerator {
             minSignNum = size;
         }
 
+        long start = Metrics.start();
         this.redeemScript = ScriptBuilder.createMultiSigOutputScript(minSignNum, ecKeyList);
-        Script p2shScript = ScriptBuilder.createP2SHOutputScript(redeemScript);
         this.minSignNum = minSignNum;
-        return LegacyAddress.fromScriptHash(params, ScriptPattern.extractHashFromP2SH(p2shScript)).toBase58();
+        String address = head.getAddressCodec().encode(head, AddressType.P2SH,
+                DigestHash.sha256hash160(redeemScript.getProgram()));
+        Metrics.record(Operation.MULTISIG_ADDRESS, start);
+        return address;
     }
 
     /**
@@ -1,16 +1,35 @@
 package com.coinok.sdk.crypto;
 
+import com.coinok.sdk.metrics.FlightEvents;
+import com.coinok.sdk.metrics.Metrics;
+import com.coinok.sdk.metrics.Operation;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.util.encoders.Base64;
 
+import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
 import java.security.SecureRandom;
 import java.security.Security;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * AES加解密算法工具类。
@@ -24,10 +43,46 @@ public class AES {
      */
     public static final String ALGORITHM = "AES/CBC/PKCS7Padding";
 
+    /**
+     * 带认证的加密算法，新数据推荐使用。
+     */
+    public static final String GCM_ALGORITHM = "AES/GCM/NoPadding";
+
+    /**
+     * GCM模式的向量长度（字节）。
+     */
+    public static final int GCM_IV_SIZE = 12;
+
+    /**
+     * GCM模式的认证标签长度（位）。
+     */
+    public static final int GCM_TAG_LENGTH = 128;
+
     private static final String KEY_ALGORITHM = "AES";
 
+    /**
+     * GCM模式优先使用的JDK内置实现，可以利用AES-NI和CLMUL指令。
+     */
+    private static final String JDK_PROVIDER = "SunJCE";
+
+    private static final int BLOCK_SIZE = 16;
+
+    /**
+     * 并行解密时每个分段的最小长度，小于该值的数据直接单线程解密。
+     */
+    static final int PARALLEL_SEGMENT_SIZE = 256 * 1024;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static volatile Provider gcmProvider;
+
     private static final int ivSize = 16;
 
+    /**
+     * 流式加解密时每次读取的分块大小。
+     */
+    static final int BUFFER_SIZE = 64 * 1024;
+
     static {
         Security.addProvider(new BouncyCastleProvider());
     }
@@ -108,6 +163,113 @@ public class AES {
         return crypto(Base64.decode(data), key, iv, ALGORITHM, Cipher.DECRYPT_MODE);
     }
 
+    /**
+     * 使用多线程以“AES/CBC/PKCS7Padding”方式进行256位解密，结果与{@link #decrypt256(byte[], byte[])}相同。
+     *
+     * @param data：     Base64格式的字符串
+     * @param password： 加密时使用的密码
+     * @return
+     * @throws Exception
+     */
+    public static byte[] decrypt256Parallel(byte[] data, byte[] password) throws Exception {
+        return decryptParallel(Base64.decode(data), initKey(password, 256), randomByte(password, ivSize));
+    }
+
+    /**
+     * 使用多线程以“AES/CBC/PKCS7Padding”方式进行128位解密，结果与{@link #decrypt128(byte[], byte[])}相同。
+     *
+     * @param data：     Base64格式的字符串
+     * @param password： 加密时使用的密码
+     * @return
+     * @throws Exception
+     */
+    public static byte[] decrypt128Parallel(byte[] data, byte[] password) throws Exception {
+        return decryptParallel(Base64.decode(data), initKey(password, 128), randomByte(password, ivSize));
+    }
+
+    /**
+     * 使用多线程进行“AES/CBC/PKCS7Padding”解密。
+     * <p>
+     * CBC解密时每个明文块只依赖当前和前一个密文块：P[i] = D(C[i]) ^ C[i-1]。因此把密文按块边界分段，
+     * 各段用ECB并行解密后再与前一个密文块异或，最后单线程去掉补码。
+     *
+     * @param data： 密文
+     * @param key
+     * @param iv
+     * @return
+     * @throws BadPaddingException 补码错误，与单线程解密相同
+     * @throws Exception
+     */
+    public static byte[] decryptParallel(byte[] data, byte[] key, byte[] iv) throws Exception {
+        if (data == null || data.length == 0 || data.length % BLOCK_SIZE != 0) {
+            throw new IllegalArgumentException("CBC密文长度必须是16的整数倍！");
+        }
+        if (iv == null || iv.length != BLOCK_SIZE) {
+            throw new IllegalArgumentException("向量长度必须是16位！");
+        }
+
+        long start = Metrics.start();
+        int length = data.length;
+        byte[] plain = new byte[length];
+        int segments = Math.min(ForkJoinPool.getCommonPoolParallelism() + 1, length / PARALLEL_SEGMENT_SIZE);
+        if (segments <= 1) {
+            decryptSegment(data, key, iv, plain, 0, length);
+        } else {
+            int segmentSize = length / segments / BLOCK_SIZE * BLOCK_SIZE;
+            List<Callable<Void>> tasks = new ArrayList<>(segments);
+            for (int i = 0; i < segments; i++) {
+                final int from = i * segmentSize;
+                final int to = i == segments - 1 ? length : from + segmentSize;
+                tasks.add(() -> {
+                    decryptSegment(data, key, iv, plain, from, to - from);
+                    return null;
+                });
+            }
+            try {
+                for (Future<Void> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+
+        // 补码处理只能在全部解密之后进行。
+        int pad = plain[length - 1] & 0XFF;
+        if (pad == 0 || pad > BLOCK_SIZE) {
+            throw new BadPaddingException("补码错误，密钥或数据不正确！");
+        }
+        for (int i = length - pad; i < length; i++) {
+            if ((plain[i] & 0XFF) != pad) {
+                throw new BadPaddingException("补码错误，密钥或数据不正确！");
+            }
+        }
+        byte[] result = Arrays.copyOf(plain, length - pad);
+        Metrics.record(Operation.AES_DECRYPT, start);
+        return result;
+    }
+
+    /**
+     * 解密[offset, offset + len)部分的密文，写入out的相同位置。
+     */
+    private static void decryptSegment(byte[] data, byte[] key, byte[] iv, byte[] out, int offset, int len)
+            throws Exception {
+        Cipher ecb = Cipher.getInstance("AES/ECB/NoPadding");
+        ecb.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, KEY_ALGORITHM));
+        ecb.doFinal(data, offset, len, out, offset);
+
+        int i = offset;
+        if (offset == 0) {
+            for (; i < BLOCK_SIZE; i++) {
+                out[i] ^= iv[i];
+            }
+        }
+        for (int end = offset + len; i < end; i++) {
+            out[i] ^= data[i - BLOCK_SIZE];
+        }
+    }
+
     /**
      * 根据用户自己自定的参数进行加密操作。
      *
@@ -148,6 +310,23 @@ public class AES {
      * @throws Exception
      */
     private static byte[] crypto(byte[] data, byte[] key, byte[] iv, String algorithm, int mode) throws Exception {
+        long start = Metrics.start();
+        byte[] result = initCipher(key, iv, algorithm, mode).doFinal(data);
+        Metrics.record(mode == Cipher.ENCRYPT_MODE ? Operation.AES_ENCRYPT : Operation.AES_DECRYPT, start);
+        return result;
+    }
+
+    /**
+     * 根据参数初始化一个Cipher对象。
+     *
+     * @param key
+     * @param iv：        为null时不使用向量
+     * @param algorithm
+     * @param mode
+     * @return
+     * @throws Exception
+     */
+    static Cipher initCipher(byte[] key, byte[] iv, String algorithm, int mode) throws Exception {
         Cipher cipher = Cipher.getInstance(algorithm);
         SecretKeySpec keySpec = new SecretKeySpec(key, KEY_ALGORITHM);
         if (iv != null) {
@@ -155,22 +334,350 @@ public class AES {
         } else {
             cipher.init(mode, keySpec);
         }
+        return cipher;
+    }
+
+    /**
+     * 使用“AES/CBC/PKCS7Padding”方式对输入流进行256位加密，结果写入输出流。
+     * <p>
+     * 按块处理，内存占用与数据大小无关。两个流都不会被关闭。
+     *
+     * @param in：       要加密的数据
+     * @param out：      密文的输出位置
+     * @param password： 加密时使用的密码
+     * @throws Exception
+     */
+    public static void encrypt256(InputStream in, OutputStream out, byte[] password) throws Exception {
+        encrypt(in, out, password, 256);
+    }
+
+    /**
+     * 使用“AES/CBC/PKCS7Padding”方式对Base64格式的输入流进行256位解密，结果写入输出流。
+     *
+     * @param in：       Base64格式的密文
+     * @param out：      明文的输出位置
+     * @param password： 加密时使用的密码
+     * @throws Exception
+     */
+    public static void decrypt256(InputStream in, OutputStream out, byte[] password) throws Exception {
+        decrypt(in, out, password, 256);
+    }
 
-        return cipher.doFinal(data);
+    /**
+     * 使用“AES/CBC/PKCS7Padding”方式对输入流进行128位加密，结果写入输出流。
+     *
+     * @param in：       要加密的数据
+     * @param out：      密文的输出位置
+     * @param password： 加密时使用的密码
+     * @throws Exception
+     */
+    public static void encrypt128(InputStream in, OutputStream out, byte[] password) throws Exception {
+        encrypt(in, out, password, 128);
+    }
+
+    /**
+     * 使用“AES/CBC/PKCS7Padding”方式对Base64格式的输入流进行128位解密，结果写入输出流。
+     *
+     * @param in：       Base64格式的密文
+     * @param out：      明文的输出位置
+     * @param password： 加密时使用的密码
+     * @throws Exception
+     */
+    public static void decrypt128(InputStream in, OutputStream out, byte[] password) throws Exception {
+        decrypt(in, out, password, 128);
+    }
+
+    private static void encrypt(InputStream in, OutputStream out, byte[] password, int size) throws Exception {
+        byte[] key = initKey(password, size);
+        byte[] iv = randomByte(password, ivSize);
+        crypto(in, out, initCipher(key, iv, ALGORITHM, Cipher.ENCRYPT_MODE));
+    }
+
+    private static void decrypt(InputStream in, OutputStream out, byte[] password, int size) throws Exception {
+        byte[] key = initKey(password, size);
+        byte[] iv = randomByte(password, ivSize);
+        crypto(base64Decoding(in), out, initCipher(key, iv, ALGORITHM, Cipher.DECRYPT_MODE));
+    }
+
+    /**
+     * 根据用户自己自定的参数对输入流进行加密，结果写入输出流。
+     *
+     * @param in：        要加密的数据
+     * @param out：       密文的输出位置
+     * @param key：       加密时使用的key
+     * @param iv：        加密中使用到的向量
+     * @param algorithm： 加密使用的具体算法，补码方式等信息
+     * @throws Exception
+     */
+    public static void encrypt(InputStream in, OutputStream out, byte[] key, byte[] iv, String algorithm)
+            throws Exception {
+        crypto(in, out, initCipher(key, iv, algorithm, Cipher.ENCRYPT_MODE));
+    }
+
+    /**
+     * 根据用户自己自定的参数对输入流进行解密，结果写入输出流。
+     *
+     * @param in：        要解密的数据
+     * @param out：       明文的输出位置
+     * @param key：       加密时使用的key
+     * @param iv：        加密中使用到的向量
+     * @param algorithm： 加密使用的具体算法，补码方式等信息
+     * @throws Exception
+     */
+    public static void decrypt(InputStream in, OutputStream out, byte[] key, byte[] iv, String algorithm)
+            throws Exception {
+        crypto(in, out, initCipher(key, iv, algorithm, Cipher.DECRYPT_MODE));
+    }
+
+    /**
+     * 根据用户自己自定的参数对文件进行加密，从in的当前位置读到结尾，写入out的当前位置。
+     *
+     * @param in
+     * @param out
+     * @param key
+     * @param iv
+     * @param algorithm
+     * @return 写入out的字节数
+     * @throws Exception
+     */
+    public static long encrypt(FileChannel in, FileChannel out, byte[] key, byte[] iv, String algorithm)
+            throws Exception {
+        return crypto(in, out, initCipher(key, iv, algorithm, Cipher.ENCRYPT_MODE));
+    }
+
+    /**
+     * 根据用户自己自定的参数对文件进行解密，从in的当前位置读到结尾，写入out的当前位置。
+     *
+     * @param in
+     * @param out
+     * @param key
+     * @param iv
+     * @param algorithm
+     * @return 写入out的字节数
+     * @throws Exception
+     */
+    public static long decrypt(FileChannel in, FileChannel out, byte[] key, byte[] iv, String algorithm)
+            throws Exception {
+        return crypto(in, out, initCipher(key, iv, algorithm, Cipher.DECRYPT_MODE));
+    }
+
+    /**
+     * 流式处理的基础操作：逐块update，只在最后doFinal处理补码。
+     *
+     * @param in
+     * @param out
+     * @param cipher
+     * @throws Exception
+     */
+    static void crypto(InputStream in, OutputStream out, Cipher cipher) throws Exception {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] output = new byte[outputSize(cipher)];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            int len = cipher.update(buffer, 0, read, output, 0);
+            out.write(output, 0, len);
+        }
+        int len = cipher.doFinal(output, 0);
+        out.write(output, 0, len);
+        out.flush();
+    }
+
+    private static long crypto(FileChannel in, FileChannel out, Cipher cipher) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer output = ByteBuffer.allocate(outputSize(cipher));
+        long total = 0;
+        while (in.read(buffer) != -1) {
+            buffer.flip();
+            output.clear();
+            cipher.update(buffer, output);
+            total += writeFully(out, output);
+            buffer.clear();
+        }
+        buffer.flip();
+        output.clear();
+        cipher.doFinal(buffer, output);
+        total += writeFully(out, output);
+        return total;
+    }
+
+    /**
+     * 每次update输出的最大长度，需要为cipher内部缓存的不完整块和补码预留空间。
+     *
+     * @param cipher
+     * @return
+     */
+    private static int outputSize(Cipher cipher) {
+        return cipher.getOutputSize(BUFFER_SIZE) + 2 * cipher.getBlockSize();
+    }
+
+    private static int writeFully(FileChannel out, ByteBuffer output) throws IOException {
+        output.flip();
+        int len = output.remaining();
+        while (output.hasRemaining()) {
+            out.write(output);
+        }
+        return len;
+    }
+
+    /**
+     * 将输入流包装为流式的Base64解码流，忽略换行等非Base64字符。
+     *
+     * @param in
+     * @return
+     */
+    static InputStream base64Decoding(InputStream in) {
+        return java.util.Base64.getMimeDecoder().wrap(in);
+    }
+
+    /**
+     * 将输出流包装为流式的Base64编码流。关闭返回的流会写出结尾的补位，但不会关闭out。
+     *
+     * @param out
+     * @return
+     */
+    static OutputStream base64Encoding(OutputStream out) {
+        return java.util.Base64.getEncoder().wrap(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                this.out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        });
+    }
+
+    /**
+     * 使用“AES/GCM/NoPadding”方式加密，每次加密随机生成向量。
+     *
+     * @param data： 要加密的数据
+     * @param key：  16、24或32位的密钥
+     * @return 结构为: iv(12位) + 密文 + 认证标签(16位)
+     * @throws Exception
+     */
+    public static byte[] encryptGcm(byte[] data, byte[] key) throws Exception {
+        return encryptGcm(data, key, null);
+    }
+
+    /**
+     * 使用“AES/GCM/NoPadding”方式加密，aad参与认证但不加密。
+     *
+     * @param data： 要加密的数据
+     * @param key：  16、24或32位的密钥
+     * @param aad：  附加认证数据，可以为null
+     * @return 结构为: iv(12位) + 密文 + 认证标签(16位)
+     * @throws Exception
+     */
+    public static byte[] encryptGcm(byte[] data, byte[] key, byte[] aad) throws Exception {
+        long start = Metrics.start();
+        byte[] iv = new byte[GCM_IV_SIZE];
+        RANDOM.nextBytes(iv);
+
+        Cipher cipher = initGcmCipher(key, iv, Cipher.ENCRYPT_MODE);
+        if (aad != null) {
+            cipher.updateAAD(aad);
+        }
+        byte[] result = new byte[GCM_IV_SIZE + cipher.getOutputSize(data.length)];
+        System.arraycopy(iv, 0, result, 0, GCM_IV_SIZE);
+        cipher.doFinal(data, 0, data.length, result, GCM_IV_SIZE);
+        Metrics.record(Operation.AES_ENCRYPT, start);
+        return result;
+    }
+
+    /**
+     * 解密{@link #encryptGcm(byte[], byte[])}的结果。
+     *
+     * @param data： iv(12位) + 密文 + 认证标签(16位)
+     * @param key
+     * @return
+     * @throws Exception 认证失败时抛出AEADBadTagException
+     */
+    public static byte[] decryptGcm(byte[] data, byte[] key) throws Exception {
+        return decryptGcm(data, key, null);
+    }
+
+    /**
+     * 解密{@link #encryptGcm(byte[], byte[], byte[])}的结果。
+     *
+     * @param data： iv(12位) + 密文 + 认证标签(16位)
+     * @param key
+     * @param aad：  加密时使用的附加认证数据
+     * @return
+     * @throws Exception 认证失败时抛出AEADBadTagException
+     */
+    public static byte[] decryptGcm(byte[] data, byte[] key, byte[] aad) throws Exception {
+        if (data == null || data.length < GCM_IV_SIZE + GCM_TAG_LENGTH / 8) {
+            throw new IllegalArgumentException("GCM密文长度错误！");
+        }
+        long start = Metrics.start();
+        Cipher cipher = Cipher.getInstance(GCM_ALGORITHM, gcmProvider());
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, KEY_ALGORITHM),
+                new GCMParameterSpec(GCM_TAG_LENGTH, data, 0, GCM_IV_SIZE));
+        if (aad != null) {
+            cipher.updateAAD(aad);
+        }
+        byte[] result = cipher.doFinal(data, GCM_IV_SIZE, data.length - GCM_IV_SIZE);
+        Metrics.record(Operation.AES_DECRYPT, start);
+        return result;
+    }
+
+    /**
+     * 初始化一个GCM模式的Cipher对象。
+     *
+     * @param key
+     * @param iv
+     * @param mode
+     * @return
+     * @throws Exception
+     */
+    static Cipher initGcmCipher(byte[] key, byte[] iv, int mode) throws Exception {
+        Cipher cipher = Cipher.getInstance(GCM_ALGORITHM, gcmProvider());
+        cipher.init(mode, new SecretKeySpec(key, KEY_ALGORITHM), new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+        return cipher;
+    }
+
+    /**
+     * 选择GCM模式使用的Provider。
+     * <p>
+     * 优先使用JDK内置实现（有硬件指令优化），不存在时使用BouncyCastle。
+     *
+     * @return
+     */
+    static Provider gcmProvider() {
+        Provider provider = gcmProvider;
+        if (provider == null) {
+            provider = Security.getProvider(JDK_PROVIDER);
+            try {
+                Cipher.getInstance(GCM_ALGORITHM, provider);
+            } catch (Exception e) {
+                provider = Security.getProvider(BouncyCastleProvider.PROVIDER_NAME);
+            }
+            gcmProvider = provider;
+        }
+        return provider;
     }
 
     /**
      * 以传入的password为种子产生密钥。
+     * <p>
+     * 与{@link #randomByte(byte[], int)}一样使用SHA1PRNG：new SecureRandom(seed)在Linux上默认是NativePRNG，
+     * 种子只会混入系统熵，同一个密码每次得到不同的密钥，加密结果无法解密。
      *
      * @param password
      * @return
      * @throws Exception
      */
     private static byte[] initKey(byte[] password, int length) throws Exception {
+        long start = Metrics.start();
+        Object event = FlightEvents.begin(Operation.AES_KEY_DERIVE);
         // 实例化密钥生成器
         KeyGenerator kg = KeyGenerator.getInstance(KEY_ALGORITHM);
-        kg.init(length, new SecureRandom(password));
+        kg.init(length, seededRandom(password));
         SecretKey secretKey = kg.generateKey();
+        FlightEvents.end(event, Operation.AES_KEY_DERIVE, password.length);
+        Metrics.record(Operation.AES_KEY_DERIVE, start);
         return secretKey.getEncoded();
     }
 
@@ -184,6 +691,18 @@ public class AES {
      * @return
      */
     public static byte[] randomByte(byte[] seed, int size) {
+        byte[] iv = new byte[size];
+        seededRandom(seed).nextBytes(iv);
+        return iv;
+    }
+
+    /**
+     * 以seed为种子的随机数生成器，相同的seed产生相同的序列。
+     *
+     * @param seed
+     * @return
+     */
+    private static SecureRandom seededRandom(byte[] seed) {
         SecureRandom sr;
         try {
             sr = SecureRandom.getInstance("SHA1PRNG");
@@ -191,8 +710,6 @@ public class AES {
         } catch (NoSuchAlgorithmException exception) {
             sr = new SecureRandom(seed);
         }
-        byte[] iv = new byte[size];
-        sr.nextBytes(iv);
-        return iv;
+        return sr;
     }
 }
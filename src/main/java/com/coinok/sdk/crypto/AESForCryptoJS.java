@@ -3,12 +3,23 @@ package com.coinok.sdk.crypto;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.util.encoders.Base64;
 
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.Security;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
 /**
  * 可以和CryptoJS互相加解密使用的工具类。
@@ -34,6 +45,22 @@ public class AESForCryptoJS {
      */
     private static int ivSize = 4;
 
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("找不到指定的算法：MD5", e);
+        }
+    });
+
+    private static final ThreadLocal<Cipher> DECRYPT_CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(AES.ALGORITHM);
+        } catch (Exception e) {
+            throw new IllegalStateException("找不到指定的算法：" + AES.ALGORITHM, e);
+        }
+    });
+
     static {
         Security.addProvider(new BouncyCastleProvider());
     }
@@ -61,12 +88,10 @@ public class AESForCryptoJS {
      */
     public static byte[] encrypt(String data, String password) throws Exception {
         byte[] salt = getSalt();
-        byte[] javaKey = new byte[keySize * 4];
-        byte[] javaIv = new byte[ivSize * 4];
         // 从password中获取key和iv。
-        evpKDF(password.getBytes("UTF-8"), keySize, ivSize, salt, javaKey, javaIv);
+        Cipher cipher = initCipher(deriveKeyIv(password, salt, 0), Cipher.ENCRYPT_MODE);
 
-        byte[] original = AES.encrypt(data.getBytes(), javaKey, javaIv, AES.ALGORITHM);
+        byte[] original = cipher.doFinal(data.getBytes());
 
         // 密文的结构为: “Salted__”(8位) + saltBytes(8位) + data
         byte[] result = new byte[original.length + 16];
@@ -86,19 +111,162 @@ public class AESForCryptoJS {
      * @throws Exception
      */
     public static String decrypt(String data, String password) throws Exception {
+        return decrypt(data, password, null);
+    }
+
+    private static String decrypt(String data, String password, Map<Long, byte[]> keyCache) throws Exception {
         byte[] dataDecoded = Base64.decode(data);
+        if (dataDecoded.length < 16) {
+            throw new IllegalArgumentException("密文长度不足，缺少“Salted__”头部！");
+        }
 
         // 密文解密后的结构为: “Salted__”(8位) + saltBytes(8位) + data
-        byte[] salt = Arrays.copyOfRange(dataDecoded, 8, 16);
-        byte[] cipherTextBytes = Arrays.copyOfRange(dataDecoded, 16, dataDecoded.length);
+        byte[] keyIv = getKeyIv(password, dataDecoded, 8, keyCache);
 
-        byte[] javaKey = new byte[keySize * 4];
-        byte[] javaIv = new byte[ivSize * 4];
+        Cipher cipher = DECRYPT_CIPHER.get();
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(keyIv, 0, keySize * 4, "AES"),
+                new IvParameterSpec(keyIv, keySize * 4, ivSize * 4));
+        if (keyCache == null) {
+            Arrays.fill(keyIv, (byte) 0);
+        }
+        byte[] original = cipher.doFinal(dataDecoded, 16, dataDecoded.length - 16);
+        return new String(original);
+    }
 
-        evpKDF(password.getBytes("UTF-8"), keySize, ivSize, salt, javaKey, javaIv);
+    /**
+     * 使用多线程批量解密使用同一个password加密的数据。
+     * <p>
+     * 单条数据解密失败不会影响其他数据，错误信息记录在对应的结果中。
+     * 同一批数据中相同的盐只计算一次evpKDF，缓存的key + iv只在本次调用中使用，返回前清零。
+     *
+     * @param data:    CryptoJS加密产生的Base64编码的信息列表。
+     * @param password
+     * @return 与data顺序相同的解密结果
+     */
+    public static List<DecryptResult> decrypt(List<String> data, String password) {
+        DecryptResult[] results = new DecryptResult[data.size()];
+        Map<Long, byte[]> keyCache = new ConcurrentHashMap<>();
+        try {
+            IntStream.range(0, results.length).parallel().forEach(i -> {
+                try {
+                    results[i] = new DecryptResult(i, decrypt(data.get(i), password, keyCache), null);
+                } catch (Exception e) {
+                    results[i] = new DecryptResult(i, null, e);
+                }
+            });
+        } finally {
+            for (byte[] keyIv : keyCache.values()) {
+                Arrays.fill(keyIv, (byte) 0);
+            }
+        }
+        return Arrays.asList(results);
+    }
 
-        byte[] original = AES.decrypt(cipherTextBytes, javaKey, javaIv, AES.ALGORITHM);
-        return new String(original);
+    /**
+     * 获取data中offset位置的8位盐和password对应的key + iv。
+     *
+     * @param password
+     * @param data
+     * @param offset
+     * @param keyCache： 盐 -> key + iv，为null时不使用缓存
+     * @return key(32位) + iv(16位)
+     */
+    private static byte[] getKeyIv(String password, byte[] data, int offset, Map<Long, byte[]> keyCache) {
+        if (keyCache == null) {
+            return deriveKeyIv(password, data, offset);
+        }
+        long salt = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            salt = (salt << 8) | (data[i] & 0XFF);
+        }
+        return keyCache.computeIfAbsent(salt, s -> deriveKeyIv(password, data, offset));
+    }
+
+    private static byte[] deriveKeyIv(String password, byte[] data, int offset) {
+        byte[] saltBytes = Arrays.copyOfRange(data, offset, offset + 8);
+        return evpKDF(password.getBytes(StandardCharsets.UTF_8), keySize, ivSize, saltBytes, 1, MD5.get());
+    }
+
+    /**
+     * 使用key + iv初始化一个新的Cipher，之后清零keyIv。
+     *
+     * @param keyIv： key(32位) + iv(16位)
+     * @param mode
+     * @return
+     * @throws Exception
+     */
+    private static Cipher initCipher(byte[] keyIv, int mode) throws Exception {
+        try {
+            Cipher cipher = Cipher.getInstance(AES.ALGORITHM);
+            cipher.init(mode, new SecretKeySpec(keyIv, 0, keySize * 4, "AES"),
+                    new IvParameterSpec(keyIv, keySize * 4, ivSize * 4));
+            return cipher;
+        } finally {
+            Arrays.fill(keyIv, (byte) 0);
+        }
+    }
+
+    /**
+     * 使用密码对输入流进行加密，并将结果以Base64编码写入输出流。
+     * <p>
+     * 结果与{@link #encryptToBase64(String, String)}格式相同，但按块处理，不会缓存全部数据。out不会被关闭。
+     *
+     * @param in
+     * @param out
+     * @param password
+     * @throws Exception
+     */
+    public static void encryptToBase64(InputStream in, OutputStream out, String password) throws Exception {
+        try (OutputStream base64 = AES.base64Encoding(out)) {
+            encrypt(in, base64, password);
+        }
+        out.flush();
+    }
+
+    /**
+     * 使用密码对输入流进行加密，结果写入输出流。
+     *
+     * @param in
+     * @param out
+     * @param password
+     * @throws Exception
+     */
+    public static void encrypt(InputStream in, OutputStream out, String password) throws Exception {
+        byte[] salt = getSalt();
+        Cipher cipher = initCipher(deriveKeyIv(password, salt, 0), Cipher.ENCRYPT_MODE);
+
+        // 密文的结构为: “Salted__”(8位) + saltBytes(8位) + data
+        out.write("Salted__".getBytes());
+        out.write(salt);
+        AES.crypto(in, out, cipher);
+    }
+
+    /**
+     * 使用password对CryptoJS加密产生的Base64编码的输入流进行解密，结果写入输出流。
+     *
+     * @param in
+     * @param out
+     * @param password
+     * @throws Exception
+     */
+    public static void decrypt(InputStream in, OutputStream out, String password) throws Exception {
+        InputStream decoded = AES.base64Decoding(in);
+
+        // 密文解密后的结构为: “Salted__”(8位) + saltBytes(8位) + data
+        byte[] head = new byte[16];
+        readFully(decoded, head);
+        AES.crypto(decoded, out, initCipher(getKeyIv(password, head, 8, null), Cipher.DECRYPT_MODE));
+    }
+
+    private static void readFully(InputStream in, byte[] buffer) throws IOException {
+        int pos = 0;
+        while (pos < buffer.length) {
+            int read = in.read(buffer, pos, buffer.length - pos);
+            if (read < 0) {
+                throw new IllegalArgumentException("密文长度不足，缺少“Salted__”头部！");
+            }
+            pos += read;
+        }
     }
 
     /**
@@ -130,27 +298,21 @@ public class AESForCryptoJS {
      * @param keySize
      * @param ivSize
      * @param salt
-     * @param resultKey
-     * @param resultIv
-     * @return
-     * @throws NoSuchAlgorithmException
+     * @param iterations
+     * @param hasher
+     * @return key + iv，中间结果已清零
      */
-    private static byte[] evpKDF(byte[] password, int keySize, int ivSize, byte[] salt, byte[] resultKey,
-                                 byte[] resultIv)
-            throws NoSuchAlgorithmException {
-        return evpKDF(password, keySize, ivSize, salt, 1, "MD5", resultKey, resultIv);
-    }
-
     private static byte[] evpKDF(byte[] password, int keySize, int ivSize, byte[] salt, int iterations,
-                                 String hashAlgorithm, byte[] resultKey, byte[] resultIv) throws NoSuchAlgorithmException {
+                                 MessageDigest hasher) {
         int targetKeySize = keySize + ivSize;
         byte[] derivedBytes = new byte[targetKeySize * 4];
         int numberOfDerivedWords = 0;
         byte[] block = null;
-        MessageDigest hasher = MessageDigest.getInstance(hashAlgorithm);
+        hasher.reset();
         while (numberOfDerivedWords < targetKeySize) {
             if (block != null) {
                 hasher.update(block);
+                Arrays.fill(block, (byte) 0);
             }
             hasher.update(password);
             block = hasher.digest(salt);
@@ -158,7 +320,9 @@ public class AESForCryptoJS {
 
             // Iterations
             for (int i = 1; i < iterations; i++) {
-                block = hasher.digest(block);
+                byte[] previous = block;
+                block = hasher.digest(previous);
+                Arrays.fill(previous, (byte) 0);
                 hasher.reset();
             }
 
@@ -167,11 +331,52 @@ public class AESForCryptoJS {
 
             numberOfDerivedWords += block.length / 4;
         }
-
-        System.arraycopy(derivedBytes, 0, resultKey, 0, keySize * 4);
-        System.arraycopy(derivedBytes, keySize * 4, resultIv, 0, ivSize * 4);
+        Arrays.fill(block, (byte) 0);
 
         // key + iv
         return derivedBytes;
     }
+
+    /**
+     * 批量解密中单条数据的结果。
+     */
+    public static class DecryptResult {
+
+        /**
+         * 在输入列表中的位置。
+         */
+        private final int index;
+
+        /**
+         * 解密后的内容，失败时为null。
+         */
+        private final String data;
+
+        /**
+         * 失败原因，成功时为null。
+         */
+        private final Exception error;
+
+        private DecryptResult(int index, String data, Exception error) {
+            this.index = index;
+            this.data = data;
+            this.error = error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getData() {
+            return data;
+        }
+
+        public Exception getError() {
+            return error;
+        }
+    }
 }
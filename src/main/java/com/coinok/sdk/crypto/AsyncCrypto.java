@@ -0,0 +1,149 @@
+package com.coinok.sdk.crypto;
+
+import org.bitcoinj.core.NetworkParameters;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Bip38}和{@link AES}的异步版本，计算在{@link CryptoExecutor}中进行，调用方线程不会被scrypt阻塞。
+ * <p>
+ * 返回的CompletableFuture可以调用cancel取消，正在进行的scrypt计算会尽快停止。
+ * 线程池中的scrypt不再并行计算lane，并发度由线程池的线程数决定。
+ *
+ * @author Jingyu Yang
+ */
+public class AsyncCrypto {
+
+    private static final AsyncCrypto DEFAULT = new AsyncCrypto(null, 0, TimeUnit.MILLISECONDS);
+
+    private final CryptoExecutor executor;
+
+    private final long timeoutNanos;
+
+    /**
+     * 使用{@link CryptoExecutor#getDefault()}，不限制执行时间。
+     *
+     * @return
+     */
+    public static AsyncCrypto getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param executor： 执行计算的线程池
+     * @param timeout：  每个操作的默认超时时间，小于等于0表示不限制
+     * @param unit
+     */
+    public AsyncCrypto(CryptoExecutor executor, long timeout, TimeUnit unit) {
+        this.executor = executor;
+        this.timeoutNanos = timeout > 0 ? unit.toNanos(timeout) : 0;
+    }
+
+    public CryptoExecutor getExecutor() {
+        return executor == null ? CryptoExecutor.getDefault() : executor;
+    }
+
+    /**
+     * 异步执行{@link Bip38#encryptToBip38(String, String)}，使用默认超时时间。
+     *
+     * @param privateKey
+     * @param passphrase
+     * @return
+     */
+    public CompletableFuture<String> encryptToBip38(String privateKey, String passphrase) {
+        return encryptToBip38(privateKey, passphrase, timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 异步执行{@link Bip38#encryptToBip38(String, String)}。
+     *
+     * @param privateKey
+     * @param passphrase
+     * @param timeout：   小于等于0表示不限制
+     * @param unit
+     * @return
+     */
+    public CompletableFuture<String> encryptToBip38(String privateKey, String passphrase, long timeout,
+                                                    TimeUnit unit) {
+        return getExecutor().submit(() -> Bip38.encryptToBip38(privateKey, passphrase, false), timeout, unit);
+    }
+
+    /**
+     * 异步执行{@link Bip38#decode(String, String, NetworkParameters)}，使用默认超时时间。
+     *
+     * @param bip38String
+     * @param passphrase
+     * @param param
+     * @return WIF格式的私钥
+     */
+    public CompletableFuture<String> decodeBip38(String bip38String, String passphrase, NetworkParameters param) {
+        return decodeBip38(bip38String, passphrase, param, timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 异步执行{@link Bip38#decode(String, String, NetworkParameters)}。
+     *
+     * @param bip38String
+     * @param passphrase
+     * @param param
+     * @param timeout：    小于等于0表示不限制
+     * @param unit
+     * @return WIF格式的私钥
+     */
+    public CompletableFuture<String> decodeBip38(String bip38String, String passphrase, NetworkParameters param,
+                                                 long timeout, TimeUnit unit) {
+        return getExecutor().submit(() -> Bip38.decode(bip38String, passphrase, param, false), timeout, unit);
+    }
+
+    /**
+     * 异步执行{@link AES#encrypt256(byte[], byte[])}。
+     *
+     * @param data
+     * @param password
+     * @return
+     */
+    public CompletableFuture<byte[]> encrypt256(byte[] data, byte[] password) {
+        return submit(() -> AES.encrypt256(data, password));
+    }
+
+    /**
+     * 异步执行{@link AES#decrypt256(byte[], byte[])}。
+     *
+     * @param data
+     * @param password
+     * @return
+     */
+    public CompletableFuture<byte[]> decrypt256(byte[] data, byte[] password) {
+        return submit(() -> AES.decrypt256(data, password));
+    }
+
+    /**
+     * 异步执行{@link AES#encryptGcm(byte[], byte[], byte[])}。
+     *
+     * @param data
+     * @param key
+     * @param aad： 可以为null
+     * @return
+     */
+    public CompletableFuture<byte[]> encryptGcm(byte[] data, byte[] key, byte[] aad) {
+        return submit(() -> AES.encryptGcm(data, key, aad));
+    }
+
+    /**
+     * 异步执行{@link AES#decryptGcm(byte[], byte[], byte[])}。
+     *
+     * @param data
+     * @param key
+     * @param aad： 可以为null
+     * @return
+     */
+    public CompletableFuture<byte[]> decryptGcm(byte[] data, byte[] key, byte[] aad) {
+        return submit(() -> AES.decryptGcm(data, key, aad));
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> callable) {
+        return getExecutor().submit(callable, timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,260 @@
+package com.coinok.sdk.crypto;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.generators.SCrypt;
+import org.bouncycastle.crypto.prng.SP800SecureRandomBuilder;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 使用同一个密码批量加密私钥（如WIF）的工具类。
+ * <p>
+ * 密钥只通过scrypt派生一次，每条记录使用DRBG生成的随机向量以“AES/GCM/NoPadding”方式并行加密，
+ * 结果写成带长度前缀的记录流，读取时可以逐条解密。记录序号参与认证，流的末尾有认证过的结尾，
+ * 记录被删除、调换、重复或者流被截断时，读取都会失败。
+ * <p>
+ * 格式：magic（4位） + version（1位） + N、r、p（各4位） + salt（16位），
+ * 之后每条记录为：length（4位） + iv（12位） + 密文 + 认证标签（16位），附加认证数据为0 + 序号（8位）；
+ * 最后是结尾：0（4位） + iv（12位） + 认证标签（16位），附加认证数据为1 + 记录数（8位）。
+ *
+ * @author Jingyu Yang
+ */
+public class BatchKeyStore {
+
+    private static final byte[] MAGIC = {'O', 'K', 'K', 'S'};
+
+    private static final byte VERSION = 2;
+
+    private static final int SALT_SIZE = 16;
+
+    private static final int KEY_SIZE = 32;
+
+    private static final int N = 16384, R = 8, P = 1;
+
+    /**
+     * 读取时允许的scrypt参数上限。头部来自不可信的输入，不限制时可以让派生密钥占用任意多的内存和时间；
+     * N = 2^20、r = 8时约需要1GB内存。
+     */
+    static final int MAX_N = 1 << 20, MAX_RP = 1 << 10;
+
+    /**
+     * 单条记录（不含length）的最大长度。长度前缀来自不可信的输入，读取时超过的直接拒绝。
+     */
+    static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    private static final int OVERHEAD = AES.GCM_IV_SIZE + AES.GCM_TAG_LENGTH / 8;
+
+    private static final byte AAD_RECORD = 0, AAD_END = 1;
+
+    /**
+     * 每次并行加密的记录数，限制加密结果占用的内存。
+     */
+    private static final int CHUNK_SIZE = 4096;
+
+    static final SecureRandom SEED_RANDOM = new SecureRandom();
+
+    /**
+     * 每个线程一个DRBG，生成向量时不需要同步。
+     */
+    static final ThreadLocal<SecureRandom> IV_RANDOM = ThreadLocal.withInitial(
+            () -> new SP800SecureRandomBuilder(SEED_RANDOM, false).buildHash(new SHA256Digest(), null, false));
+
+    static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(AES.GCM_ALGORITHM, AES.gcmProvider());
+        } catch (Exception e) {
+            throw new IllegalStateException("无法创建GCM加密器！", e);
+        }
+    });
+
+    /**
+     * 使用password加密所有记录并写入输出流。out不会被关闭。
+     *
+     * @param records：  要加密的记录，如WIF格式的私钥，UTF-8编码后不能超过MAX_RECORD_SIZE - 28位
+     * @param password： 加密时使用的密码
+     * @param out
+     * @throws Exception
+     */
+    public static void write(List<String> records, String password, OutputStream out) throws Exception {
+        byte[] salt = new byte[SALT_SIZE];
+        SEED_RANDOM.nextBytes(salt);
+        SecretKeySpec key = deriveKey(password, salt, N, R, P);
+
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.write(MAGIC);
+        dataOut.writeByte(VERSION);
+        dataOut.writeInt(N);
+        dataOut.writeInt(R);
+        dataOut.writeInt(P);
+        dataOut.write(salt);
+
+        int size = records.size();
+        byte[][] encrypted = new byte[Math.min(size, CHUNK_SIZE)][];
+        for (int from = 0; from < size; from += CHUNK_SIZE) {
+            final int start = from;
+            int count = Math.min(CHUNK_SIZE, size - from);
+            IntStream.range(0, count).parallel().forEach(i -> encrypted[i] = encrypt(
+                    records.get(start + i).getBytes(StandardCharsets.UTF_8), key, aad(AAD_RECORD, start + i)));
+
+            for (int i = 0; i < count; i++) {
+                dataOut.writeInt(encrypted[i].length);
+                dataOut.write(encrypted[i]);
+            }
+        }
+        dataOut.writeInt(0);
+        dataOut.write(encrypt(new byte[0], key, aad(AAD_END, size)));
+        dataOut.flush();
+    }
+
+    /**
+     * 打开一个记录流，读取并校验头部后派生出密钥。
+     *
+     * @param in
+     * @param password
+     * @return
+     * @throws Exception
+     */
+    public static Reader open(InputStream in, String password) throws Exception {
+        DataInputStream dataIn = new DataInputStream(in);
+        byte[] magic = new byte[MAGIC.length];
+        dataIn.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC) || dataIn.readByte() != VERSION) {
+            throw new IllegalArgumentException("不是支持的密钥记录流！");
+        }
+        int n = dataIn.readInt();
+        int r = dataIn.readInt();
+        int p = dataIn.readInt();
+        checkParams(n, r, p);
+        byte[] salt = new byte[SALT_SIZE];
+        dataIn.readFully(salt);
+
+        return new Reader(dataIn, deriveKey(password, salt, n, r, p));
+    }
+
+    /**
+     * 检查头部中的scrypt参数：N为不超过MAX_N的2的幂，r、p为正数且r * p不超过MAX_RP。
+     *
+     * @param n
+     * @param r
+     * @param p
+     */
+    static void checkParams(int n, int r, int p) {
+        if (n < 2 || n > MAX_N || (n & (n - 1)) != 0 || r < 1 || p < 1 || (long) r * p > MAX_RP) {
+            throw new IllegalArgumentException("scrypt参数超出范围：N=" + n + ", r=" + r + ", p=" + p);
+        }
+    }
+
+    static SecretKeySpec deriveKey(String password, byte[] salt, int n, int r, int p) {
+        byte[] key = SCrypt.generate(password.getBytes(StandardCharsets.UTF_8), salt, n, r, p, KEY_SIZE);
+        return new SecretKeySpec(key, "AES");
+    }
+
+    private static byte[] encrypt(byte[] data, SecretKeySpec key, byte[] aad) {
+        if (data.length > MAX_RECORD_SIZE - OVERHEAD) {
+            throw new IllegalArgumentException("记录过长：" + data.length);
+        }
+        byte[] iv = new byte[AES.GCM_IV_SIZE];
+        IV_RANDOM.get().nextBytes(iv);
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(AES.GCM_TAG_LENGTH, iv));
+            cipher.updateAAD(aad);
+            byte[] result = new byte[AES.GCM_IV_SIZE + cipher.getOutputSize(data.length)];
+            System.arraycopy(iv, 0, result, 0, AES.GCM_IV_SIZE);
+            cipher.doFinal(data, 0, data.length, result, AES.GCM_IV_SIZE);
+            return result;
+        } catch (Exception e) {
+            throw new IllegalStateException("记录加密失败！", e);
+        }
+    }
+
+    /**
+     * 附加认证数据：kind（1位） + 记录的序号或记录数（8位）。
+     */
+    private static byte[] aad(byte kind, long index) {
+        byte[] aad = new byte[9];
+        aad[0] = kind;
+        for (int i = 8; i > 0; i--) {
+            aad[i] = (byte) index;
+            index >>>= 8;
+        }
+        return aad;
+    }
+
+    /**
+     * 逐条读取并解密记录。
+     */
+    public static class Reader {
+
+        private final DataInputStream in;
+
+        private final SecretKeySpec key;
+
+        private final Cipher cipher;
+
+        private long index;
+
+        private boolean finished;
+
+        private Reader(DataInputStream in, SecretKeySpec key) throws Exception {
+            this.in = in;
+            this.key = key;
+            this.cipher = Cipher.getInstance(AES.GCM_ALGORITHM, AES.gcmProvider());
+        }
+
+        /**
+         * 解密下一条记录。
+         *
+         * @return 读到认证通过的结尾时返回null
+         * @throws Exception 密码错误，记录被修改、删除、调换或重复时抛出AEADBadTagException；
+         *                   记录长度错误或流在结尾之前结束时抛出IOException
+         */
+        public String next() throws Exception {
+            if (finished) {
+                return null;
+            }
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                throw new IOException("记录流被截断，缺少结尾！", e);
+            }
+            if (length == 0) {
+                byte[] end = new byte[OVERHEAD];
+                in.readFully(end);
+                decrypt(end, aad(AAD_END, index));
+                finished = true;
+                return null;
+            }
+            if (length < OVERHEAD || length > MAX_RECORD_SIZE) {
+                throw new IOException("记录长度错误：" + length);
+            }
+            byte[] record = new byte[length];
+            in.readFully(record);
+
+            byte[] data = decrypt(record, aad(AAD_RECORD, index));
+            index++;
+            return new String(data, StandardCharsets.UTF_8);
+        }
+
+        private byte[] decrypt(byte[] record, byte[] aad) throws Exception {
+            cipher.init(Cipher.DECRYPT_MODE, key,
+                    new GCMParameterSpec(AES.GCM_TAG_LENGTH, record, 0, AES.GCM_IV_SIZE));
+            cipher.updateAAD(aad);
+            return cipher.doFinal(record, AES.GCM_IV_SIZE, record.length - AES.GCM_IV_SIZE);
+        }
+    }
+}
@@ -1,14 +1,22 @@
 package com.coinok.sdk.crypto;
 
 import com.coinok.sdk.core.KeyGenerator;
+import com.coinok.sdk.header.AddressType;
 import com.coinok.sdk.header.HeadInfo;
+import com.coinok.sdk.metrics.FlightEvents;
+import com.coinok.sdk.metrics.Metrics;
+import com.coinok.sdk.metrics.Operation;
 import com.coinok.sdk.util.Tools;
-import org.bitcoinj.core.Address;
+import org.bitcoinj.core.AddressFormatException;
 import org.bitcoinj.core.Base58;
+import org.bitcoinj.core.ECKey;
 import org.bitcoinj.core.NetworkParameters;
-import org.bitcoinj.crypto.BIP38PrivateKey;
-import org.bouncycastle.crypto.generators.SCrypt;
 
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
 import java.util.Arrays;
 
 /**
@@ -22,8 +30,51 @@ public class Bip38 {
 
     private static final String ALGORITHM = "AES/ECB/Pkcs7Padding";
 
+    /**
+     * BIP38中scrypt使用的参数。
+     */
+    static final int SCRYPT_N = 16384, SCRYPT_R = 8, SCRYPT_P = 8;
+
+    /**
+     * 一次scrypt计算（lane不并行时）需要的工作内存：V数组（128 * r * N） + B数组（128 * r * p） + XY数组（256 * r）。
+     * lane并行时每个同时计算的lane各需要一个16MB的V数组，一次调用最多约为SCRYPT_P（8）倍，
+     * 实际倍数受{@link SCryptEngine}的lane线程池大小限制。
+     */
+    public static final long SCRYPT_MEMORY = 128L * SCRYPT_R * SCRYPT_N + 128L * SCRYPT_R * SCRYPT_P + 256L * SCRYPT_R;
+
+    /**
+     * 解密成功。
+     */
+    public static final int DECRYPT_OK = 0;
+
+    /**
+     * 不是合法的BIP38字符串：Base58、长度、前缀或校验位错误。
+     */
+    public static final int DECRYPT_BAD_FORMAT = 1;
+
+    /**
+     * 不支持的加密方式。
+     */
+    public static final int DECRYPT_UNSUPPORTED = 2;
+
+    /**
+     * 密码错误：解密出的私钥对应的地址哈希与盐不一致。
+     */
+    public static final int DECRYPT_WRONG_PASSPHRASE = 3;
+
+    private static final ThreadLocal<Cipher> ECB_CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance("AES/ECB/NoPadding");
+        } catch (Exception e) {
+            throw new IllegalStateException("找不到指定的算法：AES/ECB/NoPadding", e);
+        }
+    });
+
     /**
      * 根据passphrase将私钥转为Bip38格式。
+     * <p>
+     * scrypt的lane并行计算，降低单次调用的延迟，但工作内存最多为{@link #SCRYPT_MEMORY}的SCRYPT_P倍，见{@link SCryptEngine}。
+     * 批量加密请使用{@link Bip38BatchEncryptor}。
      *
      * @param privateKey
      * @param passphrase
@@ -31,27 +82,41 @@ public class Bip38 {
      * @throws Exception
      */
     public static String encryptToBip38(String privateKey, String passphrase) throws Exception {
+        return encryptToBip38(privateKey, passphrase, true);
+    }
+
+    /**
+     * 根据passphrase将私钥转为Bip38格式。
+     *
+     * @param privateKey
+     * @param passphrase
+     * @param parallelLanes： scrypt的p个lane是否并行计算，批量加密时使用false
+     * @return
+     * @throws Exception
+     */
+    static String encryptToBip38(String privateKey, String passphrase, boolean parallelLanes) throws Exception {
+        long start = Metrics.start();
         byte[] privateByte = Base58.decode(privateKey);
 
         HeadInfo head = HeadInfo.getInfoByByte(privateByte[0]);
         if (head == null) {
-            throw new IllegalArgumentException("Support btc, ltc, testnet only!");
+            throw new IllegalArgumentException("Unsupported private key prefix!");
         }
         KeyGenerator gene = KeyGenerator.fromPrivateKeyWif(privateKey);
-        Address address = gene.getAddress(head.getParam());
+        String address = head.getAddressCodec().encode(head, AddressType.P2PKH, gene.getEcKey().getPubKeyHash());
 
         privateByte = Arrays.copyOfRange(privateByte, 1, privateByte.length - 4);
 
         // 1 addresshash = SHA256(SHA256(address))
-        byte[] addressHash = DigestHash.sha256X2(address.toString().getBytes());
+        byte[] addressHash = DigestHash.sha256X2(address.getBytes());
         if (addressHash == null || addressHash.length == 0) {
             throw new RuntimeException("Get address hash fail, may be SHA-256 digest is not supported!");
         }
         byte[] salt = Arrays.copyOfRange(addressHash, 0, 4);
 
         // 2 Derive a key from the passphrase using scrypt
-        int n = 16384, r = 8, p = 8, length = 64;
-        byte[] key = SCrypt.generate(passphrase.getBytes(), salt, n, r, p, length);
+        byte[] key = SCryptEngine.generate(passphraseBytes(passphrase), salt, SCRYPT_N, SCRYPT_R, SCRYPT_P, 64,
+                parallelLanes);
 
         byte[] derivedHalf1 = Arrays.copyOfRange(key, 0, 32);
         byte[] derivedHalf2 = Arrays.copyOfRange(key, 32, 64);
@@ -64,6 +129,9 @@ public class Bip38 {
         byte[] encryptedHalf2 = AES.encrypt(block2, derivedHalf2, null, ALGORITHM);
 
         byte isCompress = (byte) ((privateByte.length == 33 && privateByte[32] == 1) ? 0xe0 : 0xc0);
+        for (byte[] secret : new byte[][]{privateByte, key, derivedHalf1, derivedHalf2, block1, block2}) {
+            Arrays.fill(secret, (byte) 0);
+        }
 
         byte[] result = new byte[39 + 4];
         result[0] = (byte) 0x01;
@@ -81,7 +149,9 @@ public class Bip38 {
         }
         System.arraycopy(checkSum, 0, result, 39, 4);
 
-        return Base58.encode(result);
+        String encrypted = Base58.encode(result);
+        Metrics.record(Operation.BIP38_ENCRYPT, start);
+        return encrypted;
     }
 
     /**
@@ -90,12 +160,149 @@ public class Bip38 {
      * @param bip38String
      * @param passphrase
      * @param param
-     * @return
+     * @return WIF格式的私钥
      * @throws Exception
      */
     public static String decode(String bip38String, String passphrase, NetworkParameters param)
             throws Exception {
-        BIP38PrivateKey bip38Key = BIP38PrivateKey.fromBase58(param, bip38String);
-        return bip38Key.decrypt(passphrase).getPrivateKeyEncoded(param).toString();
+        return decode(bip38String, passphrase, param, true);
+    }
+
+    static String decode(String bip38String, String passphrase, NetworkParameters param, boolean parallelLanes) {
+        byte[] keyOut = new byte[33];
+        int status = decrypt(bip38String, passphrase, param, keyOut, parallelLanes);
+        switch (status) {
+            case DECRYPT_OK:
+                return Tools.byteToString((byte) param.getDumpedPrivateKeyHeader(),
+                        keyOut[32] == 1 ? keyOut : Arrays.copyOf(keyOut, 32));
+            case DECRYPT_WRONG_PASSPHRASE:
+                throw new IllegalArgumentException("密码错误！");
+            case DECRYPT_UNSUPPORTED:
+                throw new IllegalArgumentException("不支持的BIP38加密方式！");
+            default:
+                throw new IllegalArgumentException("错误的BIP38字符串！");
+        }
+    }
+
+    /**
+     * 使用passphrase解密一个Bip38格式的私钥，结果直接写入keyOut。
+     * <p>
+     * 字符串格式错误或密码错误时返回状态码，不抛出异常：解密出私钥后先计算地址哈希与盐比较，
+     * 密码错误时返回{@link #DECRYPT_WRONG_PASSPHRASE}。同时支持EC-multiply模式，见{@link Bip38EcMultiply}。
+     * scrypt的lane并行计算，工作内存同{@link #encryptToBip38(String, String)}。
+     *
+     * @param bip38String
+     * @param passphrase
+     * @param param：      地址所属的网络
+     * @param keyOut：     长度至少33位。成功时[0, 32)为私钥，[32]为1表示压缩格式，0表示非压缩格式
+     * @return DECRYPT_开头的状态码
+     * @throws IllegalArgumentException bip38String、passphrase或param为null，或keyOut长度不足33位
+     * @throws IllegalStateException    当前环境不支持AES/ECB/NoPadding
+     * @throws java.util.concurrent.CancellationException scrypt计算过程中线程被中断，见{@link SCryptEngine}
+     */
+    public static int decrypt(String bip38String, String passphrase, NetworkParameters param, byte[] keyOut) {
+        return decrypt(bip38String, passphrase, param, keyOut, true);
+    }
+
+    /**
+     * 同{@link #decrypt(String, String, NetworkParameters, byte[])}。
+     *
+     * @param bip38String
+     * @param passphrase
+     * @param param
+     * @param keyOut
+     * @param parallelLanes： scrypt的p个lane是否并行计算，在专用线程池中执行时使用false
+     * @return DECRYPT_开头的状态码
+     */
+    static int decrypt(String bip38String, String passphrase, NetworkParameters param, byte[] keyOut,
+                       boolean parallelLanes) {
+        long start = Metrics.start();
+        int status = decryptKey(bip38String, passphrase, param, keyOut, parallelLanes);
+        if (status == DECRYPT_OK || status == DECRYPT_WRONG_PASSPHRASE) {
+            Metrics.record(Operation.BIP38_DECRYPT, start);
+        }
+        return status;
+    }
+
+    private static int decryptKey(String bip38String, String passphrase, NetworkParameters param, byte[] keyOut,
+                                  boolean parallelLanes) {
+        if (bip38String == null || passphrase == null || param == null) {
+            throw new IllegalArgumentException("bip38String、passphrase和param都不能为空！");
+        }
+        if (keyOut == null || keyOut.length < 33) {
+            throw new IllegalArgumentException("keyOut长度至少为33位！");
+        }
+
+        byte[] data;
+        try {
+            data = Base58.decode(bip38String);
+        } catch (AddressFormatException e) {
+            FlightEvents.base58Failure(Operation.BIP38_DECRYPT, bip38String.length(), "character");
+            return DECRYPT_BAD_FORMAT;
+        }
+        if (data.length != 43 || !Tools.check(data) || data[0] != 0x01) {
+            FlightEvents.base58Failure(Operation.BIP38_DECRYPT, bip38String.length(), "length, checksum or prefix");
+            return DECRYPT_BAD_FORMAT;
+        }
+        if (data[1] == 0x43) {
+            return Bip38EcMultiply.decrypt(data, passphraseBytes(passphrase), param, keyOut, parallelLanes);
+        }
+        if (data[1] != 0x42) {
+            return DECRYPT_UNSUPPORTED;
+        }
+        int flag = data[2] & 0XFF;
+        if (flag != 0xc0 && flag != 0xe0) {
+            return DECRYPT_BAD_FORMAT;
+        }
+        boolean compressed = flag == 0xe0;
+
+        byte[] salt = Arrays.copyOfRange(data, 3, 7);
+        byte[] derived = SCryptEngine.generate(passphraseBytes(passphrase), salt, SCRYPT_N, SCRYPT_R, SCRYPT_P, 64,
+                parallelLanes);
+
+        try {
+            try {
+                Cipher cipher = ECB_CIPHER.get();
+                cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(derived, 32, 32, "AES"));
+                cipher.doFinal(data, 7, 32, keyOut, 0);
+            } catch (Exception e) {
+                throw new IllegalStateException("AES解密失败！", e);
+            }
+            for (int i = 0; i < 32; i++) {
+                keyOut[i] ^= derived[i];
+            }
+        } finally {
+            Arrays.fill(derived, (byte) 0);
+        }
+        keyOut[32] = (byte) (compressed ? 1 : 0);
+
+        byte[] keyBytes = Arrays.copyOf(keyOut, 32);
+        BigInteger key = new BigInteger(1, keyBytes);
+        Arrays.fill(keyBytes, (byte) 0);
+        if (key.signum() == 0 || key.compareTo(ECKey.CURVE.getN()) >= 0) {
+            Arrays.fill(keyOut, (byte) 0);
+            return DECRYPT_WRONG_PASSPHRASE;
+        }
+
+        ECKey ecKey = ECKey.fromPrivate(key, compressed);
+        String address = Tools.byteToString((byte) param.getAddressHeader(), ecKey.getPubKeyHash());
+        byte[] addressHash = DigestHash.sha256X2(address.getBytes());
+        for (int i = 0; i < 4; i++) {
+            if (addressHash[i] != salt[i]) {
+                Arrays.fill(keyOut, (byte) 0);
+                return DECRYPT_WRONG_PASSPHRASE;
+            }
+        }
+        return DECRYPT_OK;
+    }
+
+    /**
+     * BIP38要求passphrase使用NFC规范化后的UTF-8编码。
+     *
+     * @param passphrase
+     * @return
+     */
+    static byte[] passphraseBytes(String passphrase) {
+        return Normalizer.normalize(passphrase, Normalizer.Form.NFC).getBytes(StandardCharsets.UTF_8);
     }
 }
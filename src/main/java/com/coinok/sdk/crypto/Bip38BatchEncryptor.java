@@ -0,0 +1,266 @@
+package com.coinok.sdk.crypto;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 批量进行BIP38加密，限制scrypt同时占用的内存。
+ * <p>
+ * 每次scrypt计算需要约{@link Bip38#SCRYPT_MEMORY}字节的工作内存。同时运行的计算数量取内存预算允许的数量和线程数中较小的值，
+ * 每个工作线程计算完一个私钥后立即领取下一个，保证所有线程一直忙碌，又不会超出内存预算。
+ * 预算属于整个加密器：同一个实例上同时进行的多个任务共享{@link #getParallelism()}个计算名额。
+ * 工作线程中scrypt的lane不再并行，每个线程重复使用自己的{@link SCryptEngine}工作数组。
+ *
+ * @author Jingyu Yang
+ */
+public class Bip38BatchEncryptor {
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    /**
+     * 同时进行的scrypt计算数量。
+     */
+    private final int parallelism;
+
+    /**
+     * 所有任务共享的计算名额，每次scrypt计算前获取。
+     */
+    final Semaphore permits;
+
+    private final ThreadFactory threadFactory = runnable -> {
+        Thread thread = new Thread(runnable, "bip38-batch-" + THREAD_NUMBER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    };
+
+    /**
+     * 使用全部CPU，在memoryBudget字节的内存预算内进行加密。
+     *
+     * @param memoryBudget： scrypt工作内存的总预算（字节）
+     */
+    public Bip38BatchEncryptor(long memoryBudget) {
+        this(memoryBudget, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 最多使用threads个线程，在memoryBudget字节的内存预算内进行加密。
+     *
+     * @param memoryBudget： scrypt工作内存的总预算（字节）
+     * @param threads：      最大线程数
+     */
+    public Bip38BatchEncryptor(long memoryBudget, int threads) {
+        if (memoryBudget < Bip38.SCRYPT_MEMORY) {
+            throw new IllegalArgumentException("内存预算不能小于一次scrypt计算需要的" + Bip38.SCRYPT_MEMORY + "字节！");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("线程数必须大于0！");
+        }
+        this.parallelism = (int) Math.min(threads, memoryBudget / Bip38.SCRYPT_MEMORY);
+        this.permits = new Semaphore(parallelism, true);
+    }
+
+    /**
+     * 同时进行的scrypt计算数量，所有任务合计。
+     *
+     * @return
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * 开始批量加密，立即返回。与同一实例上的其它任务共享内存预算，名额不足时工作线程等待。
+     *
+     * @param privateKeys： WIF格式的私钥列表
+     * @param passphrase
+     * @param listener：    进度回调，可以为null。会在工作线程中调用
+     * @return
+     */
+    public Task encrypt(List<String> privateKeys, String passphrase, ProgressListener listener) {
+        int workers = Math.min(parallelism, privateKeys.size());
+        Task task = new Task(privateKeys, passphrase, listener, permits, workers, threadFactory);
+        task.start();
+        return task;
+    }
+
+    /**
+     * 进度回调。
+     */
+    public interface ProgressListener {
+
+        /**
+         * 每完成一个私钥（无论成功失败）调用一次。抛出的异常不会中断加密，记录在{@link Task#getProgressError()}中。
+         *
+         * @param completed： 已完成的数量
+         * @param total：     总数量
+         */
+        void onProgress(int completed, int total);
+    }
+
+    /**
+     * 一次批量加密任务。
+     */
+    public static class Task {
+
+        private final List<String> privateKeys;
+
+        private final String passphrase;
+
+        private final ProgressListener listener;
+
+        private final Semaphore permits;
+
+        private final Thread[] threads;
+
+        private final String[] results;
+
+        private final Map<Integer, Exception> errors = new ConcurrentHashMap<>();
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        private final AtomicInteger completed = new AtomicInteger();
+
+        private final AtomicReference<RuntimeException> progressError = new AtomicReference<>();
+
+        private volatile boolean cancelled;
+
+        private final CountDownLatch done;
+
+        private Task(List<String> privateKeys, String passphrase, ProgressListener listener, Semaphore permits,
+                     int workers, ThreadFactory threadFactory) {
+            this.privateKeys = privateKeys;
+            this.passphrase = passphrase;
+            this.listener = listener;
+            this.permits = permits;
+            this.results = new String[privateKeys.size()];
+            this.done = new CountDownLatch(workers);
+            this.threads = new Thread[workers];
+            for (int i = 0; i < workers; i++) {
+                threads[i] = threadFactory.newThread(this::work);
+            }
+        }
+
+        private void start() {
+            for (Thread thread : threads) {
+                thread.start();
+            }
+        }
+
+        private void work() {
+            try {
+                int index;
+                while (!cancelled && (index = next.getAndIncrement()) < results.length) {
+                    permits.acquire();
+                    try {
+                        results[index] = Bip38.encryptToBip38(privateKeys.get(index), passphrase, false);
+                    } catch (CancellationException e) {
+                        if (cancelled) {
+                            break;
+                        }
+                        errors.put(index, e);
+                    } catch (Exception e) {
+                        errors.put(index, e);
+                    } finally {
+                        permits.release();
+                    }
+                    progress(completed.incrementAndGet());
+                }
+            } catch (InterruptedException e) {
+                // 等待计算名额时被cancel()中断
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void progress(int count) {
+            if (listener == null) {
+                return;
+            }
+            try {
+                listener.onProgress(count, results.length);
+            } catch (RuntimeException e) {
+                if (!progressError.compareAndSet(null, e)) {
+                    progressError.get().addSuppressed(e);
+                }
+            }
+        }
+
+        /**
+         * 取消任务。不再领取新的私钥，并中断工作线程，正在进行的scrypt计算会尽快停止，其结果为null。
+         */
+        public void cancel() {
+            cancelled = true;
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        /**
+         * 已完成的数量。
+         *
+         * @return
+         */
+        public int getCompleted() {
+            return completed.get();
+        }
+
+        /**
+         * 等待任务结束，返回与输入顺序相同的结果，失败或被取消的位置为null。
+         *
+         * @return
+         * @throws InterruptedException
+         */
+        public List<String> get() throws InterruptedException {
+            done.await();
+            return Collections.unmodifiableList(Arrays.asList(results));
+        }
+
+        /**
+         * 在指定时间内等待任务结束。
+         *
+         * @param timeout
+         * @param unit
+         * @return 任务是否已经结束
+         * @throws InterruptedException
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return done.await(timeout, unit);
+        }
+
+        /**
+         * 加密失败的私钥序号和原因。
+         *
+         * @return
+         */
+        public Map<Integer, Exception> getErrors() {
+            return Collections.unmodifiableMap(errors);
+        }
+
+        /**
+         * 进度回调抛出的第一个异常，之后的异常作为其suppressed异常。
+         *
+         * @return 没有异常时为null
+         */
+        public RuntimeException getProgressError() {
+            return progressError.get();
+        }
+    }
+}
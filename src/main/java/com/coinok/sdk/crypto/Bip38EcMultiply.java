@@ -0,0 +1,458 @@
+package com.coinok.sdk.crypto;
+
+import com.coinok.sdk.util.Tools;
+import org.bitcoinj.core.AddressFormatException;
+import org.bitcoinj.core.Base58;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bouncycastle.math.ec.ECPoint;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * BIP38的EC-multiply模式（前缀0x0143）。
+ * <p>
+ * 用户只需要用密码生成一次intermediate code交给服务端，服务端之后即可为其生成加密私钥，
+ * 每个私钥只需要一次scrypt(1024, 1, 1)和两次点乘，不需要知道密码，也不需要N = 16384的scrypt计算。
+ *
+ * @author Jingyu Yang
+ */
+public class Bip38EcMultiply {
+
+    /**
+     * 不含lot、sequence的intermediate code的前缀。
+     */
+    private static final byte[] MAGIC_NO_LOT = {(byte) 0X2C, (byte) 0XE9, (byte) 0XB3, (byte) 0XE1, (byte) 0XFF,
+            (byte) 0X39, (byte) 0XE2, (byte) 0X51};
+
+    /**
+     * 含lot、sequence的intermediate code的前缀。
+     */
+    private static final byte[] MAGIC_LOT = {(byte) 0X2C, (byte) 0XE9, (byte) 0XB3, (byte) 0XE1, (byte) 0XFF,
+            (byte) 0X39, (byte) 0XE2, (byte) 0X53};
+
+    /**
+     * 确认码的前缀。
+     */
+    private static final byte[] MAGIC_CONFIRM = {(byte) 0X64, (byte) 0X3B, (byte) 0XF6, (byte) 0XA8, (byte) 0X9A};
+
+    private static final int FLAG_COMPRESSED = 0X20;
+
+    private static final int FLAG_LOT_SEQUENCE = 0X04;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final ThreadLocal<Cipher> ECB_CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance("AES/ECB/NoPadding");
+        } catch (Exception e) {
+            throw new IllegalStateException("找不到指定的算法：AES/ECB/NoPadding", e);
+        }
+    });
+
+    /**
+     * 使用passphrase生成不含lot、sequence的intermediate code。
+     *
+     * @param passphrase
+     * @return 以“passphrase”开头的字符串
+     */
+    public static String generateIntermediateCode(String passphrase) {
+        byte[] ownerSalt = new byte[8];
+        RANDOM.nextBytes(ownerSalt);
+        byte[] passFactor = passFactor(Bip38.passphraseBytes(passphrase), ownerSalt, false);
+        return intermediateCode(MAGIC_NO_LOT, ownerSalt, passFactor);
+    }
+
+    /**
+     * 使用passphrase生成含lot、sequence的intermediate code。
+     *
+     * @param passphrase
+     * @param lot：       0 - 1048575
+     * @param sequence：  0 - 4095
+     * @return 以“passphrase”开头的字符串
+     */
+    public static String generateIntermediateCode(String passphrase, int lot, int sequence) {
+        if (lot < 0 || lot > 1048575 || sequence < 0 || sequence > 4095) {
+            throw new IllegalArgumentException("lot范围为0 - 1048575，sequence范围为0 - 4095！");
+        }
+        int lotSequence = lot * 4096 + sequence;
+        byte[] ownerEntropy = new byte[8];
+        RANDOM.nextBytes(ownerEntropy);
+        ownerEntropy[4] = (byte) (lotSequence >>> 24);
+        ownerEntropy[5] = (byte) (lotSequence >>> 16);
+        ownerEntropy[6] = (byte) (lotSequence >>> 8);
+        ownerEntropy[7] = (byte) lotSequence;
+        byte[] passFactor = passFactor(Bip38.passphraseBytes(passphrase), ownerEntropy, true);
+        return intermediateCode(MAGIC_LOT, ownerEntropy, passFactor);
+    }
+
+    /**
+     * 根据intermediate code生成一个加密私钥，不需要密码。
+     *
+     * @param intermediateCode
+     * @param compressed：     是否使用压缩公钥
+     * @param param：          地址所属的网络
+     * @return
+     */
+    public static EncryptedKey generateEncryptedKey(String intermediateCode, boolean compressed,
+                                                    NetworkParameters param) {
+        return generateEncryptedKey(decodeIntermediateCode(intermediateCode), compressed, param);
+    }
+
+    /**
+     * 使用全部CPU，根据intermediate code批量生成加密私钥。
+     *
+     * @param intermediateCode
+     * @param count
+     * @param compressed
+     * @param param
+     * @return
+     */
+    public static List<EncryptedKey> generateEncryptedKeys(String intermediateCode, int count, boolean compressed,
+                                                           NetworkParameters param) {
+        IntermediateCode code = decodeIntermediateCode(intermediateCode);
+        return IntStream.range(0, count).parallel()
+                .mapToObj(i -> generateEncryptedKey(code, compressed, param))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 使用passphrase检查确认码，确认生成加密私钥的一方使用了正确的intermediate code。
+     *
+     * @param confirmationCode
+     * @param passphrase
+     * @param param
+     * @return 确认成功时返回对应的地址，否则返回null
+     */
+    public static String confirm(String confirmationCode, String passphrase, NetworkParameters param) {
+        byte[] data;
+        try {
+            data = Base58.decode(confirmationCode);
+        } catch (AddressFormatException e) {
+            return null;
+        }
+        if (data.length != 55 || !Tools.check(data) || !startsWith(data, MAGIC_CONFIRM)) {
+            return null;
+        }
+        int flag = data[5] & 0XFF;
+        byte[] addressHash = Arrays.copyOfRange(data, 6, 10);
+        byte[] ownerEntropy = Arrays.copyOfRange(data, 10, 18);
+
+        byte[] passFactor = passFactor(Bip38.passphraseBytes(passphrase), ownerEntropy,
+                (flag & FLAG_LOT_SEQUENCE) != 0);
+        byte[] passPoint = ECKey.publicKeyFromPrivate(new BigInteger(1, passFactor), true);
+        byte[] derived = derive(passPoint, addressHash, ownerEntropy);
+
+        byte[] pointB = new byte[33];
+        pointB[0] = (byte) (data[18] ^ (derived[63] & 1));
+        if (pointB[0] != 0X02 && pointB[0] != 0X03) {
+            return null;
+        }
+        aes(derived, data, 19, pointB, 1);
+        aes(derived, data, 35, pointB, 17);
+        for (int i = 0; i < 32; i++) {
+            pointB[i + 1] ^= derived[i];
+        }
+
+        ECPoint point;
+        try {
+            point = ECKey.CURVE.getCurve().decodePoint(pointB).multiply(new BigInteger(1, passFactor)).normalize();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String address = address(point, (flag & FLAG_COMPRESSED) != 0, param);
+        return Arrays.equals(addressHash, addressHash(address)) ? address : null;
+    }
+
+    /**
+     * 解密EC-multiply模式的BIP38数据，由{@link Bip38#decrypt(String, String, NetworkParameters, byte[])}调用。
+     *
+     * @param data：       Base58解码并检查过校验位的43位数据
+     * @param passphrase： NFC规范化后的UTF-8编码的密码
+     * @param param
+     * @param keyOut
+     * @param parallelLanes： scrypt的p个lane是否并行计算
+     * @return Bip38.DECRYPT_开头的状态码
+     */
+    static int decrypt(byte[] data, byte[] passphrase, NetworkParameters param, byte[] keyOut,
+                       boolean parallelLanes) {
+        int flag = data[2] & 0XFF;
+        if ((flag & ~(FLAG_COMPRESSED | FLAG_LOT_SEQUENCE)) != 0) {
+            return Bip38.DECRYPT_BAD_FORMAT;
+        }
+        boolean compressed = (flag & FLAG_COMPRESSED) != 0;
+        byte[] addressHash = Arrays.copyOfRange(data, 3, 7);
+        byte[] ownerEntropy = Arrays.copyOfRange(data, 7, 15);
+
+        byte[] passFactor = passFactor(passphrase, ownerEntropy, (flag & FLAG_LOT_SEQUENCE) != 0, parallelLanes);
+        byte[] passPoint = ECKey.publicKeyFromPrivate(new BigInteger(1, passFactor), true);
+        byte[] derived = derive(passPoint, addressHash, ownerEntropy);
+        byte[] part1 = new byte[16];
+        byte[] part2 = new byte[16];
+        byte[] seedB = new byte[24];
+        BigInteger key;
+        try {
+            // encryptedpart2 -> encryptedpart1[8, 16) + seedb[16, 24)
+            aes(derived, data, 23, part2, 0);
+            for (int i = 0; i < 16; i++) {
+                part2[i] ^= derived[16 + i];
+            }
+
+            // encryptedpart1 -> seedb[0, 16)
+            System.arraycopy(data, 15, part1, 0, 8);
+            System.arraycopy(part2, 0, part1, 8, 8);
+            aes(derived, part1, 0, seedB, 0);
+            for (int i = 0; i < 16; i++) {
+                seedB[i] ^= derived[i];
+            }
+            System.arraycopy(part2, 8, seedB, 16, 8);
+
+            byte[] factorB = DigestHash.sha256X2(seedB);
+            BigInteger n = ECKey.CURVE.getN();
+            key = new BigInteger(1, passFactor).multiply(new BigInteger(1, factorB)).mod(n);
+            Arrays.fill(factorB, (byte) 0);
+        } finally {
+            for (byte[] secret : new byte[][]{passFactor, derived, part1, part2, seedB}) {
+                Arrays.fill(secret, (byte) 0);
+            }
+        }
+        if (key.signum() == 0) {
+            return Bip38.DECRYPT_WRONG_PASSPHRASE;
+        }
+
+        ECKey ecKey = ECKey.fromPrivate(key, compressed);
+        String address = Tools.byteToString((byte) param.getAddressHeader(), ecKey.getPubKeyHash());
+        if (!Arrays.equals(addressHash, addressHash(address))) {
+            return Bip38.DECRYPT_WRONG_PASSPHRASE;
+        }
+
+        byte[] keyBytes = ecKey.getPrivKeyBytes();
+        System.arraycopy(keyBytes, 0, keyOut, 0, 32);
+        Arrays.fill(keyBytes, (byte) 0);
+        keyOut[32] = (byte) (compressed ? 1 : 0);
+        return Bip38.DECRYPT_OK;
+    }
+
+    private static EncryptedKey generateEncryptedKey(IntermediateCode code, boolean compressed,
+                                                     NetworkParameters param) {
+        byte[] seedB = new byte[24];
+        BigInteger factorB;
+        do {
+            RANDOM.nextBytes(seedB);
+            factorB = new BigInteger(1, DigestHash.sha256X2(seedB));
+        } while (factorB.signum() == 0 || factorB.compareTo(ECKey.CURVE.getN()) >= 0);
+
+        ECPoint generated = code.passPoint.multiply(factorB).normalize();
+        String address = address(generated, compressed, param);
+        byte[] addressHash = addressHash(address);
+        byte[] derived = derive(code.passPointEncoded, addressHash, code.ownerEntropy);
+
+        byte flag = (byte) ((compressed ? FLAG_COMPRESSED : 0) | (code.lotSequence ? FLAG_LOT_SEQUENCE : 0));
+
+        // encryptedpart1 = AES(seedb[0, 16) xor derivedhalf1[0, 16))
+        byte[] block = new byte[16];
+        for (int i = 0; i < 16; i++) {
+            block[i] = (byte) (seedB[i] ^ derived[i]);
+        }
+        byte[] part1 = new byte[16];
+        aes(derived, block, 0, part1, 0, Cipher.ENCRYPT_MODE);
+
+        // encryptedpart2 = AES((encryptedpart1[8, 16) + seedb[16, 24)) xor derivedhalf1[16, 32))
+        for (int i = 0; i < 8; i++) {
+            block[i] = (byte) (part1[8 + i] ^ derived[16 + i]);
+            block[8 + i] = (byte) (seedB[16 + i] ^ derived[24 + i]);
+        }
+        byte[] part2 = new byte[16];
+        aes(derived, block, 0, part2, 0, Cipher.ENCRYPT_MODE);
+
+        byte[] result = new byte[39];
+        result[0] = 0X01;
+        result[1] = 0X43;
+        result[2] = flag;
+        System.arraycopy(addressHash, 0, result, 3, 4);
+        System.arraycopy(code.ownerEntropy, 0, result, 7, 8);
+        System.arraycopy(part1, 0, result, 15, 8);
+        System.arraycopy(part2, 0, result, 23, 16);
+
+        // 确认码：pointb = G * factorb，加密后交给用户核对。
+        byte[] pointB = ECKey.publicKeyFromPrivate(factorB, true);
+        byte[] confirm = new byte[51];
+        System.arraycopy(MAGIC_CONFIRM, 0, confirm, 0, 5);
+        confirm[5] = flag;
+        System.arraycopy(addressHash, 0, confirm, 6, 4);
+        System.arraycopy(code.ownerEntropy, 0, confirm, 10, 8);
+        confirm[18] = (byte) (pointB[0] ^ (derived[63] & 1));
+        for (int i = 0; i < 32; i++) {
+            pointB[1 + i] ^= derived[i];
+        }
+        aes(derived, pointB, 1, confirm, 19, Cipher.ENCRYPT_MODE);
+        aes(derived, pointB, 17, confirm, 35, Cipher.ENCRYPT_MODE);
+
+        return new EncryptedKey(Tools.byteToString(result), Tools.byteToString(confirm), address);
+    }
+
+    private static IntermediateCode decodeIntermediateCode(String intermediateCode) {
+        byte[] data;
+        try {
+            data = Base58.decode(intermediateCode);
+        } catch (AddressFormatException e) {
+            throw new IllegalArgumentException("错误的intermediate code！");
+        }
+        if (data.length != 53 || !Tools.check(data)) {
+            throw new IllegalArgumentException("错误的intermediate code！");
+        }
+        boolean lotSequence;
+        if (startsWith(data, MAGIC_LOT)) {
+            lotSequence = true;
+        } else if (startsWith(data, MAGIC_NO_LOT)) {
+            lotSequence = false;
+        } else {
+            throw new IllegalArgumentException("错误的intermediate code前缀！");
+        }
+        byte[] ownerEntropy = Arrays.copyOfRange(data, 8, 16);
+        byte[] passPoint = Arrays.copyOfRange(data, 16, 49);
+        return new IntermediateCode(ownerEntropy, passPoint, lotSequence);
+    }
+
+    private static String intermediateCode(byte[] magic, byte[] ownerEntropy, byte[] passFactor) {
+        byte[] passPoint = ECKey.publicKeyFromPrivate(new BigInteger(1, passFactor), true);
+        byte[] result = new byte[49];
+        System.arraycopy(magic, 0, result, 0, 8);
+        System.arraycopy(ownerEntropy, 0, result, 8, 8);
+        System.arraycopy(passPoint, 0, result, 16, 33);
+        return Tools.byteToString(result);
+    }
+
+    /**
+     * 计算passfactor。有lot、sequence时，ownersalt只取ownerentropy的前4位。
+     */
+    private static byte[] passFactor(byte[] passphrase, byte[] ownerEntropy, boolean lotSequence) {
+        return passFactor(passphrase, ownerEntropy, lotSequence, true);
+    }
+
+    private static byte[] passFactor(byte[] passphrase, byte[] ownerEntropy, boolean lotSequence,
+                                     boolean parallelLanes) {
+        byte[] ownerSalt = lotSequence ? Arrays.copyOf(ownerEntropy, 4) : ownerEntropy;
+        byte[] preFactor = SCryptEngine.generate(passphrase, ownerSalt, Bip38.SCRYPT_N, Bip38.SCRYPT_R,
+                Bip38.SCRYPT_P, 32, parallelLanes);
+        if (!lotSequence) {
+            return preFactor;
+        }
+        byte[] temp = new byte[40];
+        System.arraycopy(preFactor, 0, temp, 0, 32);
+        System.arraycopy(ownerEntropy, 0, temp, 32, 8);
+        return DigestHash.sha256X2(temp);
+    }
+
+    /**
+     * derived = scrypt(passpoint, addresshash + ownerentropy, 1024, 1, 1, 64)
+     */
+    private static byte[] derive(byte[] passPoint, byte[] addressHash, byte[] ownerEntropy) {
+        byte[] salt = new byte[12];
+        System.arraycopy(addressHash, 0, salt, 0, 4);
+        System.arraycopy(ownerEntropy, 0, salt, 4, 8);
+        return SCryptEngine.generate(passPoint, salt, 1024, 1, 1, 64, false);
+    }
+
+    private static String address(ECPoint point, boolean compressed, NetworkParameters param) {
+        byte[] pubKeyHash = DigestHash.sha256hash160(point.getEncoded(compressed));
+        return Tools.byteToString((byte) param.getAddressHeader(), pubKeyHash);
+    }
+
+    private static byte[] addressHash(String address) {
+        return Arrays.copyOf(DigestHash.sha256X2(address.getBytes()), 4);
+    }
+
+    private static void aes(byte[] derived, byte[] in, int inOffset, byte[] out, int outOffset) {
+        aes(derived, in, inOffset, out, outOffset, Cipher.DECRYPT_MODE);
+    }
+
+    /**
+     * 使用derivedhalf2对in中的一个块进行AES加解密。
+     */
+    private static void aes(byte[] derived, byte[] in, int inOffset, byte[] out, int outOffset, int mode) {
+        try {
+            Cipher cipher = ECB_CIPHER.get();
+            cipher.init(mode, new SecretKeySpec(derived, 32, 32, "AES"));
+            cipher.doFinal(in, inOffset, 16, out, outOffset);
+        } catch (Exception e) {
+            throw new IllegalStateException("AES运算失败！", e);
+        }
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 解析后的intermediate code，批量生成时只解析一次。
+     */
+    private static final class IntermediateCode {
+
+        private final byte[] ownerEntropy;
+
+        private final byte[] passPointEncoded;
+
+        private final ECPoint passPoint;
+
+        private final boolean lotSequence;
+
+        private IntermediateCode(byte[] ownerEntropy, byte[] passPointEncoded, boolean lotSequence) {
+            this.ownerEntropy = ownerEntropy;
+            this.passPointEncoded = passPointEncoded;
+            this.passPoint = ECKey.CURVE.getCurve().decodePoint(passPointEncoded);
+            this.lotSequence = lotSequence;
+        }
+    }
+
+    /**
+     * 生成的加密私钥。
+     */
+    public static class EncryptedKey {
+
+        /**
+         * 以“6P”开头的BIP38加密私钥。
+         */
+        private final String encryptedKey;
+
+        /**
+         * 以“cfrm”开头的确认码。
+         */
+        private final String confirmationCode;
+
+        /**
+         * 私钥对应的地址。
+         */
+        private final String address;
+
+        private EncryptedKey(String encryptedKey, String confirmationCode, String address) {
+            this.encryptedKey = encryptedKey;
+            this.confirmationCode = confirmationCode;
+            this.address = address;
+        }
+
+        public String getEncryptedKey() {
+            return encryptedKey;
+        }
+
+        public String getConfirmationCode() {
+            return confirmationCode;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+    }
+}
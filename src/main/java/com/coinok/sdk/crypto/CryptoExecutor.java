@@ -0,0 +1,285 @@
+package com.coinok.sdk.crypto;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 执行加解密计算的专用线程池，线程数和队列长度都有上限。
+ * <p>
+ * 队列已满时任务不会阻塞调用方，而是直接以RejectedExecutionException结束返回的CompletableFuture。
+ * 任务被取消或超时后会中断执行它的线程，{@link SCryptEngine}检查到中断后停止计算；还在排队的任务则直接跳过。
+ * 通过{@link #getQueueDepth()}、{@link #getAverageWaitNanos()}等方法可以判断是否需要拒绝新的请求。
+ * <p>
+ * 注意：执行过scrypt的线程会一直持有约{@link Bip38#SCRYPT_MEMORY}字节的工作数组。
+ *
+ * @author Jingyu Yang
+ */
+public class CryptoExecutor {
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    /**
+     * 默认的队列长度。
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "crypto-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    private static volatile CryptoExecutor defaultExecutor;
+
+    private final ThreadPoolExecutor pool;
+
+    private final int queueCapacity;
+
+    private final LongAdder waitCount = new LongAdder();
+
+    private final LongAdder waitNanos = new LongAdder();
+
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * 所有线程共用的默认线程池，线程数等于CPU数，队列长度为{@link #DEFAULT_QUEUE_CAPACITY}。
+     *
+     * @return
+     */
+    public static CryptoExecutor getDefault() {
+        if (defaultExecutor == null) {
+            synchronized (CryptoExecutor.class) {
+                if (defaultExecutor == null) {
+                    defaultExecutor = new CryptoExecutor(Runtime.getRuntime().availableProcessors(),
+                            DEFAULT_QUEUE_CAPACITY);
+                }
+            }
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * @param threads：       线程数
+     * @param queueCapacity： 最多排队的任务数
+     */
+    public CryptoExecutor(int threads, int queueCapacity) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("线程数必须大于0！");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("队列长度必须大于0！");
+        }
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "crypto-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.queueCapacity = queueCapacity;
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory);
+    }
+
+    /**
+     * 提交一个任务，不限制执行时间。
+     *
+     * @param callable
+     * @param <T>
+     * @return
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> callable) {
+        return submit(callable, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提交一个任务。超过timeout（从提交时开始计算，包括排队时间）仍未完成时，返回的CompletableFuture以TimeoutException结束。
+     *
+     * @param callable
+     * @param timeout： 小于等于0表示不限制
+     * @param unit
+     * @param <T>
+     * @return
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> callable, long timeout, TimeUnit unit) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Job<T> job = new Job<>(callable, future);
+        try {
+            pool.execute(job);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        ScheduledFuture<?> timer = null;
+        if (timeout > 0) {
+            timer = TIMER.schedule(() -> {
+                if (future.completeExceptionally(new TimeoutException("加解密任务超时！"))) {
+                    timeouts.increment();
+                }
+            }, timeout, unit);
+        }
+        ScheduledFuture<?> scheduled = timer;
+        future.whenComplete((result, throwable) -> {
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            if (throwable != null) {
+                job.interruptRunner();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 正在排队的任务数。
+     *
+     * @return
+     */
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * 正在执行的任务数。
+     *
+     * @return
+     */
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    public int getThreads() {
+        return pool.getMaximumPoolSize();
+    }
+
+    /**
+     * 任务从提交到开始执行的平均等待时间（纳秒）。
+     *
+     * @return
+     */
+    public long getAverageWaitNanos() {
+        long count = waitCount.sum();
+        return count == 0 ? 0 : waitNanos.sum() / count;
+    }
+
+    /**
+     * 任务从提交到开始执行的最长等待时间（纳秒）。
+     *
+     * @return
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /**
+     * 因队列已满被拒绝的任务数。
+     *
+     * @return
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 超时的任务数。
+     *
+     * @return
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    public long getCompletedCount() {
+        return pool.getCompletedTaskCount();
+    }
+
+    /**
+     * 不再接受新任务，已提交的任务会继续执行。
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private void recordWait(long nanos) {
+        waitCount.increment();
+        waitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * 一个任务。执行期间记录所在线程，任务被取消或超时后中断该线程；执行结束后清除中断状态，避免影响线程领取的下一个任务。
+     */
+    private final class Job<T> implements Runnable {
+
+        private final Callable<T> callable;
+
+        private final CompletableFuture<T> future;
+
+        private final long submitTime = System.nanoTime();
+
+        private Thread runner;
+
+        private Job(Callable<T> callable, CompletableFuture<T> future) {
+            this.callable = callable;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            recordWait(System.nanoTime() - submitTime);
+            synchronized (this) {
+                if (future.isDone()) {
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+
+            T result;
+            try {
+                result = callable.call();
+            } catch (Throwable e) {
+                finish();
+                future.completeExceptionally(e);
+                return;
+            }
+            finish();
+            future.complete(result);
+        }
+
+        private void finish() {
+            synchronized (this) {
+                runner = null;
+            }
+            Thread.interrupted();
+        }
+
+        private synchronized void interruptRunner() {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
+}
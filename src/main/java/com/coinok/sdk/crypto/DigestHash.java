@@ -1,6 +1,8 @@
 package com.coinok.sdk.crypto;
 
 
+import com.coinok.sdk.metrics.Metrics;
+import com.coinok.sdk.metrics.Operation;
 import org.bouncycastle.crypto.digests.RIPEMD160Digest;
 
 import java.security.MessageDigest;
@@ -20,10 +22,12 @@ public class DigestHash {
      * @return
      */
     public static byte[] hash160(byte[] input) {
+        long start = Metrics.start();
         RIPEMD160Digest digest = new RIPEMD160Digest();
         digest.update(input, 0, input.length);
         byte[] out = new byte[20];
         digest.doFinal(out, 0);
+        Metrics.record(Operation.DIGEST_HASH160, start);
         return out;
     }
 
@@ -34,9 +38,12 @@ public class DigestHash {
      * @return
      */
     public static byte[] sha256(byte[] input) {
+        long start = Metrics.start();
         try {
             MessageDigest md = MessageDigest.getInstance("SHA-256");
-            return md.digest(input);
+            byte[] out = md.digest(input);
+            Metrics.record(Operation.DIGEST_SHA, start);
+            return out;
         } catch (NoSuchAlgorithmException e) {
             System.out.println("SHA256加密过程出错。。。");
             e.printStackTrace();
@@ -51,9 +58,12 @@ public class DigestHash {
      * @return
      */
     public static byte[] sha256X2(byte[] input) {
+        long start = Metrics.start();
         try {
             MessageDigest md = MessageDigest.getInstance("SHA-256");
-            return md.digest(md.digest(input));
+            byte[] out = md.digest(md.digest(input));
+            Metrics.record(Operation.DIGEST_SHA, start);
+            return out;
         } catch (NoSuchAlgorithmException e) {
             System.out.println("SHA256加密过程出错。。。");
             e.printStackTrace();
@@ -68,9 +78,12 @@ public class DigestHash {
      * @return
      */
     public static byte[] sha512(byte[] input) {
+        long start = Metrics.start();
         try {
             MessageDigest md = MessageDigest.getInstance("SHA-512");
-            return md.digest(input);
+            byte[] out = md.digest(input);
+            Metrics.record(Operation.DIGEST_SHA, start);
+            return out;
         } catch (NoSuchAlgorithmException e) {
             System.out.println("SHA512加密过程出错。。。");
             e.printStackTrace();
@@ -0,0 +1,415 @@
+package com.coinok.sdk.crypto;
+
+import com.coinok.sdk.metrics.FlightEvents;
+import com.coinok.sdk.metrics.Metrics;
+import com.coinok.sdk.metrics.Operation;
+import org.bouncycastle.crypto.PBEParametersGenerator;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.generators.PKCS5S2ParametersGenerator;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * scrypt的实现： https://tools.ietf.org/html/rfc7914
+ * <p>
+ * 与BouncyCastle的SCrypt结果相同，区别在于：
+ * <ul>
+ * <li>V、X、Y等工作数组按线程缓存重复使用，批量计算时不会每次分配16MB的数组；</li>
+ * <li>p个lane之间互不依赖，可以选择并行计算以降低单次调用的延迟。</li>
+ * </ul>
+ * 每次计算结束后工作数组都会清零，不保留与密码相关的中间状态；调用线程最多保留{@link #MAX_RETAINED_BYTES}字节，
+ * 更大的工作数组用完即释放。
+ * <p>
+ * 并行计算时，调用线程和SDK自己的lane线程池（线程数见{@link #LANE_THREADS_PROPERTY}）一起领取lane，
+ * 每个同时计算的lane各需要一个V数组：一次调用最多同时使用min(p, 线程池线程数 + 1)个，
+ * 所有调用的lane线程合计不超过线程池的线程数。lane线程在一次调用结束后释放V数组，空闲一段时间后退出。
+ * <p>
+ * 计算过程中会定期检查线程的中断状态，被中断时抛出CancellationException（中断状态保留）；
+ * 并行计算时调用线程被中断，线程池中属于这次调用的lane也会停止。
+ *
+ * @author Jingyu Yang
+ */
+public class SCryptEngine {
+
+    /**
+     * 每计算多少次BlockMix检查一次中断状态。
+     */
+    private static final int CANCEL_CHECK_MASK = 0XFF;
+
+    /**
+     * 每个线程保留的V数组的最大字节数，正好容纳BIP38使用的N = 16384、r = 8。
+     */
+    static final int MAX_RETAINED_BYTES = 16 * 1024 * 1024;
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * lane线程池线程数的系统属性，默认为CPU数 - 1。为0时总是在调用线程中依次计算所有lane。
+     */
+    public static final String LANE_THREADS_PROPERTY = "com.coinok.sdk.scrypt.laneThreads";
+
+    private static final int LANE_THREADS = Math.max(0,
+            Integer.getInteger(LANE_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors() - 1));
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private static final ThreadPoolExecutor LANE_POOL;
+
+    static {
+        if (LANE_THREADS > 0) {
+            LANE_POOL = new ThreadPoolExecutor(LANE_THREADS, LANE_THREADS, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "scrypt-lane-" + THREAD_NUMBER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            LANE_POOL.allowCoreThreadTimeOut(true);
+        } else {
+            LANE_POOL = null;
+        }
+    }
+
+    /**
+     * 计算scrypt，p个lane并行计算。
+     *
+     * @param passphrase
+     * @param salt
+     * @param n：        CPU/内存开销参数，必须是2的幂
+     * @param r：        块大小参数
+     * @param p：        并行参数
+     * @param dkLen：    输出长度
+     * @return
+     */
+    public static byte[] generate(byte[] passphrase, byte[] salt, int n, int r, int p, int dkLen) {
+        return generate(passphrase, salt, n, r, p, dkLen, true);
+    }
+
+    /**
+     * 计算scrypt。
+     *
+     * @param passphrase
+     * @param salt
+     * @param n：             CPU/内存开销参数，必须是2的幂
+     * @param r：             块大小参数
+     * @param p：             并行参数
+     * @param dkLen：         输出长度
+     * @param parallelLanes： 是否并行计算p个lane，见类说明。批量计算时各线程已经占满CPU，应使用false
+     * @return
+     */
+    public static byte[] generate(byte[] passphrase, byte[] salt, int n, int r, int p, int dkLen,
+                                  boolean parallelLanes) {
+        if (passphrase == null || salt == null) {
+            throw new IllegalArgumentException("密码和盐都不能为空！");
+        }
+        if (n <= 1 || (n & (n - 1)) != 0) {
+            throw new IllegalArgumentException("N必须是大于1的2的幂！");
+        }
+        if (r <= 0 || p <= 0 || dkLen <= 0) {
+            throw new IllegalArgumentException("r、p和输出长度都必须大于0！");
+        }
+
+        long start = Metrics.start();
+        Object event = FlightEvents.begin(Operation.SCRYPT);
+        int laneBytes = 128 * r;
+        byte[] b = pbkdf2(passphrase, salt, p * laneBytes);
+
+        int laneInts = laneBytes / 4;
+        int[] lanes = new int[b.length / 4];
+        littleEndianToInt(b, lanes);
+
+        try {
+            if (parallelLanes && p > 1 && LANE_POOL != null) {
+                parallelSmix(lanes, laneInts, n, r, p);
+            } else {
+                for (int i = 0; i < p; i++) {
+                    smix(lanes, i * laneInts, n, r, null);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            Arrays.fill(lanes, 0);
+            Arrays.fill(b, (byte) 0);
+            throw e;
+        }
+
+        intToLittleEndian(lanes, b);
+        byte[] key = pbkdf2(passphrase, b, dkLen);
+        Arrays.fill(lanes, 0);
+        Arrays.fill(b, (byte) 0);
+        FlightEvents.end(event, Operation.SCRYPT, (long) laneBytes * n * p);
+        Metrics.record(Operation.SCRYPT, start);
+        return key;
+    }
+
+    private static byte[] pbkdf2(byte[] passphrase, byte[] salt, int length) {
+        PBEParametersGenerator generator = new PKCS5S2ParametersGenerator(new SHA256Digest());
+        generator.init(passphrase, salt, 1);
+        return ((KeyParameter) generator.generateDerivedMacParameters(length * 8)).getKey();
+    }
+
+    /**
+     * 调用线程和线程池中的min(p - 1, LANE_THREADS)个任务一起领取lane，直到所有lane都被领取；
+     * 再等待其它线程领取的lane结束。任何一个lane失败或者调用线程被中断时，其余lane尽快停止。
+     */
+    private static void parallelSmix(int[] lanes, int laneInts, int n, int r, int p) {
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean aborted = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(p);
+        Runnable helper = () -> {
+            try {
+                runLanes(lanes, laneInts, n, r, p, next, aborted, failure, finished);
+            } finally {
+                // lane线程在这次调用中可以重复使用V数组，结束后不再保留
+                BUFFERS.get().discard();
+            }
+        };
+        for (int i = Math.min(p - 1, LANE_THREADS); i > 0; i--) {
+            LANE_POOL.execute(helper);
+        }
+        runLanes(lanes, laneInts, n, r, p, next, aborted, failure, finished);
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                finished.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+                aborted.set(true);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable e = failure.get();
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        if (e != null) {
+            throw (RuntimeException) e;
+        }
+    }
+
+    private static void runLanes(int[] lanes, int laneInts, int n, int r, int p, AtomicInteger next,
+                                 AtomicBoolean aborted, AtomicReference<Throwable> failure, CountDownLatch finished) {
+        int i;
+        while ((i = next.getAndIncrement()) < p) {
+            try {
+                if (!aborted.get()) {
+                    smix(lanes, i * laneInts, n, r, aborted);
+                }
+            } catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+                aborted.set(true);
+            } finally {
+                finished.countDown();
+            }
+        }
+    }
+
+    /**
+     * ROMix，结果写回b的[offset, offset + 32 * r)。
+     *
+     * @param aborted： 并行计算时其它lane失败的标志，可以为null
+     */
+    private static void smix(int[] b, int offset, int n, int r, AtomicBoolean aborted) {
+        int blockInts = 32 * r;
+        Buffers buffers = BUFFERS.get();
+        buffers.ensure(n, blockInts);
+        int[] v = buffers.v;
+        int[] x = buffers.x;
+        int[] y = buffers.y;
+
+        try {
+            System.arraycopy(b, offset, x, 0, blockInts);
+            for (int i = 0, vOff = 0; i < n; i++, vOff += blockInts) {
+                checkCancelled(i, aborted);
+                System.arraycopy(x, 0, v, vOff, blockInts);
+                blockMix(x, y, buffers.x1, r);
+                int[] t = x;
+                x = y;
+                y = t;
+            }
+
+            int mask = n - 1;
+            for (int i = 0; i < n; i++) {
+                checkCancelled(i, aborted);
+                int vOff = (x[blockInts - 16] & mask) * blockInts;
+                for (int k = 0; k < blockInts; k++) {
+                    x[k] ^= v[vOff + k];
+                }
+                blockMix(x, y, buffers.x1, r);
+                int[] t = x;
+                x = y;
+                y = t;
+            }
+            System.arraycopy(x, 0, b, offset, blockInts);
+        } finally {
+            buffers.release(n * blockInts);
+        }
+    }
+
+    private static void checkCancelled(int i, AtomicBoolean aborted) {
+        if ((i & CANCEL_CHECK_MASK) == 0
+                && (Thread.currentThread().isInterrupted() || aborted != null && aborted.get())) {
+            throw new CancellationException("scrypt计算被取消！");
+        }
+    }
+
+    /**
+     * BlockMix，偶数块写入y的前半部分，奇数块写入后半部分。
+     */
+    private static void blockMix(int[] b, int[] y, int[] x, int r) {
+        int blockInts = 32 * r;
+        System.arraycopy(b, blockInts - 16, x, 0, 16);
+        int half = blockInts >>> 1;
+        for (int i = 0, bOff = 0; i < 2 * r; i++, bOff += 16) {
+            for (int k = 0; k < 16; k++) {
+                x[k] ^= b[bOff + k];
+            }
+            salsa208(x);
+            int yOff = (i & 1) == 0 ? (i >>> 1) * 16 : half + (i >>> 1) * 16;
+            System.arraycopy(x, 0, y, yOff, 16);
+        }
+    }
+
+    /**
+     * Salsa20/8核心函数，原地修改x。
+     */
+    private static void salsa208(int[] x) {
+        int x00 = x[0], x01 = x[1], x02 = x[2], x03 = x[3];
+        int x04 = x[4], x05 = x[5], x06 = x[6], x07 = x[7];
+        int x08 = x[8], x09 = x[9], x10 = x[10], x11 = x[11];
+        int x12 = x[12], x13 = x[13], x14 = x[14], x15 = x[15];
+
+        for (int i = 8; i > 0; i -= 2) {
+            x04 ^= Integer.rotateLeft(x00 + x12, 7);
+            x08 ^= Integer.rotateLeft(x04 + x00, 9);
+            x12 ^= Integer.rotateLeft(x08 + x04, 13);
+            x00 ^= Integer.rotateLeft(x12 + x08, 18);
+            x09 ^= Integer.rotateLeft(x05 + x01, 7);
+            x13 ^= Integer.rotateLeft(x09 + x05, 9);
+            x01 ^= Integer.rotateLeft(x13 + x09, 13);
+            x05 ^= Integer.rotateLeft(x01 + x13, 18);
+            x14 ^= Integer.rotateLeft(x10 + x06, 7);
+            x02 ^= Integer.rotateLeft(x14 + x10, 9);
+            x06 ^= Integer.rotateLeft(x02 + x14, 13);
+            x10 ^= Integer.rotateLeft(x06 + x02, 18);
+            x03 ^= Integer.rotateLeft(x15 + x11, 7);
+            x07 ^= Integer.rotateLeft(x03 + x15, 9);
+            x11 ^= Integer.rotateLeft(x07 + x03, 13);
+            x15 ^= Integer.rotateLeft(x11 + x07, 18);
+
+            x01 ^= Integer.rotateLeft(x00 + x03, 7);
+            x02 ^= Integer.rotateLeft(x01 + x00, 9);
+            x03 ^= Integer.rotateLeft(x02 + x01, 13);
+            x00 ^= Integer.rotateLeft(x03 + x02, 18);
+            x06 ^= Integer.rotateLeft(x05 + x04, 7);
+            x07 ^= Integer.rotateLeft(x06 + x05, 9);
+            x04 ^= Integer.rotateLeft(x07 + x06, 13);
+            x05 ^= Integer.rotateLeft(x04 + x07, 18);
+            x11 ^= Integer.rotateLeft(x10 + x09, 7);
+            x08 ^= Integer.rotateLeft(x11 + x10, 9);
+            x09 ^= Integer.rotateLeft(x08 + x11, 13);
+            x10 ^= Integer.rotateLeft(x09 + x08, 18);
+            x12 ^= Integer.rotateLeft(x15 + x14, 7);
+            x13 ^= Integer.rotateLeft(x12 + x15, 9);
+            x14 ^= Integer.rotateLeft(x13 + x12, 13);
+            x15 ^= Integer.rotateLeft(x14 + x13, 18);
+        }
+
+        x[0] += x00;
+        x[1] += x01;
+        x[2] += x02;
+        x[3] += x03;
+        x[4] += x04;
+        x[5] += x05;
+        x[6] += x06;
+        x[7] += x07;
+        x[8] += x08;
+        x[9] += x09;
+        x[10] += x10;
+        x[11] += x11;
+        x[12] += x12;
+        x[13] += x13;
+        x[14] += x14;
+        x[15] += x15;
+    }
+
+    private static void littleEndianToInt(byte[] bytes, int[] ints) {
+        for (int i = 0, j = 0; i < ints.length; i++, j += 4) {
+            ints[i] = (bytes[j] & 0XFF) | (bytes[j + 1] & 0XFF) << 8 | (bytes[j + 2] & 0XFF) << 16
+                    | (bytes[j + 3] & 0XFF) << 24;
+        }
+    }
+
+    private static void intToLittleEndian(int[] ints, byte[] bytes) {
+        for (int i = 0, j = 0; i < ints.length; i++, j += 4) {
+            int value = ints[i];
+            bytes[j] = (byte) value;
+            bytes[j + 1] = (byte) (value >>> 8);
+            bytes[j + 2] = (byte) (value >>> 16);
+            bytes[j + 3] = (byte) (value >>> 24);
+        }
+    }
+
+    /**
+     * 每个线程的工作数组，容量不足时才重新分配，超过MAX_RETAINED_BYTES的用完即释放；
+     * lane线程池中的V数组在一次调用结束后释放。
+     */
+    private static final class Buffers {
+
+        private int[] v = new int[0];
+
+        private int[] x = new int[0];
+
+        private int[] y = new int[0];
+
+        private final int[] x1 = new int[16];
+
+        private void ensure(int n, int blockInts) {
+            long vSize = (long) n * blockInts;
+            if (vSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("N * r过大！");
+            }
+            if (v.length < vSize) {
+                v = new int[(int) vSize];
+            }
+            if (x.length != blockInts) {
+                x = new int[blockInts];
+                y = new int[blockInts];
+            }
+        }
+
+        /**
+         * 清零本次使用的部分，V超过MAX_RETAINED_BYTES时不再保留。
+         *
+         * @param used： 本次使用的V的长度
+         */
+        private void release(int used) {
+            Arrays.fill(v, 0, used, 0);
+            Arrays.fill(x, 0);
+            Arrays.fill(y, 0);
+            Arrays.fill(x1, 0);
+            if ((long) v.length * 4 > MAX_RETAINED_BYTES) {
+                v = new int[0];
+            }
+        }
+
+        /**
+         * 释放V数组，已经在release中清零。
+         */
+        private void discard() {
+            v = new int[0];
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package com.coinok.sdk.crypto;
+
+import com.coinok.sdk.bip.Bip32Node;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 加密的钱包文件，按序号随机读取单条WIF或Bip32Node记录。
+ * <p>
+ * 每条记录单独使用“AES/GCM/NoPadding”加密，记录序号参与认证，防止记录被调换。
+ * 文件只追加写入，每次关闭Writer时在文件末尾写入新的索引和尾部，读取时通过内存映射定位记录，
+ * 读取任意一条记录只需要一次解密。最后一个完整的尾部之后的数据视为没有提交，追加写入中断时文件仍然可以打开。
+ * <p>
+ * 格式：
+ * <pre>
+ * 头部：  magic（4位） + version（1位） + N、r、p（各4位） + salt（16位） + 密码校验（28位）
+ * 记录：  length（4位） + type（1位） + iv（12位） + 密文 + 认证标签（16位）
+ * 索引：  count（4位） + 每条记录的偏移（各8位）
+ * 尾部：  索引偏移（8位） + count（4位） + magic（4位）
+ * </pre>
+ *
+ * @author Jingyu Yang
+ */
+public class WalletContainer {
+
+    /**
+     * WIF格式的私钥。
+     */
+    public static final byte TYPE_WIF = 1;
+
+    /**
+     * 序列化后的Bip32Node。
+     */
+    public static final byte TYPE_BIP32 = 2;
+
+    private static final byte[] MAGIC = {'O', 'K', 'W', 'C'};
+
+    private static final byte[] FOOTER_MAGIC = {'O', 'K', 'W', 'I'};
+
+    private static final byte VERSION = 1;
+
+    private static final int SALT_SIZE = 16;
+
+    private static final int N = 16384, R = 8, P = 1;
+
+    private static final int TAG_SIZE = AES.GCM_TAG_LENGTH / 8;
+
+    private static final int CHECK_SIZE = AES.GCM_IV_SIZE + TAG_SIZE;
+
+    private static final int HEADER_SIZE = 4 + 1 + 12 + SALT_SIZE + CHECK_SIZE;
+
+    private static final int FOOTER_SIZE = 8 + 4 + 4;
+
+    /**
+     * 向前查找尾部时每次读取的长度。
+     */
+    private static final int SCAN_SIZE = 64 * 1024;
+
+    /**
+     * 单条记录（不含length）的最大长度。
+     */
+    private static final int MAX_RECORD_SIZE = 4096;
+
+    /**
+     * 每段内存映射的大小。相邻映射段重叠MAX_RECORD_SIZE + 4，保证任意记录都完整落在某一段内。
+     */
+    private static final long MAP_SEGMENT_SIZE = 1L << 30;
+
+    /**
+     * 密码校验数据的附加认证数据。
+     */
+    private static final byte[] CHECK_AAD = "password-check".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 创建一个新的钱包文件，文件已存在时会被覆盖。
+     *
+     * @param path
+     * @param password
+     * @return
+     * @throws Exception
+     */
+    public static Writer create(Path path, String password) throws Exception {
+        byte[] salt = new byte[SALT_SIZE];
+        BatchKeyStore.SEED_RANDOM.nextBytes(salt);
+        SecretKeySpec key = BatchKeyStore.deriveKey(password, salt, N, R, P);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC).put(VERSION).putInt(N).putInt(R).putInt(P).put(salt);
+        header.put(encrypt(key, new byte[0], CHECK_AAD));
+        header.flip();
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+        writeFully(channel, header, 0);
+        return new Writer(channel, key, new long[1024], 0, HEADER_SIZE);
+    }
+
+    /**
+     * 打开一个已有的钱包文件继续追加记录。
+     *
+     * @param path
+     * @param password
+     * @return
+     * @throws Exception 密码错误时抛出IllegalArgumentException
+     */
+    public static Writer append(Path path, String password) throws Exception {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        try {
+            long size = committedSize(channel);
+            SecretKeySpec key = readKey(channel, password);
+            // 丢弃上一次中断的追加写入中没有提交的数据
+            if (size < channel.size()) {
+                channel.truncate(size);
+            }
+
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+            readFully(channel, footer, size - FOOTER_SIZE);
+            long indexOffset = footer.getLong(0);
+            int count = footer.getInt(8);
+
+            ByteBuffer index = ByteBuffer.allocate(8 * count);
+            readFully(channel, index, indexOffset + 4);
+            long[] offsets = new long[Math.max(1024, count * 2)];
+            index.asLongBuffer().get(offsets, 0, count);
+
+            // 新记录写在旧的尾部之后，关闭时才写入新的索引和尾部。关闭前中断时，
+            // 打开文件会向前找到旧的尾部，之后的数据被忽略。
+            return new Writer(channel, key, offsets, count, size);
+        } catch (Exception e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 以只读方式打开钱包文件。
+     *
+     * @param path
+     * @param password
+     * @return
+     * @throws Exception 密码错误时抛出IllegalArgumentException
+     */
+    public static Reader open(Path path, String password) throws Exception {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = committedSize(channel);
+            SecretKeySpec key = readKey(channel, password);
+
+            int segments = (int) ((size + MAP_SEGMENT_SIZE - 1) / MAP_SEGMENT_SIZE);
+            MappedByteBuffer[] buffers = new MappedByteBuffer[segments];
+            for (int i = 0; i < segments; i++) {
+                long start = i * MAP_SEGMENT_SIZE;
+                long length = Math.min(size - start, MAP_SEGMENT_SIZE + MAX_RECORD_SIZE + 4);
+                buffers[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            return new Reader(buffers, key, size);
+        }
+    }
+
+    /**
+     * 检查头部，返回已提交数据的长度，即最后一个完整尾部的结束位置。
+     */
+    private static long committedSize(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_SIZE + 4 + FOOTER_SIZE) {
+            throw new IllegalArgumentException("不是完整的钱包文件！");
+        }
+        ByteBuffer magic = ByteBuffer.allocate(MAGIC.length + 1);
+        readFully(channel, magic, 0);
+        if (!Arrays.equals(Arrays.copyOf(magic.array(), MAGIC.length), MAGIC) || magic.get(MAGIC.length) != VERSION) {
+            throw new IllegalArgumentException("不是支持的钱包文件！");
+        }
+        long size = findFooterEnd(channel);
+        if (size < 0) {
+            throw new IllegalArgumentException("钱包文件没有正确关闭，缺少索引！");
+        }
+        return size;
+    }
+
+    /**
+     * 从文件末尾向前查找最后一个完整的尾部。正常关闭的文件只需检查最后16位。
+     *
+     * @param channel
+     * @return 尾部的结束位置，找不到时返回-1
+     * @throws IOException
+     */
+    private static long findFooterEnd(FileChannel channel) throws IOException {
+        long min = HEADER_SIZE + 4 + FOOTER_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+        long end = channel.size();
+        while (end >= min) {
+            long start = Math.max(min - FOOTER_MAGIC.length, end - SCAN_SIZE);
+            buffer.clear();
+            buffer.limit((int) (end - start));
+            readFully(channel, buffer, start);
+            for (int i = buffer.limit() - FOOTER_MAGIC.length; i >= 0; i--) {
+                if (buffer.get(i) == FOOTER_MAGIC[0] && buffer.get(i + 1) == FOOTER_MAGIC[1]
+                        && buffer.get(i + 2) == FOOTER_MAGIC[2] && buffer.get(i + 3) == FOOTER_MAGIC[3]
+                        && isFooter(channel, start + i + FOOTER_MAGIC.length)) {
+                    return start + i + FOOTER_MAGIC.length;
+                }
+            }
+            // 相邻两次读取重叠3位，magic跨越边界时也能找到
+            end = start + FOOTER_MAGIC.length - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * end之前的16位是否为尾部：索引紧挨着尾部，并且索引和尾部中的记录数相同。
+     */
+    private static boolean isFooter(FileChannel channel, long end) throws IOException {
+        long footerOffset = end - FOOTER_SIZE;
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+        readFully(channel, footer, footerOffset);
+        long indexOffset = footer.getLong(0);
+        int count = footer.getInt(8);
+        if (count < 0 || indexOffset < HEADER_SIZE || indexOffset + 4 + 8L * count != footerOffset) {
+            return false;
+        }
+        ByteBuffer index = ByteBuffer.allocate(4);
+        readFully(channel, index, indexOffset);
+        return index.getInt(0) == count;
+    }
+
+    /**
+     * 读取头部并校验密码，返回派生出的密钥。scrypt参数超出范围时抛出IllegalArgumentException，不派生密钥。
+     */
+    private static SecretKeySpec readKey(FileChannel channel, String password) throws Exception {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(channel, header, 0);
+        header.position(MAGIC.length + 1);
+        int n = header.getInt();
+        int r = header.getInt();
+        int p = header.getInt();
+        byte[] salt = new byte[SALT_SIZE];
+        header.get(salt);
+        byte[] check = new byte[CHECK_SIZE];
+        header.get(check);
+
+        BatchKeyStore.checkParams(n, r, p);
+        SecretKeySpec key = BatchKeyStore.deriveKey(password, salt, n, r, p);
+        try {
+            Cipher cipher = BatchKeyStore.CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(AES.GCM_TAG_LENGTH, check, 0, AES.GCM_IV_SIZE));
+            cipher.updateAAD(CHECK_AAD);
+            cipher.doFinal(check, AES.GCM_IV_SIZE, TAG_SIZE);
+        } catch (AEADBadTagException e) {
+            throw new IllegalArgumentException("密码错误！");
+        }
+        return key;
+    }
+
+    private static byte[] encrypt(SecretKeySpec key, byte[] data, byte[] aad) throws Exception {
+        byte[] iv = new byte[AES.GCM_IV_SIZE];
+        BatchKeyStore.IV_RANDOM.get().nextBytes(iv);
+
+        Cipher cipher = BatchKeyStore.CIPHER.get();
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(AES.GCM_TAG_LENGTH, iv));
+        cipher.updateAAD(aad);
+        byte[] result = new byte[AES.GCM_IV_SIZE + cipher.getOutputSize(data.length)];
+        System.arraycopy(iv, 0, result, 0, AES.GCM_IV_SIZE);
+        cipher.doFinal(data, 0, data.length, result, AES.GCM_IV_SIZE);
+        return result;
+    }
+
+    /**
+     * 记录的附加认证数据：type（1位） + 序号（8位）。
+     */
+    private static byte[] recordAad(byte type, long index) {
+        byte[] aad = new byte[9];
+        aad[0] = type;
+        for (int i = 8; i > 0; i--) {
+            aad[i] = (byte) index;
+            index >>>= 8;
+        }
+        return aad;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("钱包文件长度错误！");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * 追加写入记录，关闭时写入索引。在关闭前新增的记录都不可见。非线程安全。
+     */
+    public static class Writer implements Closeable {
+
+        private final FileChannel channel;
+
+        private final SecretKeySpec key;
+
+        private long[] offsets;
+
+        private int count;
+
+        private long position;
+
+        private Writer(FileChannel channel, SecretKeySpec key, long[] offsets, int count, long position) {
+            this.channel = channel;
+            this.key = key;
+            this.offsets = offsets;
+            this.count = count;
+            this.position = position;
+        }
+
+        /**
+         * 添加一个WIF格式的私钥。
+         *
+         * @param wif
+         * @return 记录的序号
+         * @throws Exception
+         */
+        public int addWif(String wif) throws Exception {
+            return add(TYPE_WIF, wif.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * 添加一个Bip32Node，有私钥时保存私钥序列化数据，否则保存公钥序列化数据。
+         *
+         * @param node
+         * @param coinType：  币种：0：比特币；1：莱特币。
+         * @param isMainNet： true：正式网络；false：测试网络。
+         * @return 记录的序号
+         * @throws Exception
+         */
+        public int addNode(Bip32Node node, int coinType, boolean isMainNet) throws Exception {
+            String serialized = node.getEcKey().hasPrivKey() ? node.privSerialize(coinType, isMainNet)
+                    : node.pubSerialize(coinType, isMainNet);
+            return add(TYPE_BIP32, serialized.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private int add(byte type, byte[] data) throws Exception {
+            int index = count;
+            byte[] encrypted = encrypt(key, data, recordAad(type, index));
+            if (encrypted.length + 1 > MAX_RECORD_SIZE) {
+                throw new IllegalArgumentException("记录长度超过" + MAX_RECORD_SIZE + "！");
+            }
+
+            ByteBuffer record = ByteBuffer.allocate(4 + 1 + encrypted.length);
+            record.putInt(1 + encrypted.length).put(type).put(encrypted);
+            record.flip();
+            writeFully(channel, record, position);
+
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = position;
+            position += record.limit();
+            return index;
+        }
+
+        /**
+         * 写入索引和尾部并关闭文件。
+         *
+         * @throws IOException
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                // 记录先落盘，避免尾部已经写入而它指向的记录还没有写入
+                channel.force(false);
+                long indexOffset = position;
+                ByteBuffer index = ByteBuffer.allocate(4 + 8 * count + FOOTER_SIZE);
+                index.putInt(count);
+                index.asLongBuffer().put(offsets, 0, count);
+                index.position(4 + 8 * count);
+                index.putLong(indexOffset).putInt(count).put(FOOTER_MAGIC);
+                index.flip();
+                writeFully(channel, index, indexOffset);
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * 通过内存映射随机读取记录，可以在多个线程中同时使用。
+     */
+    public static class Reader implements Closeable {
+
+        private final MappedByteBuffer[] buffers;
+
+        private final SecretKeySpec key;
+
+        private final long indexOffset;
+
+        private final int count;
+
+        private Reader(MappedByteBuffer[] buffers, SecretKeySpec key, long size) {
+            this.buffers = buffers;
+            this.key = key;
+            this.indexOffset = getLong(size - FOOTER_SIZE);
+            this.count = getInt(size - FOOTER_SIZE + 8);
+        }
+
+        /**
+         * 记录总数。
+         *
+         * @return
+         */
+        public int size() {
+            return count;
+        }
+
+        /**
+         * 获取指定序号记录的类型。
+         *
+         * @param index
+         * @return TYPE_WIF或TYPE_BIP32
+         */
+        public byte getType(int index) {
+            return segment(offset(index) + 4).get(segmentOffset(offset(index) + 4));
+        }
+
+        /**
+         * 获取指定序号的WIF格式私钥。
+         *
+         * @param index
+         * @return
+         * @throws Exception
+         */
+        public String getWif(int index) throws Exception {
+            return new String(decrypt(index, TYPE_WIF), StandardCharsets.UTF_8);
+        }
+
+        /**
+         * 获取指定序号的Bip32Node。
+         *
+         * @param index
+         * @return
+         * @throws Exception
+         */
+        public Bip32Node getNode(int index) throws Exception {
+            return Bip32Node.decode(new String(decrypt(index, TYPE_BIP32), StandardCharsets.UTF_8));
+        }
+
+        private byte[] decrypt(int index, byte type) throws Exception {
+            long offset = offset(index);
+            int length = getInt(offset);
+            if (length < 1 + CHECK_SIZE || length > MAX_RECORD_SIZE) {
+                throw new IOException("记录长度错误：" + length);
+            }
+
+            ByteBuffer record = segment(offset).duplicate();
+            record.position(segmentOffset(offset) + 4);
+            record.limit(record.position() + length);
+            if (record.get() != type) {
+                throw new IllegalArgumentException("第" + index + "条记录的类型不匹配！");
+            }
+            byte[] iv = new byte[AES.GCM_IV_SIZE];
+            record.get(iv);
+
+            Cipher cipher = BatchKeyStore.CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(AES.GCM_TAG_LENGTH, iv));
+            cipher.updateAAD(recordAad(type, index));
+            ByteBuffer out = ByteBuffer.allocate(cipher.getOutputSize(record.remaining()));
+            cipher.doFinal(record, out);
+            return Arrays.copyOf(out.array(), out.position());
+        }
+
+        private long offset(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("记录序号超出范围：" + index);
+            }
+            return getLong(indexOffset + 4 + 8L * index);
+        }
+
+        private ByteBuffer segment(long position) {
+            return buffers[(int) (position / MAP_SEGMENT_SIZE)];
+        }
+
+        private int segmentOffset(long position) {
+            return (int) (position % MAP_SEGMENT_SIZE);
+        }
+
+        private long getLong(long position) {
+            return segment(position).getLong(segmentOffset(position));
+        }
+
+        private int getInt(long position) {
+            return segment(position).getInt(segmentOffset(position));
+        }
+
+        /**
+         * 释放映射的引用，映射的内存由GC回收。
+         */
+        @Override
+        public void close() {
+            Arrays.fill(buffers, null);
+        }
+    }
+}
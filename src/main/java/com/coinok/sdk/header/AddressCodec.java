@@ -0,0 +1,66 @@
+package com.coinok.sdk.header;
+
+/**
+ * 地址编码的SPI：hash与地址字符串的相互转换。
+ * <p>
+ * 实现类在META-INF/services/com.coinok.sdk.header.AddressCodec中声明，启动时由{@link AddressCodecs}
+ * 通过ServiceLoader加载一次。每个网络使用第一个{@link #supports(HeadInfo)}的实现，都不支持时使用
+ * {@link BitcoinAddressCodec}。实现类需要线程安全，数组接口不应分配内存。
+ *
+ * @author Jingyu Yang
+ */
+public interface AddressCodec {
+
+    /**
+     * 地址的最大长度。
+     */
+    int MAX_LENGTH = 90;
+
+    /**
+     * 是否处理该网络的地址。
+     *
+     * @param head
+     * @return
+     */
+    boolean supports(HeadInfo head);
+
+    /**
+     * 将hash编码为地址，写入调用方提供的数组。
+     *
+     * @param head
+     * @param type
+     * @param hash：      从offset开始的{@link AddressType#getHashLength()}个字节
+     * @param offset
+     * @param out：       剩余空间至少为{@link #MAX_LENGTH}
+     * @param outOffset
+     * @return 写入out的字符数
+     */
+    int encode(HeadInfo head, AddressType type, byte[] hash, int offset, char[] out, int outOffset);
+
+    /**
+     * 将地址解码为hash，写入调用方提供的数组。地址不合法或不属于该网络时抛出IllegalArgumentException。
+     *
+     * @param head
+     * @param address
+     * @param hashOut：   剩余空间至少为32
+     * @param outOffset
+     * @return 地址类型，hash的长度为{@link AddressType#getHashLength()}
+     */
+    AddressType decode(HeadInfo head, CharSequence address, byte[] hashOut, int outOffset);
+
+    /**
+     * 将hash编码为地址字符串。
+     *
+     * @param head
+     * @param type
+     * @param hash
+     * @return
+     */
+    default String encode(HeadInfo head, AddressType type, byte[] hash) {
+        if (hash == null || hash.length != type.getHashLength()) {
+            throw new IllegalArgumentException("hash长度与地址类型不符！");
+        }
+        char[] out = new char[MAX_LENGTH];
+        return new String(out, 0, encode(head, type, hash, 0, out, 0));
+    }
+}
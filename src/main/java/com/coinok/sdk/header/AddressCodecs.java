@@ -0,0 +1,71 @@
+package com.coinok.sdk.header;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * 网络与{@link AddressCodec}的对应关系。
+ * <p>
+ * 类加载时通过ServiceLoader查找一次实现，并为{@link HeadInfo#values()}中的每个网络选好实现，
+ * 之后的查找只需要一次数组读取。
+ *
+ * @author Jingyu Yang
+ */
+public final class AddressCodecs {
+
+    private static final List<AddressCodec> PROVIDERS;
+
+    private static final AddressCodec[] CODECS;
+
+    static {
+        List<AddressCodec> providers = new ArrayList<>();
+        for (AddressCodec codec : ServiceLoader.load(AddressCodec.class, AddressCodec.class.getClassLoader())) {
+            providers.add(codec);
+        }
+        providers.add(BitcoinAddressCodec.INSTANCE);
+        PROVIDERS = Collections.unmodifiableList(providers);
+
+        List<HeadInfo> heads = HeadInfo.values();
+        CODECS = new AddressCodec[heads.size()];
+        for (int i = 0; i < CODECS.length; i++) {
+            CODECS[i] = find(heads.get(i));
+        }
+    }
+
+    private AddressCodecs() {
+    }
+
+    /**
+     * 获取网络对应的实现。
+     *
+     * @param head
+     * @return
+     */
+    public static AddressCodec get(HeadInfo head) {
+        int index = head.index;
+        if (index >= 0 && index < CODECS.length && HeadInfo.values().get(index) == head) {
+            return CODECS[index];
+        }
+        return find(head);
+    }
+
+    /**
+     * 加载到的所有实现，最后一个是{@link BitcoinAddressCodec}。
+     *
+     * @return 不可修改的列表
+     */
+    public static List<AddressCodec> providers() {
+        return PROVIDERS;
+    }
+
+    private static AddressCodec find(HeadInfo head) {
+        for (AddressCodec codec : PROVIDERS) {
+            if (codec.supports(head)) {
+                return codec;
+            }
+        }
+        return BitcoinAddressCodec.INSTANCE;
+    }
+}
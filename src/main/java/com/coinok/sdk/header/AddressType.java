@@ -0,0 +1,44 @@
+package com.coinok.sdk.header;
+
+/**
+ * 地址类型，决定hash的长度和编码方式。
+ *
+ * @author Jingyu Yang
+ */
+public enum AddressType {
+
+    /**
+     * 公钥hash160的Base58地址。
+     */
+    P2PKH(20),
+
+    /**
+     * 脚本hash160的Base58地址，包括P2SH-P2WPKH。
+     */
+    P2SH(20),
+
+    /**
+     * witness版本0、公钥hash160的隔离见证地址。
+     */
+    P2WPKH(20),
+
+    /**
+     * witness版本0、脚本sha256的隔离见证地址。
+     */
+    P2WSH(32),
+
+    /**
+     * witness版本1、32字节输出公钥的Taproot地址。
+     */
+    P2TR(32);
+
+    private final int hashLength;
+
+    AddressType(int hashLength) {
+        this.hashLength = hashLength;
+    }
+
+    public int getHashLength() {
+        return hashLength;
+    }
+}
@@ -0,0 +1,258 @@
+package com.coinok.sdk.header;
+
+import com.coinok.sdk.metrics.FlightEvents;
+import com.coinok.sdk.metrics.Metrics;
+import com.coinok.sdk.metrics.Operation;
+import com.coinok.sdk.segwit.SegwitAddressUtil;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * 比特币形式的地址：P2PKH和P2SH使用Base58Check编码，隔离见证地址使用Bech32/Bech32m编码。
+ * <p>
+ * 首字节和hrp都从{@link HeadInfo}中读取，因此莱特币、狗狗币、BCH旧地址等也使用该实现。
+ * 每个线程重复使用同一组临时数组，编码和解码不分配内存。
+ *
+ * @author Jingyu Yang
+ */
+public class BitcoinAddressCodec implements AddressCodec {
+
+    public static final BitcoinAddressCodec INSTANCE = new BitcoinAddressCodec();
+
+    private static final char[] ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".toCharArray();
+
+    private static final byte[] INDEXES = new byte[128];
+
+    /**
+     * Base58Check地址解码后的长度：首字节 + hash160 + 4字节校验位。
+     */
+    private static final int RAW_LENGTH = 25;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    static {
+        Arrays.fill(INDEXES, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            INDEXES[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    @Override
+    public boolean supports(HeadInfo head) {
+        return true;
+    }
+
+    @Override
+    public int encode(HeadInfo head, AddressType type, byte[] hash, int offset, char[] out, int outOffset) {
+        switch (type) {
+            case P2PKH:
+                return encodeBase58Check(head.getAddressPrefix(), hash, offset, out, outOffset);
+            case P2SH:
+                return encodeBase58Check(head.getScriptPrefix(), hash, offset, out, outOffset);
+            default:
+                return SegwitAddressUtil.encode(segwitHrp(head), type == AddressType.P2TR ? 1 : 0, hash, offset,
+                        type.getHashLength(), out, outOffset);
+        }
+    }
+
+    @Override
+    public AddressType decode(HeadInfo head, CharSequence address, byte[] hashOut, int outOffset) {
+        if (address == null || address.length() == 0) {
+            throw new IllegalArgumentException("地址不能为空！");
+        }
+        long start = Metrics.start();
+        if (isSegwit(head, address)) {
+            AddressType type = decodeSegwit(address, hashOut, outOffset);
+            Metrics.record(Operation.ADDRESS_DECODE, start);
+            return type;
+        }
+
+        Scratch scratch = SCRATCH.get();
+        byte[] raw = scratch.raw;
+        try {
+            decodeBase58(address, raw);
+        } catch (IllegalArgumentException e) {
+            FlightEvents.base58Failure(Operation.ADDRESS_DECODE, address.length(), "character or length");
+            throw e;
+        }
+        sha256X2(scratch, raw, 21);
+        for (int i = 0; i < 4; i++) {
+            if (raw[21 + i] != scratch.digest[i]) {
+                FlightEvents.base58Failure(Operation.ADDRESS_DECODE, address.length(), "checksum");
+                throw new IllegalArgumentException("非法的地址，校验位错误！");
+            }
+        }
+
+        AddressType type;
+        if (raw[0] == head.getAddressPrefix()) {
+            type = AddressType.P2PKH;
+        } else if (raw[0] == head.getScriptPrefix()) {
+            type = AddressType.P2SH;
+        } else {
+            throw new IllegalArgumentException("地址首字节与网络不符！");
+        }
+        System.arraycopy(raw, 1, hashOut, outOffset, 20);
+        Metrics.record(Operation.ADDRESS_DECODE, start);
+        return type;
+    }
+
+    private static int encodeBase58Check(byte version, byte[] hash, int offset, char[] out, int outOffset) {
+        Scratch scratch = SCRATCH.get();
+        byte[] raw = scratch.raw;
+        raw[0] = version;
+        System.arraycopy(hash, offset, raw, 1, 20);
+        sha256X2(scratch, raw, 21);
+        System.arraycopy(scratch.digest, 0, raw, 21, 4);
+
+        // 逐位除以58，余数从低位写到chars末尾
+        int zeros = 0;
+        while (zeros < RAW_LENGTH && raw[zeros] == 0) {
+            zeros++;
+        }
+        char[] chars = scratch.chars;
+        int pos = chars.length;
+        for (int start = zeros; start < RAW_LENGTH; ) {
+            int remainder = 0;
+            for (int i = start; i < RAW_LENGTH; i++) {
+                int digit = (raw[i] & 0XFF) + remainder * 256;
+                raw[i] = (byte) (digit / 58);
+                remainder = digit % 58;
+            }
+            if (raw[start] == 0) {
+                start++;
+            }
+            chars[--pos] = ALPHABET[remainder];
+        }
+        while (pos < chars.length && chars[pos] == ALPHABET[0]) {
+            pos++;
+        }
+        for (int i = 0; i < zeros; i++) {
+            chars[--pos] = ALPHABET[0];
+        }
+        int length = chars.length - pos;
+        System.arraycopy(chars, pos, out, outOffset, length);
+        return length;
+    }
+
+    /**
+     * 解码为25个字节，长度不符时抛出异常。
+     */
+    private static void decodeBase58(CharSequence address, byte[] raw) {
+        Arrays.fill(raw, (byte) 0);
+        int zeros = 0;
+        while (zeros < address.length() && address.charAt(zeros) == ALPHABET[0]) {
+            zeros++;
+        }
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            int carry = c < 128 ? INDEXES[c] : -1;
+            if (carry < 0) {
+                throw new IllegalArgumentException("非法的Base58字符：" + c);
+            }
+            for (int j = RAW_LENGTH - 1; j >= 0; j--) {
+                carry += (raw[j] & 0XFF) * 58;
+                raw[j] = (byte) carry;
+                carry >>>= 8;
+            }
+            if (carry != 0) {
+                throw new IllegalArgumentException("地址长度错误！");
+            }
+        }
+        int leading = 0;
+        while (leading < RAW_LENGTH && raw[leading] == 0) {
+            leading++;
+        }
+        if (leading != zeros) {
+            throw new IllegalArgumentException("地址长度错误！");
+        }
+    }
+
+    private static AddressType decodeSegwit(CharSequence address, byte[] hashOut, int outOffset) {
+        byte[] program = SCRATCH.get().program;
+        int result;
+        try {
+            result = SegwitAddressUtil.decode(address, program, 0);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+
+        int witnessVersion = result >>> 8;
+        int length = result & 0XFF;
+        AddressType type;
+        if (witnessVersion == 0) {
+            type = length == 20 ? AddressType.P2WPKH : AddressType.P2WSH;
+        } else if (witnessVersion == 1 && length == 32) {
+            type = AddressType.P2TR;
+        } else {
+            throw new IllegalArgumentException("不支持的witness版本：" + witnessVersion);
+        }
+        System.arraycopy(program, 0, hashOut, outOffset, length);
+        return type;
+    }
+
+    /**
+     * 地址是否以“hrp1”开头，大小写均可。
+     */
+    private static boolean isSegwit(HeadInfo head, CharSequence address) {
+        String hrp = head.getSegwitHrp();
+        if (hrp == null || address.length() <= hrp.length() || address.charAt(hrp.length()) != '1') {
+            return false;
+        }
+        for (int i = 0; i < hrp.length(); i++) {
+            if (Character.toLowerCase(address.charAt(i)) != hrp.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String segwitHrp(HeadInfo head) {
+        String hrp = head.getSegwitHrp();
+        if (hrp == null) {
+            throw new IllegalArgumentException("该网络不支持隔离见证地址！");
+        }
+        return hrp;
+    }
+
+    /**
+     * sha256(sha256(data[0, length)))，结果写入scratch.digest。
+     */
+    private static void sha256X2(Scratch scratch, byte[] data, int length) {
+        MessageDigest sha256 = scratch.sha256;
+        try {
+            sha256.update(data, 0, length);
+            sha256.digest(scratch.digest, 0, 32);
+            sha256.update(scratch.digest, 0, 32);
+            sha256.digest(scratch.digest, 0, 32);
+        } catch (DigestException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 每个线程重复使用的临时数组。
+     */
+    private static final class Scratch {
+
+        private final byte[] raw = new byte[RAW_LENGTH];
+
+        private final byte[] digest = new byte[32];
+
+        private final byte[] program = new byte[40];
+
+        private final char[] chars = new char[2 * RAW_LENGTH];
+
+        private final MessageDigest sha256;
+
+        private Scratch() {
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
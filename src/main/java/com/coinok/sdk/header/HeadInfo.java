@@ -1,46 +1,163 @@
 package com.coinok.sdk.header;
 
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
 
 import org.bitcoinj.core.NetworkParameters;
 import org.bitcoinj.params.MainNetParams;
+import org.bitcoinj.params.RegTestParams;
 import org.bitcoinj.params.TestNet3Params;
 
 /**
  * 标识地址、私钥首字节信息。
+ * <p>
+ * 所有网络在类加载时创建一次，之后共享同一个实例。按首字节查找使用256项的表，只需要一次数组读取。
+ * 除内置的比特币、莱特币网络外，其他网络从配置文件加载：
+ * <ul>
+ * <li>classpath中的{@value #NETWORKS_RESOURCE}；</li>
+ * <li>系统属性{@value #NETWORKS_PROPERTY}指定的文件，用于启动时添加新的币种。</li>
+ * </ul>
+ * 配置格式见networks.properties。首字节已被占用时（如BCH的旧地址与比特币相同），按字节查找返回先注册的网络，
+ * 后注册的网络只能通过{@link #getInfo(String, String)}获取。
  *
  * @author Jingyu Yang
  */
 public class HeadInfo implements Serializable {
 
     private static final long serialVersionUID = -7020296768484580512L;
+
+    /**
+     * classpath中的网络配置。
+     */
+    public static final String NETWORKS_RESOURCE = "/com/coinok/sdk/header/networks.properties";
+
+    /**
+     * 指定额外网络配置文件路径的系统属性。
+     */
+    public static final String NETWORKS_PROPERTY = "com.coinok.sdk.networks";
+
+    private static final HeadInfo BTC_MAIN = new HeadInfo("Bitcoin", "Mainnet", (byte)(0X0), (byte)(0X80),
+            (byte)(0X05), "bc", new int[]{0x0488b21e, 0x0488ade4, 0x049d7cb2, 0x049d7878, 0x04b24746, 0x04b2430c},
+            MainNetParams.get());
+
+    private static final HeadInfo BTC_TEST = new HeadInfo("Bitcoin", "Testnet", (byte)(0X6f), (byte)(0X6f + 0X80),
+            (byte)(0Xc4), "tb", new int[]{0x043587cf, 0x04358394, 0x044a5262, 0x044a4e28, 0x045f1cf6, 0x045f18bc},
+            TestNet3Params.get());
+
+    private static final HeadInfo BTC_REGTEST = new HeadInfo("Bitcoin", "Regtest", (byte)(0X6f), (byte)(0X6f + 0X80),
+            (byte)(0Xc4), "bcrt", BTC_TEST.extendedKeyVersions, RegTestParams.get());
+
+    private static final HeadInfo LTC_MAIN = new HeadInfo("Litecoin", "Mainnet", (byte)(0X30), (byte)(0X30 + 0X80),
+            (byte)(0X32), "ltc", new int[]{0x019da462, 0x019d9cfe, 0x01b26ef6, 0x01b26792, 0x04b24746, 0x04b2430c},
+            LiteMainNetParam.get());
+
+    private static final List<HeadInfo> ALL;
+
+    private static final HeadInfo[] BY_BYTE = new HeadInfo[256];
+
+    static {
+        List<HeadInfo> all = new ArrayList<>();
+        all.add(BTC_MAIN);
+        all.add(BTC_TEST);
+        all.add(BTC_REGTEST);
+        all.add(LTC_MAIN);
+        try (InputStream in = HeadInfo.class.getResourceAsStream(NETWORKS_RESOURCE)) {
+            if (in != null) {
+                load(in, all);
+            }
+            String file = System.getProperty(NETWORKS_PROPERTY);
+            if (file != null) {
+                try (InputStream external = new FileInputStream(file)) {
+                    load(external, all);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("读取网络配置失败！", e);
+        }
+
+        for (HeadInfo info : all) {
+            for (byte prefix : new byte[]{info.addressPrefix, info.privatePrefix}) {
+                if (BY_BYTE[prefix & 0XFF] == null) {
+                    BY_BYTE[prefix & 0XFF] = info;
+                }
+            }
+        }
+        for (int i = 0; i < all.size(); i++) {
+            HeadInfo info = all.get(i);
+            info.index = i;
+            info.paramInfo = info.param == null || info.matches(info.param) ? info
+                    : fromParams(info.name, info.network, info.extendedKeyVersions, info.param);
+        }
+        ALL = Collections.unmodifiableList(all);
+    }
+
     /**
      * 网络名称。
      */
-    private String name;
+    private final String name;
 
     /**
      * 网络类型。
      */
-    private String network;
+    private final String network;
 
     /**
      * 地址首字节。
      */
-    private byte addressPrefix;
+    private final byte addressPrefix;
 
     /**
      * 私钥首字节。
      */
-    private byte privatePrefix;
+    private final byte privatePrefix;
+
+    /**
+     * P2SH地址首字节。
+     */
+    private final byte scriptPrefix;
 
-    private NetworkParameters param;
+    /**
+     * 隔离见证地址的hrp，不支持隔离见证时为null。
+     */
+    private final String segwitHrp;
+
+    /**
+     * SLIP-132扩展密钥版本：xpub、xprv、ypub、yprv、zpub、zprv，不支持的类型为0。
+     */
+    private final int[] extendedKeyVersions;
+
+    private final transient NetworkParameters param;
+
+    /**
+     * 在{@link #values()}中的位置，用于{@link AddressCodecs}查找。
+     */
+    transient int index = -1;
 
-    private HeadInfo(String name, String network, byte addressPrefix, byte privatePrefix, NetworkParameters param) {
+    /**
+     * {@link #getInfo(NetworkParameters)}对param返回的实例。param中的首字节或hrp与该网络不同时
+     * （如LiteMainNetParam的P2SH首字节为0X05），是按param生成的实例。
+     */
+    private transient HeadInfo paramInfo;
+
+    private HeadInfo(String name, String network, byte addressPrefix, byte privatePrefix, byte scriptPrefix,
+                     String segwitHrp, int[] extendedKeyVersions, NetworkParameters param) {
         this.name = name;
         this.network = network;
         this.addressPrefix = addressPrefix;
         this.privatePrefix = privatePrefix;
+        this.scriptPrefix = scriptPrefix;
+        this.segwitHrp = segwitHrp;
+        this.extendedKeyVersions = extendedKeyVersions;
         this.param = param;
     }
 
@@ -48,20 +165,60 @@ public class HeadInfo implements Serializable {
      * 根据地址或私钥的头字节，获取相关信息。
      *
      * @param version
-     * @return
+     * @return 未知的首字节返回null
      */
     public static HeadInfo getInfoByByte(byte version) {
-        if (version == (byte)(0X0) || version == (byte)(0X80)) {
-            return btcMain();
+        return BY_BYTE[version & 0XFF];
+    }
+
+    /**
+     * 根据bitcoinj的网络参数获取相关信息，地址首字节和hrp总是与参数中的相同。没有登记的网络参数
+     * 返回一个按参数临时生成的实例，名称为params.getId()，网络类型为空，不支持SLIP-132扩展密钥版本。
+     *
+     * @param params
+     * @return
+     */
+    public static HeadInfo getInfo(NetworkParameters params) {
+        if (params == null) {
+            throw new IllegalArgumentException("网络类型不能为空！");
         }
-        if (version == (byte)(0X6f) || version == (byte)(0X6f + 0X80)) {
-            return btcTest();
+        for (HeadInfo info : ALL) {
+            if (info.param == params) {
+                return info.paramInfo;
+            }
         }
+        return fromParams(params.getId(), "", new int[6], params);
+    }
 
-        if (version == (byte)(0X30) || version == (byte)(0X30 + 0X80)) {
-            return ltcMain();
-        }
-        return null;
+    private static HeadInfo fromParams(String name, String network, int[] extendedKeyVersions,
+                                       NetworkParameters params) {
+        return new HeadInfo(name, network, (byte) params.getAddressHeader(), (byte) params.getDumpedPrivateKeyHeader(),
+                (byte) params.getP2SHHeader(), params.getSegwitAddressHrp(), extendedKeyVersions, params);
+    }
+
+    private boolean matches(NetworkParameters params) {
+        return addressPrefix == (byte) params.getAddressHeader() && scriptPrefix == (byte) params.getP2SHHeader()
+                && Objects.equals(segwitHrp, params.getSegwitAddressHrp());
+    }
+
+    /**
+     * 根据网络名称和类型获取相关信息，大小写均可。
+     *
+     * @param name：    如Dogecoin
+     * @param network： 如Mainnet
+     * @return 未知的网络返回null
+     */
+    public static HeadInfo getInfo(String name, String network) {
+        return getInfo(ALL, name, network);
+    }
+
+    /**
+     * 所有已知的网络，按注册顺序排列。
+     *
+     * @return 不可修改的列表
+     */
+    public static List<HeadInfo> values() {
+        return ALL;
     }
 
     /**
@@ -70,7 +227,7 @@ public class HeadInfo implements Serializable {
      * @return
      */
     public static HeadInfo btcMain() {
-        return new HeadInfo("Bitcoin", "Mainnet", (byte)(0X0), (byte)(0X80), MainNetParams.get());
+        return BTC_MAIN;
     }
 
     /**
@@ -79,7 +236,16 @@ public class HeadInfo implements Serializable {
      * @return
      */
     public static HeadInfo btcTest() {
-        return new HeadInfo("Bitcoin", "Testnet", (byte)(0X6f), (byte)(0X6f + 0X80), TestNet3Params.get());
+        return BTC_TEST;
+    }
+
+    /**
+     * 获取比特币回归测试网络相关的参数。首字节与测试网络相同，只有隔离见证地址的hrp不同。
+     *
+     * @return
+     */
+    public static HeadInfo btcRegtest() {
+        return BTC_REGTEST;
     }
 
     /**
@@ -88,7 +254,72 @@ public class HeadInfo implements Serializable {
      * @return
      */
     public static HeadInfo ltcMain() {
-        return new HeadInfo("Litecoin", "Mainnet", (byte)(0X30), (byte)(0X30 + 0X80), LiteMainNetParam.get());
+        return LTC_MAIN;
+    }
+
+    /**
+     * 从配置中读取网络，列在networks中的每个网络使用“网络.属性”的形式配置。
+     */
+    private static void load(InputStream in, List<HeadInfo> all) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        String networks = properties.getProperty("networks", "").trim();
+        if (networks.isEmpty()) {
+            return;
+        }
+        for (String id : networks.split("\\s*,\\s*")) {
+            String name = required(properties, id, "name");
+            String network = required(properties, id, "network");
+            if (getInfo(all, name, network) != null) {
+                throw new IllegalArgumentException("网络配置重复：" + id);
+            }
+            String hrp = properties.getProperty(id + ".hrp", "").trim();
+            String[] versions = properties.getProperty(id + ".slip132", "").trim().split("\\s*,\\s*");
+            int[] extendedKeyVersions = new int[6];
+            for (int i = 0; i < Math.min(versions.length, 6) && !versions[0].isEmpty(); i++) {
+                extendedKeyVersions[i] = (int) parseLong(id + ".slip132", versions[i]);
+            }
+            all.add(new HeadInfo(name, network,
+                    (byte) parseLong(id + ".address", required(properties, id, "address")),
+                    (byte) parseLong(id + ".private", required(properties, id, "private")),
+                    (byte) parseLong(id + ".script", required(properties, id, "script")),
+                    hrp.isEmpty() ? null : hrp, extendedKeyVersions, null));
+        }
+    }
+
+    private static HeadInfo getInfo(List<HeadInfo> all, String name, String network) {
+        for (HeadInfo info : all) {
+            if (info.name.equalsIgnoreCase(name) && info.network.equalsIgnoreCase(network)) {
+                return info;
+            }
+        }
+        return null;
+    }
+
+    private static String required(Properties properties, String id, String key) {
+        String value = properties.getProperty(id + "." + key);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("网络配置缺少" + id + "." + key + "！");
+        }
+        return value.trim();
+    }
+
+    private static long parseLong(String key, String value) {
+        try {
+            return Long.decode(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("网络配置" + key + "不是数字：" + value);
+        }
+    }
+
+    /**
+     * 反序列化时使用共享的实例。
+     */
+    private Object readResolve() {
+        HeadInfo shared = getInfo(name, network);
+        return shared != null ? shared : this;
     }
 
     public String getName() {
@@ -107,6 +338,67 @@ public class HeadInfo implements Serializable {
         return privatePrefix;
     }
 
+    public byte getScriptPrefix() {
+        return scriptPrefix;
+    }
+
+    /**
+     * 该网络使用的地址编码实现。
+     *
+     * @return
+     */
+    public AddressCodec getAddressCodec() {
+        return AddressCodecs.get(this);
+    }
+
+    public String getSegwitHrp() {
+        return segwitHrp;
+    }
+
+    /**
+     * BIP44扩展公钥版本（SLIP-132），不支持时为0。
+     *
+     * @return
+     */
+    public int getXpubVersion() {
+        return extendedKeyVersions[0];
+    }
+
+    public int getXprvVersion() {
+        return extendedKeyVersions[1];
+    }
+
+    /**
+     * BIP49扩展公钥版本（SLIP-132），不支持时为0。
+     *
+     * @return
+     */
+    public int getYpubVersion() {
+        return extendedKeyVersions[2];
+    }
+
+    public int getYprvVersion() {
+        return extendedKeyVersions[3];
+    }
+
+    /**
+     * BIP84扩展公钥版本（SLIP-132），不支持时为0。
+     *
+     * @return
+     */
+    public int getZpubVersion() {
+        return extendedKeyVersions[4];
+    }
+
+    public int getZprvVersion() {
+        return extendedKeyVersions[5];
+    }
+
+    /**
+     * bitcoinj的网络参数，配置文件中添加的网络为null。
+     *
+     * @return
+     */
     public NetworkParameters getParam() {
         return param;
     }
@@ -0,0 +1,405 @@
+package com.coinok.sdk.header;
+
+import com.coinok.sdk.crypto.SCryptEngine;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * 校验本地的区块头文件：文件由连续的80字节原始区块头组成，通过内存映射读取。
+ * <ul>
+ * <li>第一遍按块并行检查前一区块hash和工作量证明：比特币使用SHA-256d，莱特币（{@link LiteMainNetParam}）
+ * 使用scrypt(1024, 1, 1)；</li>
+ * <li>第二遍顺序检查难度调整，规则与{@link LiteMainNetParam#checkDifficultyTransitions}相同。</li>
+ * </ul>
+ * 难度按主网规则检查，不支持测试网络的最低难度区块。
+ *
+ * @author Jingyu Yang
+ */
+public class HeaderFileVerifier {
+
+    /**
+     * 区块头的长度。
+     */
+    public static final int HEADER_SIZE = 80;
+
+    /**
+     * 每个并行任务处理的区块头数。
+     */
+    private static final int CHUNK_SIZE = 4096;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final NetworkParameters params;
+
+    private final boolean scrypt;
+
+    private final byte[] maxTarget;
+
+    /**
+     * @param params： 网络参数，{@link LiteMainNetParam}使用scrypt，其他使用SHA-256d
+     */
+    public HeaderFileVerifier(NetworkParameters params) {
+        this.params = params;
+        this.scrypt = params instanceof LiteMainNetParam;
+        this.maxTarget = toBytes(params.getMaxTarget());
+    }
+
+    /**
+     * 校验从创世区块开始的区块头文件。
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public Result verify(Path file) throws IOException {
+        return verify(file, 0, Sha256Hash.ZERO_HASH);
+    }
+
+    /**
+     * 校验区块头文件。
+     *
+     * @param file
+     * @param startHeight： 第一个区块头的高度
+     * @param prevHash：    第一个区块头的前一区块hash，为null时不检查
+     * @return
+     * @throws IOException
+     */
+    public Result verify(Path file, int startHeight, Sha256Hash prevHash) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % HEADER_SIZE != 0) {
+                throw new IllegalArgumentException("文件长度不是" + HEADER_SIZE + "的整数倍！");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("文件过大，不能超过2GB！");
+            }
+            int count = (int) (size / HEADER_SIZE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            byte[] first = prevHash == null ? null : prevHash.getReversedBytes();
+
+            AtomicReference<Failure> failure = new AtomicReference<>();
+            int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                int from = chunk * CHUNK_SIZE;
+                verifyChunk(buffer, from, Math.min(count, from + CHUNK_SIZE), first, failure);
+            });
+            int end = failure.get() == null ? count : failure.get().index;
+            verifyDifficulty(buffer, startHeight, end, failure);
+
+            byte[] tip = new byte[32];
+            Failure result = failure.get();
+            int verified = result == null ? count : result.index;
+            if (verified > 0) {
+                Scratch scratch = SCRATCH.get();
+                read(buffer.duplicate(), verified - 1, scratch.header);
+                sha256X2(scratch, scratch.header, tip);
+            }
+            return new Result(count, verified, result == null ? -1 : startHeight + result.index,
+                    result == null ? null : result.message, Sha256Hash.wrapReversed(tip), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 检查[from, to)的前一区块hash和工作量证明。
+     */
+    private void verifyChunk(ByteBuffer buffer, int from, int to, byte[] first, AtomicReference<Failure> failure) {
+        ByteBuffer view = buffer.duplicate();
+        Scratch scratch = SCRATCH.get();
+        byte[] header = scratch.header;
+        if (from > 0) {
+            read(view, from - 1, header);
+            sha256X2(scratch, header, scratch.prev);
+        }
+
+        long currentBits = -1;
+        for (int i = from; i < to; i++) {
+            Failure found = failure.get();
+            if (found != null && found.index <= i) {
+                return;
+            }
+
+            read(view, i, header);
+            byte[] expected = i == 0 ? first : scratch.prev;
+            if (expected != null && !equals(header, 4, expected)) {
+                fail(failure, i, "前一区块hash不匹配");
+                return;
+            }
+
+            long bits = readUint32(header, 72);
+            if (bits != currentBits) {
+                if (!decodeTarget(bits, scratch.target) || compare(scratch.target, maxTarget) > 0) {
+                    fail(failure, i, "难度超出范围：" + Long.toHexString(bits));
+                    return;
+                }
+                currentBits = bits;
+            }
+
+            sha256X2(scratch, header, scratch.prev);
+            byte[] pow = scrypt ? SCryptEngine.generate(header, header, 1024, 1, 1, 32, false) : scratch.prev;
+            if (compareReversed(pow, scratch.target) > 0) {
+                fail(failure, i, "工作量证明不满足难度");
+                return;
+            }
+        }
+    }
+
+    /**
+     * 顺序检查[0, end)的难度调整，需要的前一个周期的区块不在文件中时跳过。
+     */
+    private void verifyDifficulty(ByteBuffer buffer, int startHeight, int end, AtomicReference<Failure> failure) {
+        ByteBuffer view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int interval = params.getInterval();
+        for (int i = 1; i < end; i++) {
+            long prevBits = view.getInt((i - 1) * HEADER_SIZE + 72) & 0XFFFFFFFFL;
+            long bits = view.getInt(i * HEADER_SIZE + 72) & 0XFFFFFFFFL;
+            if ((startHeight + i) % interval != 0) {
+                if (bits != prevBits) {
+                    fail(failure, i, "非难度调整区块的难度发生变化");
+                    return;
+                }
+                continue;
+            }
+            if (i < interval) {
+                continue;
+            }
+            long prevTime = view.getInt((i - 1) * HEADER_SIZE + 68) & 0XFFFFFFFFL;
+            long intervalAgoTime = view.getInt((i - interval) * HEADER_SIZE + 68) & 0XFFFFFFFFL;
+            long expected = LiteMainNetParam.nextDifficultyTarget(params, prevBits,
+                    (int) (prevTime - intervalAgoTime), bits);
+            if (expected != bits) {
+                fail(failure, i, "难度调整错误：" + Long.toHexString(expected) + " vs " + Long.toHexString(bits));
+                return;
+            }
+        }
+    }
+
+    private static void fail(AtomicReference<Failure> failure, int index, String message) {
+        Failure candidate = new Failure(index, message);
+        failure.accumulateAndGet(candidate, (a, b) -> a == null || b.index < a.index ? b : a);
+    }
+
+    private static void read(ByteBuffer view, int index, byte[] header) {
+        view.position(index * HEADER_SIZE);
+        view.get(header, 0, HEADER_SIZE);
+    }
+
+    private static long readUint32(byte[] bytes, int offset) {
+        return (bytes[offset] & 0XFFL) | (bytes[offset + 1] & 0XFFL) << 8 | (bytes[offset + 2] & 0XFFL) << 16
+                | (bytes[offset + 3] & 0XFFL) << 24;
+    }
+
+    /**
+     * 将压缩格式的难度展开为32字节的大端序数组。
+     *
+     * @return 负数、0或超过256位时返回false
+     */
+    private static boolean decodeTarget(long bits, byte[] target) {
+        int exponent = (int) (bits >>> 24);
+        int mantissa = (int) (bits & 0X7fffff);
+        if ((bits & 0X00800000) != 0 || mantissa == 0) {
+            return false;
+        }
+        Arrays.fill(target, (byte) 0);
+        for (int k = 0; k < 3; k++) {
+            int value = mantissa >>> (8 * (2 - k)) & 0XFF;
+            // 第k个字节的位置：从低位数第exponent - 1 - k个字节
+            int position = 32 - exponent + k;
+            if (position < 0) {
+                if (value != 0) {
+                    return false;
+                }
+            } else if (position < 32) {
+                target[position] = (byte) value;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equals(byte[] header, int offset, byte[] hash) {
+        for (int i = 0; i < 32; i++) {
+            if (header[offset + i] != hash[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+        for (int i = 0; i < 32; i++) {
+            int diff = (a[i] & 0XFF) - (b[i] & 0XFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 比较小端序的hash和大端序的难度。
+     */
+    private static int compareReversed(byte[] hash, byte[] target) {
+        for (int i = 0; i < 32; i++) {
+            int diff = (hash[31 - i] & 0XFF) - (target[i] & 0XFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+    private static byte[] toBytes(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] result = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, result, 32 - length, length);
+        return result;
+    }
+
+    private static void sha256X2(Scratch scratch, byte[] header, byte[] out) {
+        MessageDigest sha256 = scratch.sha256;
+        try {
+            sha256.update(header, 0, HEADER_SIZE);
+            sha256.digest(out, 0, 32);
+            sha256.update(out, 0, 32);
+            sha256.digest(out, 0, 32);
+        } catch (DigestException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 校验结果。
+     */
+    public static final class Result {
+
+        private final int count;
+
+        private final int verified;
+
+        private final int failedHeight;
+
+        private final String error;
+
+        private final Sha256Hash tipHash;
+
+        private final long elapsedNanos;
+
+        private Result(int count, int verified, int failedHeight, String error, Sha256Hash tipHash,
+                       long elapsedNanos) {
+            this.count = count;
+            this.verified = verified;
+            this.failedHeight = failedHeight;
+            this.error = error;
+            this.tipHash = tipHash;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public boolean isValid() {
+            return error == null;
+        }
+
+        /**
+         * 文件中的区块头数。
+         *
+         * @return
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * 第一个错误之前通过校验的区块头数。
+         *
+         * @return
+         */
+        public int getVerified() {
+            return verified;
+        }
+
+        /**
+         * 第一个错误的区块高度，没有错误时为-1。
+         *
+         * @return
+         */
+        public int getFailedHeight() {
+            return failedHeight;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * 最后一个通过校验的区块hash。
+         *
+         * @return
+         */
+        public Sha256Hash getTipHash() {
+            return tipHash;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getHeadersPerSecond() {
+            return elapsedNanos == 0 ? 0 : count / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d headers in %.1f ms (%.0f headers/s)%s", count, elapsedNanos / 1e6,
+                    getHeadersPerSecond(), isValid() ? "" : ", failed at " + failedHeight + ": " + error);
+        }
+    }
+
+    private static final class Failure {
+
+        private final int index;
+
+        private final String message;
+
+        private Failure(int index, String message) {
+            this.index = index;
+            this.message = message;
+        }
+    }
+
+    /**
+     * 每个线程重复使用的临时数组。
+     */
+    private static final class Scratch {
+
+        private final byte[] header = new byte[HEADER_SIZE];
+
+        private final byte[] prev = new byte[32];
+
+        private final byte[] target = new byte[32];
+
+        private final MessageDigest sha256;
+
+        private Scratch() {
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.coinok.sdk.header;
+
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.store.BlockStore;
+import org.bitcoinj.store.BlockStoreException;
+
+/**
+ * 最近N个区块头的环形缓冲区，按高度索引，用于难度调整时O(1)地找到一个周期前的区块。
+ * <p>
+ * 缓冲区中始终是一条相连的链：新区块必须接在已有区块之后，接在较低的区块之后（重组）时丢弃其上的区块，
+ * 与已有区块都不相连时清空重新开始。查询不到时由调用方回退到BlockStore。
+ *
+ * @author Jingyu Yang
+ */
+public class HeaderRing {
+
+    private final StoredBlock[] blocks;
+
+    /**
+     * 最高区块的高度。
+     */
+    private int tip = -1;
+
+    /**
+     * 从tip往下相连的区块数。
+     */
+    private int size;
+
+    /**
+     * @param capacity： 最多保存的区块数
+     */
+    public HeaderRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须大于0！");
+        }
+        blocks = new StoredBlock[capacity];
+    }
+
+    /**
+     * 从BlockStore的最高区块往前加载，最多加载容量个区块，替换已有内容。
+     *
+     * @param blockStore
+     * @throws BlockStoreException
+     */
+    public void load(BlockStore blockStore) throws BlockStoreException {
+        StoredBlock cursor = blockStore.getChainHead();
+        synchronized (this) {
+            size = 0;
+            tip = cursor == null ? -1 : cursor.getHeight();
+            while (cursor != null && size < blocks.length) {
+                blocks[index(cursor.getHeight())] = cursor;
+                size++;
+                if (cursor.getHeight() == 0) {
+                    break;
+                }
+                cursor = blockStore.get(cursor.getHeader().getPrevBlockHash());
+            }
+        }
+    }
+
+    /**
+     * 添加一个已验证的区块。
+     *
+     * @param block
+     */
+    public synchronized void add(StoredBlock block) {
+        int height = block.getHeight();
+        Sha256Hash hash = block.getHeader().getHash();
+        StoredBlock existing = get(height);
+        if (existing != null && existing.getHeader().getHash().equals(hash)) {
+            return;
+        }
+
+        StoredBlock parent = get(height - 1);
+        if (parent != null && parent.getHeader().getHash().equals(block.getHeader().getPrevBlockHash())) {
+            size = Math.min(height - (tip - size + 1) + 1, blocks.length);
+        } else {
+            size = 1;
+        }
+        blocks[index(height)] = block;
+        tip = height;
+    }
+
+    /**
+     * 查找与block在同一条链上、高度为height的祖先。
+     *
+     * @param block：  需要已经在缓冲区中
+     * @param height： 不高于block的高度
+     * @return 缓冲区中没有时返回null
+     */
+    public synchronized StoredBlock getAncestor(StoredBlock block, int height) {
+        StoredBlock self = get(block.getHeight());
+        if (self == null || height > block.getHeight()
+                || !self.getHeader().getHash().equals(block.getHeader().getHash())) {
+            return null;
+        }
+        return get(height);
+    }
+
+    /**
+     * 已连接部分中的区块数。
+     *
+     * @return
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private StoredBlock get(int height) {
+        if (size == 0 || height > tip || height <= tip - size) {
+            return null;
+        }
+        return blocks[index(height)];
+    }
+
+    private int index(int height) {
+        return height % blocks.length;
+    }
+}
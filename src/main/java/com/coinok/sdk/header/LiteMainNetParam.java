@@ -37,6 +37,11 @@ public class LiteMainNetParam extends NetworkParameters {
     private static final long serialVersionUID = 6681030675778751621L;
     private static LiteMainNetParam instance;
 
+    /**
+     * 最近两个难度周期的区块头，难度调整时不需要逐个回溯BlockStore。
+     */
+    private final transient HeaderRing headers = new HeaderRing(2 * INTERVAL);
+
     public LiteMainNetParam() {
         super();
 
@@ -45,6 +50,7 @@ public class LiteMainNetParam extends NetworkParameters {
         maxTarget = Utils.decodeCompactBits(0x1e0fffffL);
         addressHeader = 48;
         p2shHeader = 5;
+        segwitAddressHrp = "ltc";
 //        acceptableAddressCodes = new int[] {addressHeader, p2shHeader};
         dumpedPrivateKeyHeader = 128;
         port = 9333;
@@ -98,6 +104,16 @@ public class LiteMainNetParam extends NetworkParameters {
         return instance;
     }
 
+    /**
+     * 启动时从本地BlockStore预加载最近的区块头，之后的难度调整都可以直接在内存中找到一个周期前的区块。
+     *
+     * @param blockStore
+     * @throws BlockStoreException
+     */
+    public void loadHeaders(BlockStore blockStore) throws BlockStoreException {
+        headers.load(blockStore);
+    }
+
     @Override
     public String getPaymentProtocolId() {
         return PAYMENT_PROTOCOL_ID_MAINNET;
@@ -119,6 +135,7 @@ public class LiteMainNetParam extends NetworkParameters {
         // TODO Auto-generated method stub
 
         Block prev = storedPrev.getHeader();
+        headers.add(storedPrev);
 
         // Is this supposed to be a difficulty transition point?
         if (!isDifficultyTransitionPoint(storedPrev)) {
@@ -133,29 +150,39 @@ public class LiteMainNetParam extends NetworkParameters {
             return;
         }
 
-        // We need to find a block far back in the chain. It's OK that this is expensive because it
-        // only occurs every
-        // two weeks after the initial block chain download.
-        final Stopwatch watch = Stopwatch.createStarted();
-        StoredBlock cursor = blockStore.get(prev.getHash());
-        for (int i = 0; i < this.getInterval() - 1; i++) {
-            if (cursor == null) {
-                // This should never happen. If it does, it means we are following an incorrect or
-                // busted chain.
-                throw new VerificationException(
-                        "Difficulty transition point but we did not find a way back to the genesis block.");
-            }
-            cursor = blockStore.get(cursor.getHeader().getPrevBlockHash());
-        }
-        watch.stop();
-        if (watch.elapsed(TimeUnit.MILLISECONDS) > 50) {
-            log.info("Difficulty transition traversal took {}", watch);
+        StoredBlock cursor = headers.getAncestor(storedPrev, storedPrev.getHeight() - (this.getInterval() - 1));
+        if (cursor == null) {
+            cursor = walkBack(storedPrev, blockStore);
         }
 
         Block blockIntervalAgo = cursor.getHeader();
         int timespan = (int) (prev.getTimeSeconds() - blockIntervalAgo.getTimeSeconds());
+        long receivedTargetCompact = nextBlock.getDifficultyTarget();
+        long newTargetCompact = nextDifficultyTarget(this, prev.getDifficultyTarget(), timespan,
+                receivedTargetCompact);
+
+        if (newTargetCompact != receivedTargetCompact) {
+            throw new VerificationException(
+                    "Network provided difficulty bits do not match what was calculated: "
+                            + Long.toHexString(newTargetCompact) + " vs "
+                            + Long.toHexString(receivedTargetCompact));
+        }
+
+    }
+
+    /**
+     * 根据上一个区块的难度和一个周期的实际用时计算新的难度。调整幅度限制在4倍以内，不超过最大难度，
+     * 精度与收到的难度相同。
+     *
+     * @param params
+     * @param prevTarget：     上一个区块的难度，压缩格式
+     * @param timespan：       一个周期的实际用时（秒）
+     * @param receivedTarget： 新区块中的难度，压缩格式
+     * @return 压缩格式的新难度
+     */
+    static long nextDifficultyTarget(NetworkParameters params, long prevTarget, int timespan, long receivedTarget) {
         // Limit the adjustment step.
-        final int targetTimespan = this.getTargetTimespan();
+        final int targetTimespan = params.getTargetTimespan();
         if (timespan < targetTimespan / 4) {
             timespan = targetTimespan / 4;
         }
@@ -163,30 +190,47 @@ public class LiteMainNetParam extends NetworkParameters {
             timespan = targetTimespan * 4;
         }
 
-        BigInteger newTarget = Utils.decodeCompactBits(prev.getDifficultyTarget());
+        BigInteger newTarget = Utils.decodeCompactBits(prevTarget);
         newTarget = newTarget.multiply(BigInteger.valueOf(timespan));
         newTarget = newTarget.divide(BigInteger.valueOf(targetTimespan));
 
-        if (newTarget.compareTo(this.getMaxTarget()) > 0) {
+        if (newTarget.compareTo(params.getMaxTarget()) > 0) {
             log.info("Difficulty hit proof of work limit: {}", newTarget.toString(16));
-            newTarget = this.getMaxTarget();
+            newTarget = params.getMaxTarget();
         }
 
-        int accuracyBytes = (int) (nextBlock.getDifficultyTarget() >>> 24) - 3;
-        long receivedTargetCompact = nextBlock.getDifficultyTarget();
+        int accuracyBytes = (int) (receivedTarget >>> 24) - 3;
 
         // The calculated difficulty is to a higher precision than received, so reduce here.
         BigInteger mask = BigInteger.valueOf(0xFFFFFFL).shiftLeft(accuracyBytes * 8);
         newTarget = newTarget.and(mask);
-        long newTargetCompact = Utils.encodeCompactBits(newTarget);
+        return Utils.encodeCompactBits(newTarget);
+    }
 
-        if (newTargetCompact != receivedTargetCompact) {
-            throw new VerificationException(
-                    "Network provided difficulty bits do not match what was calculated: "
-                            + Long.toHexString(newTargetCompact) + " vs "
-                            + Long.toHexString(receivedTargetCompact));
+    /**
+     * 内存中没有时，从BlockStore逐个回溯getInterval() - 1个区块。
+     */
+    private StoredBlock walkBack(StoredBlock storedPrev, BlockStore blockStore)
+            throws VerificationException, BlockStoreException {
+        // We need to find a block far back in the chain. It's OK that this is expensive because it
+        // only occurs every
+        // two weeks after the initial block chain download.
+        final Stopwatch watch = Stopwatch.createStarted();
+        StoredBlock cursor = blockStore.get(storedPrev.getHeader().getHash());
+        for (int i = 0; i < this.getInterval() - 1; i++) {
+            if (cursor == null) {
+                // This should never happen. If it does, it means we are following an incorrect or
+                // busted chain.
+                throw new VerificationException(
+                        "Difficulty transition point but we did not find a way back to the genesis block.");
+            }
+            cursor = blockStore.get(cursor.getHeader().getPrevBlockHash());
         }
-
+        watch.stop();
+        if (watch.elapsed(TimeUnit.MILLISECONDS) > 50) {
+            log.info("Difficulty transition traversal took {}", watch);
+        }
+        return cursor;
     }
 
     @Override
@@ -0,0 +1,50 @@
+package com.coinok.sdk.metrics;
+
+/**
+ * 为耗时较长的操作产生JDK Flight Recorder事件，用于与GC、safepoint等事件对照分析延迟。
+ * <p>
+ * Java 8使用的实现，所有方法都不做任何事情。在JDK 17及以上运行多版本jar时，会使用META-INF/versions/17中的实现，
+ * 在JFR记录中产生com.coinok.sdk.*事件。用法：
+ * <pre>
+ * Object event = FlightEvents.begin(Operation.SCRYPT);
+ * ...
+ * FlightEvents.end(event, Operation.SCRYPT, inputSize);
+ * </pre>
+ *
+ * @author Jingyu Yang
+ */
+public final class FlightEvents {
+
+    private FlightEvents() {
+    }
+
+    /**
+     * 操作开始时调用。
+     *
+     * @param operation
+     * @return 传给{@link #end(Object, Operation, long)}的事件，没有记录时为null
+     */
+    public static Object begin(Operation operation) {
+        return null;
+    }
+
+    /**
+     * 操作成功完成时调用，耗时超过阈值的才会写入记录。
+     *
+     * @param event：     {@link #begin(Operation)}的返回值
+     * @param operation
+     * @param inputSize： 输入大小，含义见各事件的说明
+     */
+    public static void end(Object event, Operation operation, long inputSize) {
+    }
+
+    /**
+     * Base58Check解码失败：非法字符、长度或校验位错误。
+     *
+     * @param operation： 解码时所在的操作
+     * @param inputSize： 字符串长度
+     * @param message：   固定的失败原因，如character、length或checksum；输入可能是私钥，不能包含其中的字符或位置
+     */
+    public static void base58Failure(Operation operation, long inputSize, String message) {
+    }
+}
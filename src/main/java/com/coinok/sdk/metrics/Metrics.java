@@ -0,0 +1,111 @@
+package com.coinok.sdk.metrics;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * SDK内部记录操作耗时的入口。
+ * <p>
+ * 用法：
+ * <pre>
+ * long start = Metrics.start();
+ * ...
+ * Metrics.record(Operation.BIP32_DERIVE, start);
+ * </pre>
+ * 没有设置{@link MetricsRecorder}时两个方法都只读取一次recorder字段，不调用System.nanoTime()。
+ * 类加载时按以下顺序选择recorder：
+ * <ul>
+ * <li>ServiceLoader找到的第一个{@link MetricsRecorder}实现；</li>
+ * <li>系统属性{@value #ENABLED_PROPERTY}为true时使用{@link OperationMetrics}；</li>
+ * <li>否则关闭，之后可以调用{@link #enable()}或{@link #setRecorder(MetricsRecorder)}打开。</li>
+ * </ul>
+ * 抛出异常的操作不计入统计。
+ *
+ * @author Jingyu Yang
+ */
+public final class Metrics {
+
+    /**
+     * 启动时打开默认统计的系统属性。
+     */
+    public static final String ENABLED_PROPERTY = "com.coinok.sdk.metrics";
+
+    private static volatile MetricsRecorder recorder;
+
+    static {
+        Iterator<MetricsRecorder> it = ServiceLoader.load(MetricsRecorder.class,
+                MetricsRecorder.class.getClassLoader()).iterator();
+        if (it.hasNext()) {
+            recorder = it.next();
+        } else if (Boolean.getBoolean(ENABLED_PROPERTY)) {
+            recorder = new OperationMetrics();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * 操作开始时调用。
+     *
+     * @return 传给{@link #record(Operation, long)}的开始时间，关闭时为0
+     */
+    public static long start() {
+        return recorder != null ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 操作成功完成时调用。
+     *
+     * @param operation
+     * @param start：     {@link #start()}的返回值
+     */
+    public static void record(Operation operation, long start) {
+        MetricsRecorder current = recorder;
+        if (current != null && start != 0L) {
+            current.record(operation, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 使用默认的{@link OperationMetrics}打开统计。已经是OperationMetrics时直接返回，不清空已有数据。
+     *
+     * @return 当前使用的OperationMetrics
+     */
+    public static synchronized OperationMetrics enable() {
+        MetricsRecorder current = recorder;
+        if (current instanceof OperationMetrics) {
+            return (OperationMetrics) current;
+        }
+        OperationMetrics metrics = new OperationMetrics();
+        recorder = metrics;
+        return metrics;
+    }
+
+    /**
+     * 关闭统计。
+     */
+    public static synchronized void disable() {
+        recorder = null;
+    }
+
+    /**
+     * 设置recorder，为null时关闭统计。
+     *
+     * @param newRecorder
+     */
+    public static synchronized void setRecorder(MetricsRecorder newRecorder) {
+        recorder = newRecorder;
+    }
+
+    /**
+     * @return 关闭时为null
+     */
+    public static MetricsRecorder getRecorder() {
+        return recorder;
+    }
+
+    public static boolean isEnabled() {
+        return recorder != null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.coinok.sdk.metrics;
+
+/**
+ * 将{@link OperationMetrics}中的统计导出到其他监控系统的适配器，由{@link OperationMetrics#export(MetricsExporter)}调用。
+ * <p>
+ * 计数和直方图都是累计值，适合映射为counter和累计直方图（桶的上界见{@link OperationMetrics#bucketUpperBound(int)}）。
+ *
+ * @author Jingyu Yang
+ */
+public interface MetricsExporter {
+
+    /**
+     * 导出一个操作的统计，没有发生过的操作不会导出。
+     *
+     * @param snapshot
+     */
+    void export(OperationMetrics.Snapshot snapshot);
+}
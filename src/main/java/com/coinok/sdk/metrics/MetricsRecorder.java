@@ -0,0 +1,20 @@
+package com.coinok.sdk.metrics;
+
+/**
+ * 接收每次操作耗时的扩展点。
+ * <p>
+ * 在SDK的调用线程上同步调用，实现需要线程安全并且足够快，不能阻塞。默认实现为{@link OperationMetrics}，
+ * 也可以通过{@link Metrics#setRecorder(MetricsRecorder)}或ServiceLoader（META-INF/services）直接对接其他监控系统。
+ *
+ * @author Jingyu Yang
+ */
+public interface MetricsRecorder {
+
+    /**
+     * 记录一次成功完成的操作。
+     *
+     * @param operation
+     * @param nanos：     耗时（纳秒）
+     */
+    void record(Operation operation, long nanos);
+}
@@ -0,0 +1,114 @@
+package com.coinok.sdk.metrics;
+
+/**
+ * SDK中统计次数和耗时的操作。
+ *
+ * @author Jingyu Yang
+ */
+public enum Operation {
+
+    /**
+     * 由种子生成BIP32主节点。
+     */
+    BIP32_MASTER,
+
+    /**
+     * 派生BIP32子节点。
+     */
+    BIP32_DERIVE,
+
+    /**
+     * 并行派生一批BIP32子节点。
+     */
+    BIP32_BULK_DERIVE,
+
+    /**
+     * 序列化为xprv/xpub。
+     */
+    BIP32_SERIALIZE,
+
+    /**
+     * 解析xprv/xpub。
+     */
+    BIP32_DECODE,
+
+    /**
+     * 随机生成私钥。
+     */
+    KEY_GENERATE,
+
+    /**
+     * 解析WIF格式的私钥。
+     */
+    WIF_DECODE,
+
+    /**
+     * 私钥编码为WIF格式。
+     */
+    WIF_ENCODE,
+
+    /**
+     * 由公钥生成P2PKH地址。
+     */
+    ADDRESS_ENCODE,
+
+    /**
+     * 通过{@link com.coinok.sdk.header.AddressCodec}解析地址。
+     */
+    ADDRESS_DECODE,
+
+    /**
+     * 生成多签地址。
+     */
+    MULTISIG_ADDRESS,
+
+    /**
+     * SHA-256、两次SHA-256和SHA-512。
+     */
+    DIGEST_SHA,
+
+    /**
+     * RIPEMD-160。
+     */
+    DIGEST_HASH160,
+
+    /**
+     * 由密码生成AES密钥。
+     */
+    AES_KEY_DERIVE,
+
+    /**
+     * AES加密（CBC、GCM）。
+     */
+    AES_ENCRYPT,
+
+    /**
+     * AES解密（CBC、GCM）。
+     */
+    AES_DECRYPT,
+
+    /**
+     * scrypt密钥派生，BIP38和莱特币工作量证明都会用到。
+     */
+    SCRYPT,
+
+    /**
+     * BIP38加密。
+     */
+    BIP38_ENCRYPT,
+
+    /**
+     * BIP38解密，包括密码错误的情况。
+     */
+    BIP38_DECRYPT,
+
+    /**
+     * Bech32/Bech32m编码。
+     */
+    BECH32_ENCODE,
+
+    /**
+     * Bech32/Bech32m解码。
+     */
+    BECH32_DECODE
+}
@@ -0,0 +1,253 @@
+package com.coinok.sdk.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 默认的{@link MetricsRecorder}：每个操作的次数、总耗时、最大耗时和耗时直方图。
+ * <p>
+ * 所有计数使用LongAdder，多线程同时记录时分散到不同的cell，不会争用同一个缓存行。
+ * 直方图按对数-线性分桶：小于8纳秒的每纳秒一个桶，之后每个2的幂区间再平分为4个桶，相对误差不超过25%；
+ * 超过2<sup>43</sup>纳秒（约2.4小时）的都计入最后一个桶。
+ *
+ * @author Jingyu Yang
+ */
+public class OperationMetrics implements MetricsRecorder {
+
+    private static final int SUB_BUCKET_BITS = 2;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 42;
+
+    /**
+     * 直方图的桶数。
+     */
+    public static final int BUCKETS = MAX_EXPONENT * SUB_BUCKETS;
+
+    private final Stats[] stats;
+
+    public OperationMetrics() {
+        Operation[] operations = Operation.values();
+        stats = new Stats[operations.length];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new Stats();
+        }
+    }
+
+    @Override
+    public void record(Operation operation, long nanos) {
+        Stats s = stats[operation.ordinal()];
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        s.count.increment();
+        s.totalNanos.add(nanos);
+        s.maxNanos.accumulate(nanos);
+        s.buckets[bucket(nanos)].increment();
+    }
+
+    /**
+     * 获取一个操作当前的统计。记录与读取同时进行时，各项数值之间可能有少量不一致。
+     *
+     * @param operation
+     * @return
+     */
+    public Snapshot snapshot(Operation operation) {
+        Stats s = stats[operation.ordinal()];
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = s.buckets[i].sum();
+        }
+        return new Snapshot(operation, s.count.sum(), s.totalNanos.sum(), s.maxNanos.get(), buckets);
+    }
+
+    /**
+     * 所有发生过的操作的统计。
+     *
+     * @return
+     */
+    public List<Snapshot> snapshots() {
+        List<Snapshot> result = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            if (stats[operation.ordinal()].count.sum() > 0) {
+                result.add(snapshot(operation));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 将所有发生过的操作的统计交给exporter。
+     *
+     * @param exporter
+     */
+    public void export(MetricsExporter exporter) {
+        for (Snapshot snapshot : snapshots()) {
+            exporter.export(snapshot);
+        }
+    }
+
+    /**
+     * 清空所有统计。
+     */
+    public void reset() {
+        for (Stats s : stats) {
+            s.count.reset();
+            s.totalNanos.reset();
+            s.maxNanos.reset();
+            for (LongAdder bucket : s.buckets) {
+                bucket.reset();
+            }
+        }
+    }
+
+    /**
+     * 耗时所在的桶。
+     *
+     * @param nanos
+     * @return
+     */
+    static int bucket(long nanos) {
+        if (nanos < 2 * SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        return (exponent - 1) * SUB_BUCKETS + (int) ((nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * 桶中最小的耗时（纳秒）。
+     *
+     * @param index
+     * @return
+     */
+    public static long bucketLowerBound(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + 1;
+        return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * 桶中最大的耗时（纳秒），最后一个桶为Long.MAX_VALUE。
+     *
+     * @param index
+     * @return
+     */
+    public static long bucketUpperBound(int index) {
+        return index == BUCKETS - 1 ? Long.MAX_VALUE : bucketLowerBound(index + 1) - 1;
+    }
+
+    private static final class Stats {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        private Stats() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * 一个操作在某一时刻的统计。
+     */
+    public static final class Snapshot {
+
+        private final Operation operation;
+
+        private final long count;
+
+        private final long totalNanos;
+
+        private final long maxNanos;
+
+        private final long[] buckets;
+
+        private Snapshot(Operation operation, long count, long totalNanos, long maxNanos, long[] buckets) {
+            this.operation = operation;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.buckets = buckets;
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        /**
+         * 各桶的次数，下标含义见{@link OperationMetrics#bucketUpperBound(int)}。
+         *
+         * @return 副本
+         */
+        public long[] getBuckets() {
+            return buckets.clone();
+        }
+
+        /**
+         * 估算的分位数：所在桶的上界，不超过最大耗时。
+         *
+         * @param quantile： 0到1之间，如0.99
+         * @return 纳秒，没有记录时为0
+         */
+        public long getPercentile(double quantile) {
+            if (quantile < 0 || quantile > 1) {
+                throw new IllegalArgumentException("quantile必须在0到1之间！");
+            }
+            long total = 0;
+            for (long n : buckets) {
+                total += n;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s count=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus", operation, count,
+                    getMeanNanos() / 1000, getPercentile(0.5) / 1000.0, getPercentile(0.99) / 1000.0,
+                    maxNanos / 1000.0);
+        }
+    }
+}
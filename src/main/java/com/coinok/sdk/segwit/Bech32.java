@@ -1,7 +1,18 @@
 package com.coinok.sdk.segwit;
 
+import com.coinok.sdk.metrics.Metrics;
+import com.coinok.sdk.metrics.Operation;
+
+import java.util.Arrays;
+
 /**
  * Base32
+ * <p>
+ * 编码和解码都不产生临时数组：字符映射和合法性检查使用128位的查找表，hrp在计算polymod时直接展开，
+ * 结果写入调用方提供的char[]/byte[]。
+ * <p>
+ * 同时支持BIP173的Bech32和BIP350的Bech32m（https://github.com/bitcoin/bips/blob/master/bip-0350.mediawiki），
+ * 两者只有校验位使用的常量不同。
  *
  * @author Jingyu Yang
  */
@@ -9,61 +20,117 @@ public class Bech32 {
 
     private static final String CHARSET = "qpzry9x8gf2tvdw0s3jn54khce6mua7l";
 
-    private static final int[] GENERATOR = {0x3b6a57b2, 0x26508e6d, 0x1ea119fa, 0x3d4233dd, 0x2a1462b3};
+    /**
+     * 5位的值到字符。
+     */
+    private static final char[] ENCODE_TABLE = CHARSET.toCharArray();
 
-    private static int polymod(byte[] value) {
-        int result = 1;
+    /**
+     * 字符（大小写均可）到5位的值，不在CHARSET中的为-1。
+     */
+    private static final byte[] DECODE_TABLE = new byte[128];
 
-        for (byte bb : value) {
-            int temp = (result >> 25);
-            result = (result & 0X1ffffff) << 5 ^ bb;
-            for (int i = 0; i < 5; i++) {
-                result ^= ((temp >> i) & 1) == 1 ? GENERATOR[i] : 0;
-            }
-        }
-        return result;
-    }
+    /**
+     * Bech32字符串的最大长度。
+     */
+    public static final int MAX_LENGTH = 90;
 
-    private static byte[] hrpExpand(byte[] hrp) {
-        int length = hrp.length;
-        byte[] buf1 = new byte[length];
-        byte[] buf2 = new byte[length];
+    /**
+     * 校验位的长度。
+     */
+    public static final int CHECKSUM_LENGTH = 6;
 
-        for (int i = 0, len = hrp.length; i < len; i++) {
-            buf1[i] = (byte)(hrp[i] >> 5);
-            buf2[i] = (byte)(hrp[i] & 0x1f);
-        }
+    /**
+     * BIP173 Bech32的校验常量。
+     */
+    public static final int BECH32_CONST = 1;
 
-        byte[] result = new byte[length * 2 + 1];
-        System.arraycopy(buf1, 0, result, 0, length);
-        result[length] = (byte)0X0;
-        System.arraycopy(buf2, 0, result, length + 1, length);
-        return result;
-    }
+    /**
+     * BIP350 Bech32m的校验常量。
+     */
+    public static final int BECH32M_CONST = 0x2bc830a3;
 
-    private static boolean verifyCheckSum(byte[] hrp, byte[] data) {
-        byte[] expanded = hrpExpand(hrp);
+    /**
+     * {@link #parse(CharSequence)}的错误码对应的异常信息。
+     */
+    private static final String[] ERRORS = {
+            null,
+            "Bech32 String to decode can't be empty!",
+            "Bech32 String to decode is more than 90 or less than 8!",
+            "Bech32 String characters out of range!",
+            "Bech32 String to decode nust only upper case or lower case!",
+            "Bech32 String missing separator!",
+            "Bech32 String too short checkSum!",
+            "Bech32 String has no HRP!"
+    };
 
-        byte[] temp = new byte[expanded.length + data.length];
-        System.arraycopy(expanded, 0, temp, 0, expanded.length);
-        System.arraycopy(data, 0, temp, expanded.length, data.length);
+    /**
+     * 数据部分有不在CHARSET中的字符时{@link #decode(CharSequence, int, int, byte[], int)}的返回值。
+     */
+    static final int BAD_CHARACTER = -1;
 
-        return polymod(temp) == 1;
+    static {
+        Arrays.fill(DECODE_TABLE, (byte) -1);
+        for (int i = 0; i < ENCODE_TABLE.length; i++) {
+            char c = ENCODE_TABLE[i];
+            DECODE_TABLE[c] = (byte) i;
+            DECODE_TABLE[Character.toUpperCase(c)] = (byte) i;
+        }
     }
 
-    private static byte[] createCheckSum(byte[] hrp, byte[] data) {
-        byte[] expanded = hrpExpand(hrp);
-
-        byte[] temp = new byte[expanded.length + data.length + 6];
-        System.arraycopy(expanded, 0, temp, 0, expanded.length);
-        System.arraycopy(data, 0, temp, expanded.length, data.length);
+    /**
+     * polymod的一步，生成多项式展开为常量。
+     */
+    static int polymodStep(int chk, int value) {
+        int top = chk >>> 25;
+        chk = (chk & 0X1ffffff) << 5 ^ value;
+        chk ^= -(top & 1) & 0x3b6a57b2;
+        chk ^= -((top >>> 1) & 1) & 0x26508e6d;
+        chk ^= -((top >>> 2) & 1) & 0x1ea119fa;
+        chk ^= -((top >>> 3) & 1) & 0x3d4233dd;
+        chk ^= -((top >>> 4) & 1) & 0x2a1462b3;
+        return chk;
+    }
 
-        int polymod = polymod(temp) ^ 1;
-        byte[] result = new byte[6];
-        for (int i = 0; i < 6; i++) {
-            result[i] = (byte)((polymod >> 5 * (5 - i)) & 31);
+    /**
+     * 计算hrp展开后的polymod，hrp中的大写字母按小写处理。
+     *
+     * @param hrp
+     * @param length： hrp的长度
+     * @return
+     */
+    static int hrpPolymod(CharSequence hrp, int length) {
+        int chk = 1;
+        for (int i = 0; i < length; i++) {
+            chk = polymodStep(chk, toLower(hrp.charAt(i)) >>> 5);
+        }
+        chk = polymodStep(chk, 0);
+        for (int i = 0; i < length; i++) {
+            chk = polymodStep(chk, toLower(hrp.charAt(i)) & 0x1f);
         }
-        return result;
+        return chk;
+    }
+
+    /**
+     * 字符对应的5位的值，不在CHARSET中时返回-1。
+     */
+    static int valueOf(char c) {
+        return c < 128 ? DECODE_TABLE[c] : -1;
+    }
+
+    private static int toLower(char c) {
+        return c >= 'A' && c <= 'Z' ? c + 0x20 : c;
+    }
+
+    /**
+     * 编码结果的长度。
+     *
+     * @param hrpLength
+     * @param dataLength
+     * @return
+     */
+    public static int encodedLength(int hrpLength, int dataLength) {
+        return hrpLength + 1 + dataLength + CHECKSUM_LENGTH;
     }
 
     /**
@@ -74,22 +141,86 @@ public class Bech32 {
      * @return
      */
     public static String encode(byte[] hrp, byte[] data) {
-        byte[] checkSum = createCheckSum(hrp, data);
+        char[] hrpChars = new char[hrp.length];
+        for (int i = 0; i < hrp.length; i++) {
+            hrpChars[i] = (char) (hrp[i] & 0XFF);
+        }
+        char[] out = new char[encodedLength(hrp.length, data.length)];
+        encode(new String(hrpChars), data, 0, data.length, out, 0);
+        return new String(out);
+    }
 
-        byte[] temp = new byte[checkSum.length + data.length];
-        System.arraycopy(data, 0, temp, 0, data.length);
-        System.arraycopy(checkSum, 0, temp, data.length, checkSum.length);
+    /**
+     * 编码到调用方提供的数组中，hrp转为小写输出。
+     *
+     * @param hrp
+     * @param data：      5位的值
+     * @param offset
+     * @param length
+     * @param out：       剩余空间至少为{@link #encodedLength(int, int)}
+     * @param outOffset
+     * @return 写入的字符数
+     */
+    public static int encode(CharSequence hrp, byte[] data, int offset, int length, char[] out, int outOffset) {
+        return encode(hrp, data, offset, length, out, outOffset, BECH32_CONST);
+    }
 
-        for (int i = 0, len = temp.length; i < len; i++) {
-            temp[i] = (byte)CHARSET.charAt(temp[i]);
+    /**
+     * 编码到调用方提供的数组中，hrp转为小写输出。
+     *
+     * @param hrp
+     * @param data：      5位的值
+     * @param offset
+     * @param length
+     * @param out：       剩余空间至少为{@link #encodedLength(int, int)}
+     * @param outOffset
+     * @param constant：  {@link #BECH32_CONST}或{@link #BECH32M_CONST}
+     * @return 写入的字符数
+     */
+    public static int encode(CharSequence hrp, byte[] data, int offset, int length, char[] out, int outOffset,
+                             int constant) {
+        if (hrp.length() == 0) {
+            throw new RuntimeException("Bech32 hrp can't be empty!");
         }
+        return encode(hrp, hrpPolymod(hrp, hrp.length()), data, offset, length, out, outOffset, constant);
+    }
 
-        byte[] result = new byte[hrp.length + 1 + temp.length];
-        System.arraycopy(hrp, 0, result, 0, hrp.length);
-        result[hrp.length] = (byte)0X31;
-        System.arraycopy(temp, 0, result, hrp.length + 1, temp.length);
+    /**
+     * 使用预先计算好的hrp的polymod编码，见{@link HrpRegistry}。
+     */
+    static int encode(CharSequence hrp, int hrpState, byte[] data, int offset, int length, char[] out,
+                      int outOffset, int constant) {
+        int hrpLength = hrp.length();
+        int total = encodedLength(hrpLength, length);
+        if (out.length - outOffset < total) {
+            throw new RuntimeException("Bech32 output buffer too small!");
+        }
+
+        long start = Metrics.start();
+        int pos = outOffset;
+        for (int i = 0; i < hrpLength; i++) {
+            out[pos++] = (char) toLower(hrp.charAt(i));
+        }
+        out[pos++] = '1';
 
-        return new String(result);
+        int chk = hrpState;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int value = data[i];
+            if ((value & ~0x1f) != 0) {
+                throw new RuntimeException("Bech32 data value out of range!");
+            }
+            chk = polymodStep(chk, value);
+            out[pos++] = ENCODE_TABLE[value];
+        }
+        for (int i = 0; i < CHECKSUM_LENGTH; i++) {
+            chk = polymodStep(chk, 0);
+        }
+        chk ^= constant;
+        for (int i = 0; i < CHECKSUM_LENGTH; i++) {
+            out[pos++] = ENCODE_TABLE[(chk >>> 5 * (5 - i)) & 31];
+        }
+        Metrics.record(Operation.BECH32_ENCODE, start);
+        return total;
     }
 
     /**
@@ -99,56 +230,171 @@ public class Bech32 {
      * @return
      */
     public static DataPair<byte[], byte[]> decode(String str) {
-        if (str == null || str.trim().length() == 0) {
-            throw new RuntimeException("Bech32 String to decode can't be empty!");
-        }
-        if (str.length() < 8 || str.length() > 90) {
-            throw new RuntimeException("Bech32 String to decode is more than 90 or less than 8!");
-        }
-        if (!str.equals(str.toUpperCase()) && !str.equals(str.toLowerCase())) {
-            throw new RuntimeException("Bech32 String to decode nust only upper case or lower case!");
-        }
+        return decode(str, BECH32_CONST);
+    }
 
-        for (byte bb : str.getBytes()) {
-            if (bb < 0X21 || bb > 0X7e) {
-                throw new RuntimeException("Bech32 String characters out of range!");
-            }
+    /**
+     * 按指定的校验常量解码。
+     *
+     * @param str
+     * @param constant： {@link #BECH32_CONST}或{@link #BECH32M_CONST}
+     * @return
+     */
+    public static DataPair<byte[], byte[]> decode(String str, int constant) {
+        byte[] data = new byte[MAX_LENGTH];
+        int length = decode(str, data, 0, constant);
+
+        int pos = str.lastIndexOf('1');
+        byte[] hrp = new byte[pos];
+        for (int i = 0; i < pos; i++) {
+            hrp[i] = (byte) toLower(str.charAt(i));
         }
+        return new DataPair<>(hrp, Arrays.copyOf(data, length));
+    }
 
-        String strLower = str.toLowerCase();
+    /**
+     * 解码到调用方提供的数组中，hrp为str中最后一个'1'之前的部分。
+     *
+     * @param str
+     * @param dataOut：   5位的值，不包括校验位。剩余空间至少为str.length() - 8
+     * @param outOffset
+     * @return 写入的数据长度
+     */
+    public static int decode(CharSequence str, byte[] dataOut, int outOffset) {
+        return decode(str, dataOut, outOffset, BECH32_CONST);
+    }
 
-        int pos = strLower.lastIndexOf("1");
-        if (pos < 0) {
-            throw new RuntimeException("Bech32 String missing separator!");
-        } else if (pos + 7 > strLower.length()) {
-            throw new RuntimeException("Bech32 String too short checkSum!");
+    /**
+     * 按指定的校验常量解码到调用方提供的数组中。
+     *
+     * @param str
+     * @param dataOut：   5位的值，不包括校验位。剩余空间至少为str.length() - 8
+     * @param outOffset
+     * @param constant：  {@link #BECH32_CONST}或{@link #BECH32M_CONST}
+     * @return 写入的数据长度
+     */
+    public static int decode(CharSequence str, byte[] dataOut, int outOffset, int constant) {
+        int pos = check(str);
+        if (residue(str, pos, hrpPolymod(str, pos), dataOut, outOffset) != constant) {
+            throw new RuntimeException("Bech32 String check fail!");
         }
+        return str.length() - pos - 1 - CHECKSUM_LENGTH;
+    }
 
-        String temp = strLower.substring(pos + 1);
-        for (int i = 0, len = temp.length(); i < len; i++) {
-            if (CHARSET.indexOf(temp.charAt(i)) == -1) {
-                throw new RuntimeException("Bech32 String characters out of range!");
-            }
+    /**
+     * 检查长度、大小写、字符范围和分隔符，不合法时抛出异常。
+     *
+     * @param str
+     * @return 分隔符的位置
+     */
+    static int check(CharSequence str) {
+        int pos = parse(str);
+        if (pos < 0) {
+            throw new RuntimeException(ERRORS[-pos]);
         }
+        return pos;
+    }
 
-        byte[] hrp = strLower.substring(0, pos).getBytes();
-        if (hrp.length == 0) {
-            throw new RuntimeException("Bech32 String has no HRP!");
+    /**
+     * 检查长度、大小写、字符范围和分隔符，不抛出异常。
+     *
+     * @param str
+     * @return 分隔符的位置，不合法时返回负数
+     */
+    static int parse(CharSequence str) {
+        if (str == null || str.length() == 0) {
+            return -1;
+        }
+        int length = str.length();
+        if (length < 8 || length > MAX_LENGTH) {
+            return -2;
         }
 
-        byte[] data = new byte[strLower.length() - pos - 1];
-        for (int i = 0, j = pos + 1; j < strLower.length(); i++, j++) {
-            data[i] = (byte)CHARSET.indexOf(strLower.charAt(j));
+        boolean lower = false;
+        boolean upper = false;
+        int pos = -1;
+        for (int i = 0; i < length; i++) {
+            char c = str.charAt(i);
+            if (c < 0X21 || c > 0X7e) {
+                return -3;
+            }
+            if (c >= 'a' && c <= 'z') {
+                lower = true;
+            } else if (c >= 'A' && c <= 'Z') {
+                upper = true;
+            } else if (c == '1') {
+                pos = i;
+            }
+        }
+        if (lower && upper) {
+            return -4;
+        }
+        if (pos < 0) {
+            return -5;
+        } else if (pos + 7 > length) {
+            return -6;
+        }
+        if (pos == 0) {
+            return -7;
         }
+        return pos;
+    }
 
-        if (!verifyCheckSum(hrp, data)) {
-            throw new RuntimeException("Bech32 String check fail!");
+    /**
+     * 计算校验位后的polymod，等于{@link #BECH32_CONST}或{@link #BECH32M_CONST}时校验通过。
+     *
+     * @param str：       已经通过{@link #parse(CharSequence)}的字符串
+     * @param pos：       分隔符的位置
+     * @param hrpState：  hrp的polymod，见{@link #hrpPolymod(CharSequence, int)}
+     * @param dataOut：   为null时只计算polymod
+     * @param outOffset
+     * @return polymod的结果，数据部分有非法字符时抛出异常
+     */
+    static int residue(CharSequence str, int pos, int hrpState, byte[] dataOut, int outOffset) {
+        int chk = decode(str, pos, hrpState, dataOut, outOffset);
+        if (chk == BAD_CHARACTER) {
+            throw new RuntimeException(ERRORS[3]);
         }
+        return chk;
+    }
 
-        byte[] result = new byte[data.length - 6];
-        System.arraycopy(data, 0, result, 0, data.length - 6);
+    /**
+     * 映射数据部分并计算polymod。
+     *
+     * @param str：       已经通过{@link #parse(CharSequence)}的字符串
+     * @param pos：       分隔符的位置
+     * @param dataOut：   为null时只计算polymod
+     * @param outOffset
+     * @return polymod的结果，数据部分有非法字符时返回{@link #BAD_CHARACTER}
+     */
+    static int decode(CharSequence str, int pos, byte[] dataOut, int outOffset) {
+        return decode(str, pos, hrpPolymod(str, pos), dataOut, outOffset);
+    }
 
-        return new DataPair<>(hrp, result);
+    /**
+     * 使用预先计算好的hrp的polymod映射数据部分并计算polymod，见{@link HrpRegistry}。
+     */
+    static int decode(CharSequence str, int pos, int hrpState, byte[] dataOut, int outOffset) {
+        int length = str.length();
+        int dataLength = length - pos - 1 - CHECKSUM_LENGTH;
+        if (dataOut != null && dataOut.length - outOffset < dataLength) {
+            throw new RuntimeException("Bech32 output buffer too small!");
+        }
+
+        long start = Metrics.start();
+        int chk = hrpState;
+        for (int i = pos + 1, j = outOffset; i < length; i++, j++) {
+            int value = DECODE_TABLE[str.charAt(i)];
+            if (value < 0) {
+                return BAD_CHARACTER;
+            }
+            chk = polymodStep(chk, value);
+            if (dataOut != null && j < outOffset + dataLength) {
+                dataOut[j] = (byte) value;
+            }
+        }
+        Metrics.record(Operation.BECH32_DECODE, start);
+        return chk;
     }
 
 }
@@ -0,0 +1,35 @@
+package com.coinok.sdk.segwit;
+
+import java.util.List;
+
+/**
+ * 批量检查隔离见证地址。
+ * <p>
+ * Java 8使用的实现，逐个调用{@link SegwitAddressUtil#validate(CharSequence)}。
+ * 在JDK 17及以上运行多版本jar时，会使用META-INF/versions/17中基于Vector API的实现。
+ *
+ * @author Jingyu Yang
+ */
+final class BulkValidator {
+
+    private BulkValidator() {
+    }
+
+    static String implementation() {
+        return "scalar";
+    }
+
+    /**
+     * 检查addresses的[from, to)部分，结果写入out的相同位置。
+     *
+     * @param addresses
+     * @param from
+     * @param to
+     * @param out
+     */
+    static void validate(List<? extends CharSequence> addresses, int from, int to, int[] out) {
+        for (int i = from; i < to; i++) {
+            out[i] = SegwitAddressUtil.validate(addresses.get(i));
+        }
+    }
+}
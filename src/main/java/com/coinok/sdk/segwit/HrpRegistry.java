@@ -0,0 +1,190 @@
+package com.coinok.sdk.segwit;
+
+import com.coinok.sdk.header.HeadInfo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 支持的隔离见证地址hrp。
+ * <p>
+ * 每个hrp展开后的polymod在注册时计算一次，编码和校验时只需要处理数据部分。
+ * hrp按字符打包为一个long，在无冲突的散列表中查找，未知的hrp只需要一次数组读取就能拒绝。
+ * 启动时注册{@link HeadInfo#values()}中所有支持隔离见证的网络，其他hrp可以通过{@link #register(String, HeadInfo)}添加。
+ *
+ * @author Jingyu Yang
+ */
+public class HrpRegistry {
+
+    /**
+     * 支持注册的hrp的最大长度，每个字符占7位，打包到一个long中。
+     */
+    public static final int MAX_HRP_LENGTH = 9;
+
+    private static final Map<String, Entry> ENTRIES = new LinkedHashMap<>();
+
+    private static volatile Table table = Table.build(new Entry[0]);
+
+    static {
+        for (HeadInfo head : HeadInfo.values()) {
+            if (head.getSegwitHrp() != null) {
+                register(head);
+            }
+        }
+    }
+
+    /**
+     * 注册网络的隔离见证hrp。
+     *
+     * @param head
+     */
+    public static void register(HeadInfo head) {
+        register(head.getSegwitHrp(), head);
+    }
+
+    /**
+     * 注册一个hrp，已经存在时替换对应的网络。
+     *
+     * @param hrp
+     * @param head： 对应的网络，可以为null
+     */
+    public static synchronized void register(String hrp, HeadInfo head) {
+        long key = key(hrp, hrp == null ? 0 : hrp.length());
+        if (key < 0) {
+            throw new IllegalArgumentException("hrp必须是1到" + MAX_HRP_LENGTH + "位的可见ASCII字符！");
+        }
+        String lower = hrp.toLowerCase();
+        ENTRIES.put(lower, new Entry(lower, head, key, Bech32.hrpPolymod(lower, lower.length())));
+        table = Table.build(ENTRIES.values().toArray(new Entry[0]));
+    }
+
+    /**
+     * 查找hrp，大小写均可。
+     *
+     * @param hrp
+     * @return 未注册时返回null
+     */
+    public static Entry get(CharSequence hrp) {
+        return hrp == null ? null : get(hrp, hrp.length());
+    }
+
+    /**
+     * 查找str的[0, length)部分。
+     *
+     * @param str
+     * @param length
+     * @return 未注册时返回null
+     */
+    static Entry get(CharSequence str, int length) {
+        long key = key(str, length);
+        if (key < 0) {
+            return null;
+        }
+        Table current = table;
+        Entry entry = current.entries[current.index(key)];
+        return entry != null && entry.key == key ? entry : null;
+    }
+
+    /**
+     * 将hrp的小写形式打包为long，长度或字符不合法时返回-1。
+     */
+    private static long key(CharSequence str, int length) {
+        if (length <= 0 || length > MAX_HRP_LENGTH) {
+            return -1;
+        }
+        long key = 0;
+        for (int i = 0; i < length; i++) {
+            char c = str.charAt(i);
+            if (c < 0X21 || c > 0X7e) {
+                return -1;
+            }
+            if (c >= 'A' && c <= 'Z') {
+                c += 0x20;
+            }
+            key = key << 7 | c;
+        }
+        return key;
+    }
+
+    /**
+     * 一个已注册的hrp。
+     */
+    public static final class Entry {
+
+        private final String hrp;
+
+        private final HeadInfo head;
+
+        private final long key;
+
+        private final int polymod;
+
+        private Entry(String hrp, HeadInfo head, long key, int polymod) {
+            this.hrp = hrp;
+            this.head = head;
+            this.key = key;
+            this.polymod = polymod;
+        }
+
+        public String getHrp() {
+            return hrp;
+        }
+
+        /**
+         * 对应的网络，可能为null。
+         *
+         * @return
+         */
+        public HeadInfo getHead() {
+            return head;
+        }
+
+        /**
+         * hrp展开后的polymod。
+         *
+         * @return
+         */
+        int getPolymod() {
+            return polymod;
+        }
+    }
+
+    /**
+     * 无冲突的散列表：容量从16开始翻倍，直到所有hrp落在不同的位置。
+     */
+    private static final class Table {
+
+        private final Entry[] entries;
+
+        private final int shift;
+
+        private Table(Entry[] entries, int shift) {
+            this.entries = entries;
+            this.shift = shift;
+        }
+
+        private static Table build(Entry[] all) {
+            for (int bits = 4; bits <= 16; bits++) {
+                Entry[] entries = new Entry[1 << bits];
+                Table table = new Table(entries, 64 - bits);
+                boolean collision = false;
+                for (Entry entry : all) {
+                    int index = table.index(entry.key);
+                    if (entries[index] != null) {
+                        collision = true;
+                        break;
+                    }
+                    entries[index] = entry;
+                }
+                if (!collision) {
+                    return table;
+                }
+            }
+            throw new IllegalStateException("注册的hrp过多！");
+        }
+
+        private int index(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        }
+    }
+}
@@ -1,14 +1,16 @@
 package com.coinok.sdk.segwit;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
 
-import com.google.common.primitives.Bytes;
 import org.bitcoinj.core.Utils;
 
 /**
  * Bech32 encode and decode util.
+ * <p>
+ * witness版本0使用Bech32校验，版本1到16（如Taproot的P2TR地址）使用Bech32m校验，见BIP350。
+ * 支持的hrp见{@link HrpRegistry}。
  *
  * @author Jingyu Yang
  */
@@ -23,6 +25,46 @@ public class SegwitAddressUtil {
      */
     private static final String HRP_TEST = "tb";
 
+    /**
+     * 地址合法。
+     */
+    public static final int VALID = 0;
+
+    /**
+     * 不是合法的Bech32字符串：长度、大小写、字符或分隔符错误。
+     */
+    public static final int INVALID_FORMAT = 1;
+
+    /**
+     * 校验位错误，或校验方式与witness版本不符。
+     */
+    public static final int INVALID_CHECKSUM = 2;
+
+    /**
+     * 不支持的hrp。
+     */
+    public static final int INVALID_HRP = 3;
+
+    /**
+     * witness版本不在0到16之间。
+     */
+    public static final int INVALID_VERSION = 4;
+
+    /**
+     * witness program的长度或填充位错误。
+     */
+    public static final int INVALID_PROGRAM = 5;
+
+    /**
+     * 批量检查时每个并行任务处理的地址数。
+     */
+    private static final int BULK_CHUNK_SIZE = 4096;
+
+    /**
+     * 编码、解码时存放5位的值的临时数组。
+     */
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[Bech32.MAX_LENGTH]);
+
     /**
      * 使用默认版本获取地址字符串。
      *
@@ -48,7 +90,34 @@ public class SegwitAddressUtil {
     }
 
     /**
-     * 将指定witness的script转换为地址格式。
+     * 将指定版本的witness program转换为地址格式，如版本1的32位x-only公钥得到P2TR地址。
+     *
+     * @param program：        十六进制的witness program
+     * @param witnessVersion： 0到16
+     * @param isMainNet
+     * @return
+     */
+    public static String encode(String program, int witnessVersion, boolean isMainNet) {
+        return encode((isMainNet ? HRP_MAIN : HRP_TEST).getBytes(), (byte) witnessVersion, Utils.HEX.decode(program));
+    }
+
+    /**
+     * 将指定版本的witness program直接转换为地址格式，不经过十六进制字符串。
+     *
+     * @param hrp
+     * @param witnessVersion： 0到16
+     * @param program
+     * @return
+     */
+    public static String encode(String hrp, int witnessVersion, byte[] program) {
+        byte[] data = new byte[1 + convertedLength(program.length, 8, 5, true)];
+        char[] out = new char[Bech32.encodedLength(hrp.length(), data.length)];
+        int length = encode(hrp, (byte) witnessVersion, program, 0, program.length, data, out, 0);
+        return new String(out, 0, length);
+    }
+
+    /**
+     * 将指定witness的script转换为地址格式。版本0使用Bech32校验，其他版本使用Bech32m校验。
      *
      * @param hrp
      * @param witnessVersion
@@ -56,40 +125,249 @@ public class SegwitAddressUtil {
      * @return
      */
     public static String encode(byte[] hrp, byte witnessVersion, byte[] scriptPubKey) {
-        byte[] scriptBits = convertBits(scriptPubKey, 8, 5, true);
+        char[] hrpChars = new char[hrp.length];
+        for (int i = 0; i < hrp.length; i++) {
+            hrpChars[i] = (char) (hrp[i] & 0XFF);
+        }
+        return encode(new String(hrpChars), witnessVersion, scriptPubKey);
+    }
 
-        byte[] data = new byte[scriptBits.length + 1];
-        data[0] = witnessVersion;
-        System.arraycopy(scriptBits, 0, data, 1, scriptBits.length);
+    /**
+     * 使用同一个版本批量编码witness program，所有地址共用同一组临时数组。
+     *
+     * @param hrp
+     * @param witnessVersion
+     * @param programs
+     * @return 与输入顺序相同的地址
+     */
+    public static String[] encode(String hrp, int witnessVersion, List<byte[]> programs) {
+        byte[] data = new byte[1 + convertedLength(40, 8, 5, true)];
+        char[] out = new char[Bech32.MAX_LENGTH];
+        String[] result = new String[programs.size()];
+        for (int i = 0; i < result.length; i++) {
+            byte[] program = programs.get(i);
+            int length = encode(hrp, (byte) witnessVersion, program, 0, program.length, data, out, 0);
+            result[i] = new String(out, 0, length);
+        }
+        return result;
+    }
 
-        return Bech32.encode(hrp, data);
+    /**
+     * 编码到调用方提供的数组中，不分配内存。
+     *
+     * @param hrp
+     * @param witnessVersion： 0到16
+     * @param program
+     * @param offset
+     * @param length
+     * @param out：            剩余空间至少为{@link Bech32#MAX_LENGTH}
+     * @param outOffset
+     * @return 写入out的字符数
+     */
+    public static int encode(CharSequence hrp, int witnessVersion, byte[] program, int offset, int length, char[] out,
+                             int outOffset) {
+        return encode(hrp, (byte) witnessVersion, program, offset, length, SCRATCH.get(), out, outOffset);
+    }
+
+    /**
+     * 编码到调用方提供的数组中。
+     *
+     * @param hrp
+     * @param witnessVersion
+     * @param program
+     * @param offset
+     * @param length
+     * @param data：          5位的值的临时数组，长度至少为1 + ceil(length * 8 / 5)
+     * @param out：           剩余空间至少为{@link Bech32#encodedLength(int, int)}
+     * @param outOffset
+     * @return 写入out的字符数
+     */
+    private static int encode(CharSequence hrp, byte witnessVersion, byte[] program, int offset, int length,
+                              byte[] data, char[] out, int outOffset) {
+        if (witnessVersion < 0 || witnessVersion > 16) {
+            throw new RuntimeException("Invalid witness version!");
+        }
+        if (length < 2 || length > 40) {
+            throw new RuntimeException("Invalid witness length!");
+        }
+        if (witnessVersion == 0 && length != 20 && length != 32) {
+            throw new RuntimeException("Witness version and script length not match!");
+        }
+        if (hrp.length() == 0) {
+            throw new RuntimeException("Bech32 hrp can't be empty!");
+        }
+        data[0] = witnessVersion;
+        int dataLength = 1 + toBase32(program, offset, length, data, 1);
+        if (Bech32.encodedLength(hrp.length(), dataLength) > Bech32.MAX_LENGTH) {
+            throw new RuntimeException("Bech32 String is more than 90!");
+        }
+        HrpRegistry.Entry entry = HrpRegistry.get(hrp);
+        int hrpState = entry != null ? entry.getPolymod() : Bech32.hrpPolymod(hrp, hrp.length());
+        return Bech32.encode(hrp, hrpState, data, 0, dataLength, out, outOffset, checksumConstant(witnessVersion));
     }
 
     public static String decode(String address) {
-        DataPair<byte[], byte[]> dataPair = Bech32.decode(address);
-        byte[] hrp = dataPair.getHrp();
-        byte[] data = dataPair.getData();
+        byte[] program = new byte[40];
+        int result = decode(address, program, 0);
+        return Utils.HEX.encode(Arrays.copyOf(program, result & 0XFF));
+    }
 
-        String hrpStr = new String(hrp).toLowerCase();
-        if (!HRP_MAIN.equals(hrpStr) && !HRP_TEST.equals(hrpStr)) {
+    /**
+     * 解码到调用方提供的数组中，不分配内存。
+     *
+     * @param address
+     * @param programOut： 剩余空间至少为40
+     * @param outOffset
+     * @return (witness版本 << 8) | program长度
+     */
+    public static int decode(CharSequence address, byte[] programOut, int outOffset) {
+        int pos = Bech32.check(address);
+        HrpRegistry.Entry entry = HrpRegistry.get(address, pos);
+        if (entry == null) {
             throw new RuntimeException("Invalid human-readable-part!");
         }
 
-        byte witnessVersion = data[0];
+        byte[] data = SCRATCH.get();
+        int residue = Bech32.residue(address, pos, entry.getPolymod(), data, 0);
+        if (residue != Bech32.BECH32_CONST && residue != Bech32.BECH32M_CONST) {
+            throw new RuntimeException("Bech32 String check fail!");
+        }
+
+        int dataLength = address.length() - pos - 1 - Bech32.CHECKSUM_LENGTH;
+        byte witnessVersion = dataLength > 0 ? data[0] : -1;
         if (witnessVersion < 0 || witnessVersion > 16) {
             throw new RuntimeException("Invalid witness version!");
         }
+        if (residue != checksumConstant(witnessVersion)) {
+            throw new RuntimeException("Witness version and checksum not match!");
+        }
 
-        byte[] scriptBits = convertBits(Arrays.copyOfRange(data, 1, data.length), 5, 8, false);
-        int scriptLength = scriptBits.length;
+        int scriptLength = convertedLength(dataLength - 1, 5, 8, false);
         if (scriptLength < 2 || scriptLength > 40) {
             throw new RuntimeException("Invalid witness length!");
         }
-
-        if (witnessVersion == 0 && scriptBits.length != 20 && scriptBits.length != 32) {
+        if (witnessVersion == 0 && scriptLength != 20 && scriptLength != 32) {
             throw new RuntimeException("Witness version and script length not match!");
         }
-        return Utils.HEX.encode(scriptBits);
+        fromBase32(data, 1, dataLength - 1, programOut, outOffset);
+        return witnessVersion << 8 | scriptLength;
+    }
+
+    /**
+     * 检查地址是否合法，不抛出异常，也不分配内存。
+     *
+     * @param address
+     * @return VALID或INVALID_开头的状态码
+     */
+    public static int validate(CharSequence address) {
+        int pos = Bech32.parse(address);
+        if (pos < 0) {
+            return INVALID_FORMAT;
+        }
+        HrpRegistry.Entry entry = HrpRegistry.get(address, pos);
+        if (entry == null) {
+            return INVALID_HRP;
+        }
+        return checkWitness(address, pos, Bech32.decode(address, pos, entry.getPolymod(), null, 0));
+    }
+
+    /**
+     * 根据数据部分的polymod检查校验方式、witness版本和program。
+     *
+     * @param address： 通过{@link Bech32#parse(CharSequence)}且hrp已注册的地址
+     * @param pos：     分隔符的位置
+     * @param residue： 数据部分的polymod，见{@link Bech32#decode(CharSequence, int, int, byte[], int)}
+     * @return VALID或INVALID_开头的状态码
+     */
+    static int checkWitness(CharSequence address, int pos, int residue) {
+        if (residue == Bech32.BAD_CHARACTER) {
+            return INVALID_FORMAT;
+        }
+        if (residue != Bech32.BECH32_CONST && residue != Bech32.BECH32M_CONST) {
+            return INVALID_CHECKSUM;
+        }
+
+        int length = address.length();
+        int values = length - pos - 1 - Bech32.CHECKSUM_LENGTH;
+        int witnessVersion = values > 0 ? Bech32.valueOf(address.charAt(pos + 1)) : -1;
+        if (witnessVersion < 0 || witnessVersion > 16) {
+            return INVALID_VERSION;
+        }
+        if (residue != checksumConstant(witnessVersion)) {
+            return INVALID_CHECKSUM;
+        }
+
+        // 5位转8位：剩余的填充位不能超过4位且必须为0
+        int bits = (values - 1) * 5;
+        int programLength = bits >>> 3;
+        int padding = bits & 7;
+        if (padding > 4) {
+            return INVALID_PROGRAM;
+        }
+        if (padding > 0 && (Bech32.valueOf(address.charAt(length - Bech32.CHECKSUM_LENGTH - 1))
+                & ((1 << padding) - 1)) != 0) {
+            return INVALID_PROGRAM;
+        }
+        if (programLength < 2 || programLength > 40) {
+            return INVALID_PROGRAM;
+        }
+        if (witnessVersion == 0 && programLength != 20 && programLength != 32) {
+            return INVALID_PROGRAM;
+        }
+        return VALID;
+    }
+
+    public static boolean isValid(CharSequence address) {
+        return validate(address) == VALID;
+    }
+
+    /**
+     * 批量检查地址，v0和v1及以后的地址使用相同的路径。
+     *
+     * @param addresses
+     * @return 与输入顺序相同的状态码
+     */
+    public static int[] validate(List<? extends CharSequence> addresses) {
+        int[] result = new int[addresses.size()];
+        int chunks = (result.length + BULK_CHUNK_SIZE - 1) / BULK_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = chunk * BULK_CHUNK_SIZE;
+            BulkValidator.validate(addresses, from, Math.min(result.length, from + BULK_CHUNK_SIZE), result);
+        });
+        return result;
+    }
+
+    /**
+     * 批量检查使用的实现，如“scalar”或使用Vector API时的“vector(16 x int)”。
+     *
+     * @return
+     */
+    public static String getBulkImplementation() {
+        return BulkValidator.implementation();
+    }
+
+    /**
+     * witness版本对应的校验常量。
+     *
+     * @param witnessVersion
+     * @return
+     */
+    static int checksumConstant(int witnessVersion) {
+        return witnessVersion == 0 ? Bech32.BECH32_CONST : Bech32.BECH32M_CONST;
+    }
+
+    /**
+     * 转换进制后的长度。
+     *
+     * @param length：     输入的个数
+     * @param fromBits
+     * @param toBits
+     * @param isPadding0： 是否补0凑满最后一组
+     * @return
+     */
+    static int convertedLength(int length, int fromBits, int toBits, boolean isPadding0) {
+        long bits = (long) length * fromBits;
+        return (int) (isPadding0 ? (bits + toBits - 1) / toBits : bits / toBits);
     }
 
     /**
@@ -101,38 +379,124 @@ public class SegwitAddressUtil {
      * @param isPadding0
      * @return
      */
-    private static byte[] convertBits(byte[] data, int fromBits, int toBits, boolean isPadding0) {
+    static byte[] convertBits(byte[] data, int fromBits, int toBits, boolean isPadding0) {
+        byte[] result = new byte[convertedLength(data.length, fromBits, toBits, isPadding0)];
+        if (fromBits == 8 && toBits == 5 && isPadding0) {
+            toBase32(data, 0, data.length, result, 0);
+        } else if (fromBits == 5 && toBits == 8 && !isPadding0) {
+            fromBase32(data, 0, data.length, result, 0);
+        } else {
+            convertBits(data, 0, data.length, fromBits, toBits, isPadding0, result, 0);
+        }
+        return result;
+    }
+
+    /**
+     * 转换进制，结果写入调用方提供的数组。
+     *
+     * @param data
+     * @param offset
+     * @param length
+     * @param fromBits
+     * @param toBits
+     * @param isPadding0
+     * @param out：       剩余空间至少为{@link #convertedLength(int, int, int, boolean)}
+     * @param outOffset
+     * @return 写入的个数
+     */
+    static int convertBits(byte[] data, int offset, int length, int fromBits, int toBits, boolean isPadding0,
+                           byte[] out, int outOffset) {
         int acc = 0;
         int bits = 0;
         int maxv = (1 << toBits) - 1;
-        int maxAcc = (1 << (fromBits + toBits - 1)) - 1;
-
-        List<Byte> result = new ArrayList<>();
+        int pos = outOffset;
 
-        for (byte value : data) {
-            short bb = (short)(value & 0XFF);
-            if (bb < 0 || (bb >> fromBits) != 0) {
-                throw new RuntimeException();
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int value = data[i] & 0XFF;
+            if ((value >>> fromBits) != 0) {
+                throw new RuntimeException("Invalid value to convert bits!");
             }
-
-            acc = ((acc << fromBits) | bb) & maxAcc;
+            acc = acc << fromBits | value;
             bits += fromBits;
-
             while (bits >= toBits) {
                 bits -= toBits;
-                result.add((byte)((acc >> bits) & maxv));
+                out[pos++] = (byte) ((acc >>> bits) & maxv);
             }
         }
 
         if (isPadding0) {
             if (bits > 0) {
-                result.add((byte)((acc << (toBits - bits)) & maxv));
+                out[pos++] = (byte) ((acc << (toBits - bits)) & maxv);
             }
-        } else if (bits >= fromBits || (byte)((acc << (toBits - bits)) & maxv) != 0) {
-            throw new RuntimeException();
+        } else if (bits >= fromBits || ((acc << (toBits - bits)) & maxv) != 0) {
+            throw new RuntimeException("Invalid padding to convert bits!");
         }
+        return pos - outOffset;
+    }
 
-        return Bytes.toArray(result);
+    /**
+     * 8位转5位，最后一组补0。每5个字节一次转换为8个值。
+     *
+     * @param data
+     * @param offset
+     * @param length
+     * @param out：       剩余空间至少为ceil(length * 8 / 5)
+     * @param outOffset
+     * @return 写入的个数
+     */
+    static int toBase32(byte[] data, int offset, int length, byte[] out, int outOffset) {
+        int i = offset;
+        int end = offset + length;
+        int pos = outOffset;
+        for (; i + 5 <= end; i += 5) {
+            long group = (data[i] & 0XFFL) << 32 | (data[i + 1] & 0XFFL) << 24 | (data[i + 2] & 0XFF) << 16
+                    | (data[i + 3] & 0XFF) << 8 | (data[i + 4] & 0XFF);
+            out[pos] = (byte) (group >>> 35);
+            out[pos + 1] = (byte) ((group >>> 30) & 31);
+            out[pos + 2] = (byte) ((group >>> 25) & 31);
+            out[pos + 3] = (byte) ((group >>> 20) & 31);
+            out[pos + 4] = (byte) ((group >>> 15) & 31);
+            out[pos + 5] = (byte) ((group >>> 10) & 31);
+            out[pos + 6] = (byte) ((group >>> 5) & 31);
+            out[pos + 7] = (byte) (group & 31);
+            pos += 8;
+        }
+        return pos - outOffset + convertBits(data, i, end - i, 8, 5, true, out, pos);
+    }
+
+    /**
+     * 5位转8位，不允许多余的填充位。每8个值一次转换为5个字节。
+     *
+     * @param data
+     * @param offset
+     * @param length
+     * @param out：       剩余空间至少为floor(length * 5 / 8)
+     * @param outOffset
+     * @return 写入的个数
+     */
+    static int fromBase32(byte[] data, int offset, int length, byte[] out, int outOffset) {
+        int i = offset;
+        int end = offset + length;
+        int pos = outOffset;
+        for (; i + 8 <= end; i += 8) {
+            long group = 0;
+            int check = 0;
+            for (int k = 0; k < 8; k++) {
+                int value = data[i + k];
+                check |= value;
+                group = group << 5 | value;
+            }
+            if ((check & ~31) != 0) {
+                throw new RuntimeException("Invalid value to convert bits!");
+            }
+            out[pos] = (byte) (group >>> 32);
+            out[pos + 1] = (byte) (group >>> 24);
+            out[pos + 2] = (byte) (group >>> 16);
+            out[pos + 3] = (byte) (group >>> 8);
+            out[pos + 4] = (byte) group;
+            pos += 5;
+        }
+        return pos - outOffset + convertBits(data, i, end - i, 5, 8, false, out, pos);
     }
 
     public static void main(String[] args) {
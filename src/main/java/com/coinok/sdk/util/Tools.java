@@ -1,6 +1,8 @@
 package com.coinok.sdk.util;
 
 import com.coinok.sdk.crypto.DigestHash;
+import com.coinok.sdk.header.AddressType;
+import com.coinok.sdk.header.HeadInfo;
 import org.bitcoinj.core.*;
 import org.bitcoinj.script.Script;
 
@@ -147,7 +149,8 @@ public class Tools {
     }
 
     /**
-     * 根据ECKey和网络类型获取对应的地址字符串。
+     * 根据ECKey和网络类型获取对应的P2PKH地址字符串，
+     * 由网络对应的{@link com.coinok.sdk.header.AddressCodec}编码。
      *
      * @param ecKey
      * @param params
@@ -158,8 +161,8 @@ public class Tools {
             throw new IllegalArgumentException("eckey和网络类型两个参数都不能为空！");
         }
 
-        byte[] pubKey = ecKey.getPubKeyHash();
-        return Tools.byteToString((byte) params.getAddressHeader(), pubKey);
+        HeadInfo head = HeadInfo.getInfo(params);
+        return head.getAddressCodec().encode(head, AddressType.P2PKH, ecKey.getPubKeyHash());
     }
 
     /**
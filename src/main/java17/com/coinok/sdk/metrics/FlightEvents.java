@@ -0,0 +1,53 @@
+package com.coinok.sdk.metrics;
+
+/**
+ * 为耗时较长的操作产生JDK Flight Recorder事件，JDK 17及以上使用的版本。
+ * <p>
+ * 事件定义见{@link SdkEvents}。运行时没有jdk.jfr模块时与Java 8的实现相同，什么都不做。
+ * 没有正在进行的记录时，{@link #begin(Operation)}只检查一次事件是否打开，不分配对象。
+ *
+ * @author Jingyu Yang
+ */
+public final class FlightEvents {
+
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private FlightEvents() {
+    }
+
+    /**
+     * 操作开始时调用。
+     *
+     * @param operation
+     * @return 传给{@link #end(Object, Operation, long)}的事件，没有记录时为null
+     */
+    public static Object begin(Operation operation) {
+        return AVAILABLE ? SdkEvents.begin(operation) : null;
+    }
+
+    /**
+     * 操作成功完成时调用，耗时超过阈值的才会写入记录。
+     *
+     * @param event：     {@link #begin(Operation)}的返回值
+     * @param operation
+     * @param inputSize： 输入大小，含义见各事件的说明
+     */
+    public static void end(Object event, Operation operation, long inputSize) {
+        if (event != null) {
+            SdkEvents.end(event, operation, inputSize);
+        }
+    }
+
+    /**
+     * Base58Check解码失败：非法字符、长度或校验位错误。
+     *
+     * @param operation： 解码时所在的操作
+     * @param inputSize： 字符串长度
+     * @param message：   固定的失败原因，如character、length或checksum；输入可能是私钥，不能包含其中的字符或位置
+     */
+    public static void base58Failure(Operation operation, long inputSize, String message) {
+        if (AVAILABLE) {
+            SdkEvents.base58Failure(operation, inputSize, message);
+        }
+    }
+}
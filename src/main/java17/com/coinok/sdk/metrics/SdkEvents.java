@@ -0,0 +1,123 @@
+package com.coinok.sdk.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * SDK的JFR事件，只有{@link FlightEvents}确认jdk.jfr模块存在后才会加载。
+ * <p>
+ * 计时事件都有默认阈值，耗时低于阈值的调用不会写入记录，可以在.jfc配置中按事件名称修改，例如：
+ * jcmd &lt;pid&gt; JFR.start com.coinok.sdk.Scrypt#threshold=0ms。
+ *
+ * @author Jingyu Yang
+ */
+final class SdkEvents {
+
+    /**
+     * 每种事件一个不提交的实例，只用于检查事件是否打开（Event.isEnabled()只读取类的状态）。
+     */
+    private static final OperationEvent[] PROBES = new OperationEvent[Operation.values().length];
+
+    private static final Base58FailureEvent FAILURE_PROBE = new Base58FailureEvent();
+
+    static {
+        PROBES[Operation.SCRYPT.ordinal()] = new ScryptEvent();
+        PROBES[Operation.AES_KEY_DERIVE.ordinal()] = new AesKeyEvent();
+        PROBES[Operation.BIP32_BULK_DERIVE.ordinal()] = new BulkDeriveEvent();
+    }
+
+    private SdkEvents() {
+    }
+
+    static Object begin(Operation operation) {
+        OperationEvent probe = PROBES[operation.ordinal()];
+        if (probe == null || !probe.isEnabled()) {
+            return null;
+        }
+        OperationEvent event;
+        switch (operation) {
+            case SCRYPT:
+                event = new ScryptEvent();
+                break;
+            case AES_KEY_DERIVE:
+                event = new AesKeyEvent();
+                break;
+            default:
+                event = new BulkDeriveEvent();
+                break;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void end(Object token, Operation operation, long inputSize) {
+        OperationEvent event = (OperationEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation.name();
+            event.inputSize = inputSize;
+            event.commit();
+        }
+    }
+
+    static void base58Failure(Operation operation, long inputSize, String message) {
+        if (FAILURE_PROBE.isEnabled()) {
+            Base58FailureEvent event = new Base58FailureEvent();
+            event.operation = operation.name();
+            event.inputSize = inputSize;
+            event.message = message;
+            event.commit();
+        }
+    }
+
+    @Category("CoinOK SDK")
+    abstract static class OperationEvent extends Event {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Input Size")
+        long inputSize;
+    }
+
+    @Name("com.coinok.sdk.Scrypt")
+    @Label("Scrypt")
+    @Description("scrypt key derivation; input size is the mixed memory 128 * r * N * p in bytes")
+    @Threshold("10 ms")
+    static final class ScryptEvent extends OperationEvent {
+    }
+
+    @Name("com.coinok.sdk.AesKey")
+    @Label("AES Key Derivation")
+    @Description("AES key generated from a password; input size is the password length in bytes")
+    @Threshold("1 ms")
+    static final class AesKeyEvent extends OperationEvent {
+    }
+
+    @Name("com.coinok.sdk.Bip32BulkDerive")
+    @Label("BIP32 Bulk Derivation")
+    @Description("Parallel derivation of a range of child nodes; input size is the number of children")
+    @Threshold("10 ms")
+    static final class BulkDeriveEvent extends OperationEvent {
+    }
+
+    @Name("com.coinok.sdk.Base58Failure")
+    @Label("Base58 Decode Failure")
+    @Description("Invalid Base58Check string: bad character, length or checksum")
+    @Category("CoinOK SDK")
+    static final class Base58FailureEvent extends Event {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Input Size")
+        long inputSize;
+
+        @Label("Message")
+        String message;
+    }
+}
@@ -0,0 +1,42 @@
+package com.coinok.sdk.segwit;
+
+import java.util.List;
+
+/**
+ * 批量检查隔离见证地址，JDK 17及以上使用的版本。
+ * <p>
+ * 启动时加入了jdk.incubator.vector模块（--add-modules jdk.incubator.vector）时使用{@link VectorBulkValidator}，
+ * 否则与Java 8的实现相同。设置系统属性com.coinok.sdk.segwit.vector=false可以强制使用标量实现。
+ *
+ * @author Jingyu Yang
+ */
+final class BulkValidator {
+
+    private static final boolean VECTOR = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && Boolean.parseBoolean(System.getProperty("com.coinok.sdk.segwit.vector", "true"));
+
+    private BulkValidator() {
+    }
+
+    static String implementation() {
+        return VECTOR ? VectorBulkValidator.description() : "scalar";
+    }
+
+    /**
+     * 检查addresses的[from, to)部分，结果写入out的相同位置。
+     *
+     * @param addresses
+     * @param from
+     * @param to
+     * @param out
+     */
+    static void validate(List<? extends CharSequence> addresses, int from, int to, int[] out) {
+        if (VECTOR) {
+            VectorBulkValidator.validate(addresses, from, to, out);
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            out[i] = SegwitAddressUtil.validate(addresses.get(i));
+        }
+    }
+}
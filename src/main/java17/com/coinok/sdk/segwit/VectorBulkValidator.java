@@ -0,0 +1,198 @@
+package com.coinok.sdk.segwit;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 使用Vector API批量检查隔离见证地址。
+ * <ul>
+ * <li>字符检查：每个地址按向量宽度一次检查多个字符的范围、大小写，并找到分隔符；</li>
+ * <li>polymod：按hrp的polymod和数据长度分组，每个lane计算一个地址，同一组的地址同时推进。</li>
+ * </ul>
+ * hrp查找和witness版本、program的检查与标量实现相同。
+ *
+ * @author Jingyu Yang
+ */
+final class VectorBulkValidator {
+
+    private static final VectorSpecies<Short> CHARS = ShortVector.SPECIES_PREFERRED;
+
+    private static final VectorSpecies<Integer> LANES = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * 每次处理的地址数，分组用的key中序号占16位。
+     */
+    private static final int BLOCK_SIZE = 4096;
+
+    private static final int[] DECODE_TABLE = new int[128];
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    static {
+        for (int i = 0; i < DECODE_TABLE.length; i++) {
+            DECODE_TABLE[i] = Bech32.valueOf((char) i);
+        }
+    }
+
+    private VectorBulkValidator() {
+    }
+
+    static String description() {
+        return "vector(" + LANES.length() + " x int)";
+    }
+
+    static void validate(List<? extends CharSequence> addresses, int from, int to, int[] out) {
+        Scratch scratch = SCRATCH.get();
+        for (int start = from; start < to; start += BLOCK_SIZE) {
+            validateBlock(addresses, start, Math.min(to, start + BLOCK_SIZE), out, scratch);
+        }
+    }
+
+    private static void validateBlock(List<? extends CharSequence> addresses, int from, int to, int[] out,
+                                      Scratch scratch) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            CharSequence address = addresses.get(i);
+            int length = address == null ? 0 : address.length();
+            if (length < 8 || length > Bech32.MAX_LENGTH) {
+                out[i] = SegwitAddressUtil.INVALID_FORMAT;
+                continue;
+            }
+
+            int k = i - from;
+            int offset = k * Bech32.MAX_LENGTH;
+            if (address instanceof String) {
+                ((String) address).getChars(0, length, scratch.chars, offset);
+            } else {
+                for (int j = 0; j < length; j++) {
+                    scratch.chars[offset + j] = address.charAt(j);
+                }
+            }
+
+            int pos = parse(scratch.chars, offset, length);
+            if (pos < 0) {
+                out[i] = SegwitAddressUtil.INVALID_FORMAT;
+                continue;
+            }
+            HrpRegistry.Entry entry = HrpRegistry.get(address, pos);
+            if (entry == null) {
+                out[i] = SegwitAddressUtil.INVALID_HRP;
+                continue;
+            }
+            scratch.pos[k] = pos;
+            long dataLength = length - pos - 1;
+            scratch.keys[count++] = (long) entry.getPolymod() << 32 | dataLength << 16 | k;
+        }
+
+        // hrp的polymod和数据长度相同的地址排在一起
+        Arrays.sort(scratch.keys, 0, count);
+        int lanes = LANES.length();
+        for (int start = 0; start < count; ) {
+            long group = scratch.keys[start] >>> 16;
+            int end = start + 1;
+            while (end < count && scratch.keys[end] >>> 16 == group) {
+                end++;
+            }
+            for (int g = start; g < end; g += lanes) {
+                polymod(addresses, from, g, Math.min(end, g + lanes), out, scratch);
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * 检查长度以外的格式：字符范围、大小写、分隔符。
+     *
+     * @return 分隔符的位置，不合法时返回-1
+     */
+    private static int parse(char[] chars, int offset, int length) {
+        boolean lower = false;
+        boolean upper = false;
+        int pos = -1;
+        for (int i = 0; i < length; i += CHARS.length()) {
+            VectorMask<Short> m = CHARS.indexInRange(i, length);
+            ShortVector c = ShortVector.fromCharArray(CHARS, chars, offset + i, m);
+            if (c.compare(VectorOperators.LT, (short) 0X21, m)
+                    .or(c.compare(VectorOperators.GT, (short) 0X7e, m)).anyTrue()) {
+                return -1;
+            }
+            lower |= c.compare(VectorOperators.GE, (short) 'a', m)
+                    .and(c.compare(VectorOperators.LE, (short) 'z')).anyTrue();
+            upper |= c.compare(VectorOperators.GE, (short) 'A', m)
+                    .and(c.compare(VectorOperators.LE, (short) 'Z')).anyTrue();
+            VectorMask<Short> separator = c.compare(VectorOperators.EQ, (short) '1', m);
+            if (separator.anyTrue()) {
+                pos = i + separator.lastTrue();
+            }
+        }
+        if ((lower && upper) || pos <= 0 || pos + 7 > length) {
+            return -1;
+        }
+        return pos;
+    }
+
+    /**
+     * 同时计算keys[from, to)对应地址数据部分的polymod，不足一个向量时用最后一个地址补齐。
+     */
+    private static void polymod(List<? extends CharSequence> addresses, int base, int from, int to, int[] out,
+                                Scratch scratch) {
+        int lanes = LANES.length();
+        int dataLength = (int) (scratch.keys[from] >>> 16 & 0XFFFF);
+        int[] values = scratch.values;
+
+        // 转置：values[j * lanes + l]为第l个地址数据部分的第j个值
+        for (int l = 0; l < lanes; l++) {
+            int k = (int) (scratch.keys[Math.min(from + l, to - 1)] & 0XFFFF);
+            scratch.lane[l] = k;
+            int offset = k * Bech32.MAX_LENGTH + scratch.pos[k] + 1;
+            for (int j = 0, v = l; j < dataLength; j++, v += lanes) {
+                values[v] = DECODE_TABLE[scratch.chars[offset + j]];
+            }
+        }
+
+        IntVector chk = IntVector.broadcast(LANES, (int) (scratch.keys[from] >>> 32));
+        VectorMask<Integer> bad = LANES.maskAll(false);
+        for (int j = 0, v = 0; j < dataLength; j++, v += lanes) {
+            IntVector value = IntVector.fromArray(LANES, values, v);
+            bad = bad.or(value.compare(VectorOperators.LT, 0));
+            IntVector top = chk.lanewise(VectorOperators.LSHR, 25);
+            chk = chk.and(0X1ffffff).lanewise(VectorOperators.LSHL, 5).lanewise(VectorOperators.XOR, value);
+            chk = chk.lanewise(VectorOperators.XOR, top.and(1).neg().and(0x3b6a57b2));
+            chk = chk.lanewise(VectorOperators.XOR, top.lanewise(VectorOperators.LSHR, 1).and(1).neg().and(0x26508e6d));
+            chk = chk.lanewise(VectorOperators.XOR, top.lanewise(VectorOperators.LSHR, 2).and(1).neg().and(0x1ea119fa));
+            chk = chk.lanewise(VectorOperators.XOR, top.lanewise(VectorOperators.LSHR, 3).and(1).neg().and(0x3d4233dd));
+            chk = chk.lanewise(VectorOperators.XOR, top.lanewise(VectorOperators.LSHR, 4).and(1).neg().and(0x2a1462b3));
+        }
+        chk.blend(Bech32.BAD_CHARACTER, bad).intoArray(scratch.residue, 0);
+
+        for (int l = 0; l < to - from; l++) {
+            int k = scratch.lane[l];
+            int i = base + k;
+            out[i] = SegwitAddressUtil.checkWitness(addresses.get(i), scratch.pos[k], scratch.residue[l]);
+        }
+    }
+
+    /**
+     * 每个线程重复使用的工作数组。
+     */
+    private static final class Scratch {
+
+        private final char[] chars = new char[BLOCK_SIZE * Bech32.MAX_LENGTH + CHARS.length()];
+
+        private final int[] pos = new int[BLOCK_SIZE];
+
+        private final long[] keys = new long[BLOCK_SIZE];
+
+        private final int[] values = new int[Bech32.MAX_LENGTH * LANES.length()];
+
+        private final int[] lane = new int[LANES.length()];
+
+        private final int[] residue = new int[LANES.length()];
+    }
+}
@@ -0,0 +1,209 @@
+package com.coinok.sdk;
+
+import com.coinok.sdk.bip.Bip32Node;
+import com.coinok.sdk.core.KeyGenerator;
+import com.coinok.sdk.core.MultiSignAddressGenerator;
+import com.coinok.sdk.crypto.AES;
+import com.coinok.sdk.crypto.DigestHash;
+import com.coinok.sdk.header.AddressType;
+import com.coinok.sdk.header.BitcoinAddressCodec;
+import com.coinok.sdk.header.HeadInfo;
+import com.coinok.sdk.metrics.Metrics;
+import com.coinok.sdk.metrics.Operation;
+import com.coinok.sdk.segwit.Bech32;
+import com.coinok.sdk.segwit.SegwitAddressUtil;
+import com.coinok.sdk.util.Tools;
+import org.bitcoinj.core.Base58;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.params.MainNetParams;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 热点方法每次调用分配的内存（字节），超过预算时抛出异常。
+ * <p>
+ * 使用ThreadMXBean.getThreadAllocatedBytes统计当前线程的分配量，先预热让JIT完成逃逸分析，
+ * 再减去空操作的测量开销。预算按当前实现在JDK 17上的测量值留出约25%的余量，预算为0的方法不允许分配；
+ * 优化后数值明显下降时，应同时调低预算。EC运算的开销主要来自bitcoinj和BouncyCastle。
+ * 需要在HotSpot上运行，加上参数report只输出测量值、不检查预算。
+ */
+public class AllocationBudgetTest {
+
+    private static final com.sun.management.ThreadMXBean BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final NetworkParameters PARAMS = MainNetParams.get();
+
+    /**
+     * 每次调用允许超出的字节数，容纳测量期间偶发的一次性分配（如ThreadLocal初始化）。
+     */
+    private static final double TOLERANCE = 1;
+
+    private static final List<String> FAILURES = new ArrayList<>();
+
+    private static boolean report;
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        report = args.length > 0 && "report".equals(args[0]);
+        if (!BEAN.isThreadAllocatedMemorySupported()) {
+            System.out.println("当前JVM不支持统计线程分配的内存，跳过。");
+            return;
+        }
+        BEAN.setThreadAllocatedMemoryEnabled(true);
+        Metrics.disable();
+
+        bip32();
+        keys();
+        segwit();
+        digests();
+        metrics();
+
+        if (!FAILURES.isEmpty()) {
+            throw new RuntimeException("超出内存预算：" + FAILURES);
+        }
+        System.out.println("all within budget");
+    }
+
+    private static void bip32() {
+        byte[] seed = new byte[64];
+        Arrays.fill(seed, (byte) 1);
+        Bip32Node master = Bip32Node.getMasterKey(seed);
+        Bip32Node publicOnly = Bip32Node.decode(master.pubSerialize(Bip32Node.TYPE_BITCOIN, true));
+        String xprv = master.privSerialize(Bip32Node.TYPE_BITCOIN, true);
+        int hardened = Bip32Node.getHSeq(0);
+
+        check("Bip32Node.getMasterKey", 122000, 2000, () -> Bip32Node.getMasterKey(seed));
+        check("Bip32Node.getChildNode", 124000, 2000, () -> Bip32Node.getChildNode(master, 0));
+        check("Bip32Node.getChildNode(hardened)", 123000, 2000, () -> Bip32Node.getChildNode(master, hardened));
+        check("Bip32Node.getChildNode(public)", 183000, 2000, () -> Bip32Node.getChildNode(publicOnly, 0));
+        check("Bip32Node.decode", 121000, 2000, () -> Bip32Node.decode(xprv));
+        check("Bip32Node.privSerialize", 1700, 20000, () -> master.privSerialize(Bip32Node.TYPE_BITCOIN, true));
+        check("Bip32Node.pubSerialize", 1850, 20000, () -> master.pubSerialize(Bip32Node.TYPE_BITCOIN, true));
+    }
+
+    private static void keys() {
+        ECKey key = ECKey.fromPrivate(BigInteger.valueOf(123456789));
+        KeyGenerator generator = new KeyGenerator(key, true);
+        String wif = generator.getPrivateKeyWif(PARAMS);
+        byte[] hash = key.getPubKeyHash();
+        byte[] checked = Base58.decode(Tools.byteToString((byte) 0, hash));
+        MultiSignAddressGenerator multiSign = new MultiSignAddressGenerator();
+        for (int i = 2; i <= 4; i++) {
+            multiSign.addECKey(ECKey.fromPublicOnly(ECKey.fromPrivate(BigInteger.valueOf(i)).getPubKey()));
+        }
+        HeadInfo head = HeadInfo.btcMain();
+        char[] chars = new char[BitcoinAddressCodec.MAX_LENGTH];
+        byte[] hashOut = new byte[32];
+        String address = generator.getAddressStr(PARAMS);
+
+        check("KeyGenerator.fromPrivateKeyWif", 120000, 2000, () -> KeyGenerator.fromPrivateKeyWif(wif));
+        check("KeyGenerator.getPrivateKeyWif", 1200, 20000, () -> generator.getPrivateKeyWif(PARAMS));
+        check("KeyGenerator.getAddressStr", 820, 20000, () -> generator.getAddressStr(PARAMS));
+        check("Tools.byteToString", 820, 20000, () -> Tools.byteToString((byte) 0, hash));
+        check("Tools.check", 500, 20000, () -> Tools.check(checked));
+        check("MultiSignAddressGenerator.generateAddress", 4400, 5000,
+                () -> multiSign.generateAddress(PARAMS, 2));
+        check("AddressCodec.encode(buffer)", 0, 50000,
+                () -> BitcoinAddressCodec.INSTANCE.encode(head, AddressType.P2PKH, hash, 0, chars, 0));
+        check("AddressCodec.decode(buffer)", 0, 50000,
+                () -> BitcoinAddressCodec.INSTANCE.decode(head, address, hashOut, 0));
+        check("HeadInfo.getInfoByByte", 0, 50000, () -> HeadInfo.getInfoByByte((byte) 0x80));
+    }
+
+    private static void segwit() {
+        String p2wpkh = "bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kv8f3t4";
+        byte[] program = new byte[20];
+        Arrays.fill(program, (byte) 7);
+        char[] chars = new char[Bech32.MAX_LENGTH];
+        byte[] out = new byte[Bech32.MAX_LENGTH];
+        List<String> batch = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            batch.add(p2wpkh);
+        }
+
+        check("SegwitAddressUtil.encode", 320, 50000, () -> SegwitAddressUtil.encode("bc", 0, program));
+        check("SegwitAddressUtil.encode(buffer)", 0, 50000,
+                () -> SegwitAddressUtil.encode("bc", 0, program, 0, 20, chars, 0));
+        check("SegwitAddressUtil.decode", 320, 50000, () -> SegwitAddressUtil.decode(p2wpkh));
+        check("SegwitAddressUtil.decode(buffer)", 0, 50000, () -> SegwitAddressUtil.decode(p2wpkh, out, 0));
+        check("SegwitAddressUtil.validate", 0, 50000, () -> SegwitAddressUtil.validate(p2wpkh));
+        check("SegwitAddressUtil.validate(List x64)", 560, 5000, () -> SegwitAddressUtil.validate(batch));
+        check("Bech32.decode(buffer)", 0, 50000, () -> Bech32.decode(p2wpkh, out, 0, Bech32.BECH32_CONST));
+    }
+
+    private static void digests() throws Exception {
+        byte[] data = new byte[64];
+        byte[] key = new byte[32];
+        byte[] plain = new byte[1024];
+        byte[] encrypted = AES.encryptGcm(plain, key);
+
+        check("DigestHash.sha256", 330, 50000, () -> DigestHash.sha256(data));
+        check("DigestHash.sha256X2", 390, 50000, () -> DigestHash.sha256X2(data));
+        check("DigestHash.hash160", 250, 50000, () -> DigestHash.hash160(data));
+        check("Tools.hmacSha512", 1400, 20000, () -> Tools.hmacSha512(data, key));
+        check("AES.encryptGcm(1KB)", 6700, 5000, () -> AES.encryptGcm(plain, key));
+        check("AES.decryptGcm(1KB)", 6300, 5000, () -> AES.decryptGcm(encrypted, key));
+    }
+
+    /**
+     * 打开统计后，记录本身不应该分配内存。
+     */
+    private static void metrics() {
+        Metrics.enable();
+        try {
+            check("Metrics.record", 0, 50000, () -> {
+                Metrics.record(Operation.DIGEST_SHA, Metrics.start());
+                return null;
+            });
+        } finally {
+            Metrics.disable();
+        }
+    }
+
+    /**
+     * 测量operation每次调用分配的字节数，超过budget时记入失败。
+     *
+     * @param name
+     * @param budget：     每次调用的预算（字节）
+     * @param rounds：     测量次数，预热次数为其2倍
+     * @param operation
+     */
+    private static void check(String name, long budget, int rounds, Operation0 operation) {
+        try {
+            for (int i = 0; i < 2 * rounds; i++) {
+                sink = operation.run();
+            }
+            long overhead = measure(rounds, () -> null);
+            long allocated = Math.max(0, measure(rounds, operation) - overhead);
+            double perCall = (double) allocated / rounds;
+            boolean over = !report && perCall > budget + TOLERANCE;
+            System.out.printf("%-44s %10.1f B/op  budget %6d%s%n", name, perCall, budget, over ? "  OVER" : "");
+            if (over) {
+                FAILURES.add(name);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(name, e);
+        }
+    }
+
+    private static long measure(int rounds, Operation0 operation) throws Exception {
+        long threadId = Thread.currentThread().getId();
+        long allocated = BEAN.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < rounds; i++) {
+            sink = operation.run();
+        }
+        return BEAN.getThreadAllocatedBytes(threadId) - allocated;
+    }
+
+    private interface Operation0 {
+
+        Object run() throws Exception;
+    }
+}
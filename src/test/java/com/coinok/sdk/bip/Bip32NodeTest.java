@@ -1,6 +1,13 @@
 package com.coinok.sdk.bip;
 
+import com.coinok.sdk.header.AddressType;
+import com.coinok.sdk.header.HeadInfo;
 import org.bitcoinj.core.Utils;
+import org.bitcoinj.crypto.MnemonicCode;
+import org.bitcoinj.params.MainNetParams;
+import org.bitcoinj.params.TestNet3Params;
+
+import java.util.Arrays;
 
 public class Bip32NodeTest {
 
@@ -8,6 +15,7 @@ public class Bip32NodeTest {
         Bip32NodeTest test = new Bip32NodeTest();
         test.testVectors1();
         test.testVectors2();
+        test.segwitAddress();
     }
 
     /**
@@ -115,4 +123,30 @@ public class Bip32NodeTest {
         System.out.println(subSubNode222.privSerialize(Bip32Node.TYPE_BITCOIN, true));
         System.out.println(subSubNode222.pubSerialize(Bip32Node.TYPE_BITCOIN, true));
     }
+
+    /**
+     * BIP84和BIP49的示例：助记词为11个abandon加about。
+     */
+    public void segwitAddress() throws Exception {
+        byte[] seed = MnemonicCode.toSeed(Arrays.asList(("abandon abandon abandon abandon abandon abandon "
+                + "abandon abandon abandon abandon abandon about").split(" ")), "");
+        Bip32Node master = Bip32Node.getMasterKey(seed);
+
+        // m/84H/0H/0H/0/0：bc1qcr8te4kr609gcawutmrza0j4xv80jy8z306fyu
+        Bip32Node account84 = master.getChildH(84).getChildH(0).getChildH(0);
+        System.out.println(account84.getChild(0).getChild(0).getP2wpkhAddress(MainNetParams.get()));
+
+        // 只用公钥批量生成收款地址
+        Bip32Node receive84 = Bip32Node.decode(account84.getChild(0).pubSerialize(Bip32Node.TYPE_BITCOIN, true));
+        System.out.println(receive84.getP2wpkhAddresses(0, 2, MainNetParams.get()));
+
+        // m/49H/1H/0H/0/0：2Mww8dCYPUpKHofjgcXcBCEGmniw9CoaiD2
+        Bip32Node account49 = master.getChildH(49).getChildH(1).getChildH(0);
+        System.out.println(account49.getChild(0).getChild(0).getP2shP2wpkhAddress(TestNet3Params.get()));
+        System.out.println(account49.getChild(0).getP2shP2wpkhAddresses(0, 2, TestNet3Params.get()));
+
+        // 通过HeadInfo对应的AddressCodec生成相同的地址
+        System.out.println(account84.getChild(0).getChild(0).getAddress(HeadInfo.btcMain(), AddressType.P2WPKH));
+        System.out.println(account49.getChild(0).getChild(0).getAddress(HeadInfo.btcTest(), AddressType.P2SH));
+    }
 }
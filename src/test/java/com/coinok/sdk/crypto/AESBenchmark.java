@@ -0,0 +1,86 @@
+package com.coinok.sdk.crypto;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Provider;
+import java.security.Security;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Random;
+
+/**
+ * 比较BouncyCastle和SunJCE在CBC、GCM模式下的加密吞吐量。
+ */
+public class AESBenchmark {
+
+    private static final int[] SIZES = {1024, 64 * 1024, 1024 * 1024, 16 * 1024 * 1024, 64 * 1024 * 1024};
+
+    /**
+     * 每个数据大小至少处理的总字节数，保证小数据也有足够的循环次数。
+     */
+    private static final long MIN_BYTES = 256L * 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        Provider bc = Security.getProvider(BouncyCastleProvider.PROVIDER_NAME);
+        Provider jdk = Security.getProvider("SunJCE");
+
+        byte[] key = new byte[32];
+        new Random(1).nextBytes(key);
+
+        // 先用小数据预热，保证大数据测试时相关方法已经被JIT编译。
+        byte[] warm = new byte[64 * 1024];
+        encrypt(bc, "AES/CBC/PKCS7Padding", new IvParameterSpec(new byte[16]), key, warm, 2000);
+        encrypt(jdk, "AES/CBC/PKCS5Padding", new IvParameterSpec(new byte[16]), key, warm, 2000);
+        encrypt(bc, AES.GCM_ALGORITHM, null, key, warm, 2000);
+        encrypt(jdk, AES.GCM_ALGORITHM, null, key, warm, 2000);
+
+        System.out.printf("%-8s %-12s %10s %12s%n", "mode", "provider", "size", "MB/s");
+        for (int size : SIZES) {
+            byte[] data = new byte[size];
+            new Random(size).nextBytes(data);
+
+            run("CBC", "BC", bc, "AES/CBC/PKCS7Padding", new IvParameterSpec(new byte[16]), key, data);
+            run("CBC", "SunJCE", jdk, "AES/CBC/PKCS5Padding", new IvParameterSpec(new byte[16]), key, data);
+            run("GCM", "BC", bc, AES.GCM_ALGORITHM, null, key, data);
+            run("GCM", "SunJCE", jdk, AES.GCM_ALGORITHM, null, key, data);
+        }
+    }
+
+    private static void run(String mode, String name, Provider provider, String algorithm,
+                            AlgorithmParameterSpec spec, byte[] key, byte[] data) throws Exception {
+        int rounds = (int) Math.max(3, MIN_BYTES / data.length);
+        // 预热
+        encrypt(provider, algorithm, spec, key, data, Math.max(1, rounds / 4));
+
+        long start = System.nanoTime();
+        encrypt(provider, algorithm, spec, key, data, rounds);
+        long cost = System.nanoTime() - start;
+
+        double mbPerSecond = (double) data.length * rounds / (1024 * 1024) / (cost / 1e9);
+        System.out.printf("%-8s %-12s %10d %12.1f%n", mode, name, data.length, mbPerSecond);
+    }
+
+    private static void encrypt(Provider provider, String algorithm, AlgorithmParameterSpec spec, byte[] key,
+                                byte[] data, int rounds) throws Exception {
+        SecretKeySpec keySpec = new SecretKeySpec(key, "AES");
+        Cipher cipher = Cipher.getInstance(algorithm, provider);
+        byte[] output = new byte[data.length + 32];
+        byte[] iv = new byte[AES.GCM_IV_SIZE];
+        for (int i = 0; i < rounds; i++) {
+            if (spec == null) {
+                // GCM不允许同一个key重复使用iv。
+                iv[0] = (byte) i;
+                iv[1] = (byte) (i >>> 8);
+                iv[2] = (byte) (i >>> 16);
+                cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(AES.GCM_TAG_LENGTH, iv));
+            } else {
+                cipher.init(Cipher.ENCRYPT_MODE, keySpec, spec);
+            }
+            cipher.doFinal(data, 0, data.length, output, 0);
+        }
+    }
+}
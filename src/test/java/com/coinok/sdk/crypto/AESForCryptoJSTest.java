@@ -4,6 +4,11 @@ import com.coinok.sdk.core.KeyGenerator;
 import org.bitcoinj.core.NetworkParameters;
 import org.bitcoinj.params.MainNetParams;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
 public class AESForCryptoJSTest {
 
     public static void main(String[] args) throws Exception {
@@ -14,10 +19,59 @@ public class AESForCryptoJSTest {
         String result = AESForCryptoJS.decrypt(str, pwd);
         System.out.println(result);
 
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AESForCryptoJS.decrypt(new ByteArrayInputStream(str.getBytes()), out, pwd);
+        System.out.println("流式解密结果一致： " + result.equals(out.toString()));
+
+        out.reset();
+        AESForCryptoJS.encryptToBase64(new ByteArrayInputStream(result.getBytes()), out, pwd);
+        if (!result.equals(AESForCryptoJS.decrypt(out.toString(), pwd))) {
+            throw new RuntimeException("流式加密的结果解密后不一致！");
+        }
+        System.out.println("流式加密后解密一致： true");
+
+        bulkDecrypt(pwd);
+
 
 //        encryptByWIF();
     }
 
+    /**
+     * 批量解密与逐条解密的结果相同；重复的密文盐相同，会使用缓存的key和iv。结果不一致时抛出异常。
+     */
+    public static void bulkDecrypt(String pwd) throws Exception {
+        List<String> plains = new ArrayList<>();
+        List<String> encrypted = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            plains.add("data-" + i);
+            encrypted.add(AESForCryptoJS.encryptToBase64("data-" + i, pwd));
+        }
+        for (int i = 0; i < 100; i++) {
+            plains.add(plains.get(i % 10));
+            encrypted.add(encrypted.get(i % 10));
+        }
+        plains.add(null);
+        encrypted.add("U2FsdGVk");
+
+        List<AESForCryptoJS.DecryptResult> results = AESForCryptoJS.decrypt(encrypted, pwd);
+        for (AESForCryptoJS.DecryptResult result : results) {
+            int i = result.getIndex();
+            if (plains.get(i) == null) {
+                if (result.isSuccess()) {
+                    throw new RuntimeException("第" + i + "条数据应当解密失败！");
+                }
+            } else if (!plains.get(i).equals(result.getData())
+                    || !plains.get(i).equals(AESForCryptoJS.decrypt(encrypted.get(i), pwd))) {
+                throw new RuntimeException("第" + i + "条数据解密结果不一致！");
+            }
+        }
+        // 第二次调用不能使用上一次清零后的key和iv
+        if (!plains.get(0).equals(AESForCryptoJS.decrypt(encrypted, pwd).get(0).getData())) {
+            throw new RuntimeException("再次批量解密结果不一致！");
+        }
+        System.out.println("批量解密" + results.size() + "条结果一致");
+    }
+
     /**
      * 使用私钥加解密私钥的测试。
      */
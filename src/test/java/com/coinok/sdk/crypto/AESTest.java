@@ -0,0 +1,146 @@
+package com.coinok.sdk.crypto;
+
+import org.bouncycastle.util.encoders.Base64;
+
+import javax.crypto.BadPaddingException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 流式、FileChannel和并行解密接口的结果必须与byte[]接口完全相同，不一致时抛出异常。
+ */
+public class AESTest {
+
+    public static void main(String[] args) throws Exception {
+        // 单核机器上公共线程池只有1个线程，并行解密最多分2段；需要在第一次使用线程池之前设置
+        System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "3");
+
+        // 跨越多个流式分块，并且不是16的整数倍
+        byte[] data = new byte[3 * AES.BUFFER_SIZE + 5];
+        new Random(26).nextBytes(data);
+        byte[] password = "TestingOneTwoThree".getBytes();
+
+        streams(data, password, 128);
+        streams(data, password, 256);
+        channels(data, AES.randomByte(password, 16));
+        channels(data, AES.randomByte(password, 32));
+        parallel(password);
+    }
+
+    /**
+     * 以密码加解密的流式接口。
+     */
+    public static void streams(byte[] data, byte[] password, int size) throws Exception {
+        byte[] encrypted = size == 128 ? AES.encrypt128(data, password) : AES.encrypt256(data, password);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (size == 128) {
+            AES.encrypt128(new ByteArrayInputStream(data), out, password);
+        } else {
+            AES.encrypt256(new ByteArrayInputStream(data), out, password);
+        }
+        check(size + "位流式加密与byte[]一致", Arrays.equals(encrypted, out.toByteArray()));
+
+        byte[] base64 = Base64.encode(encrypted);
+        byte[] decrypted = size == 128 ? AES.decrypt128(base64, password) : AES.decrypt256(base64, password);
+        check(size + "位byte[]解密", Arrays.equals(data, decrypted));
+
+        out.reset();
+        if (size == 128) {
+            AES.decrypt128(new ByteArrayInputStream(base64), out, password);
+        } else {
+            AES.decrypt256(new ByteArrayInputStream(base64), out, password);
+        }
+        check(size + "位流式解密", Arrays.equals(data, out.toByteArray()));
+    }
+
+    /**
+     * 指定key和向量的流式接口和FileChannel接口。
+     */
+    public static void channels(byte[] data, byte[] key) throws Exception {
+        int size = key.length * 8;
+        byte[] iv = AES.randomByte(key, 16);
+        byte[] encrypted = AES.encrypt(data, key, iv, AES.ALGORITHM);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AES.encrypt(new ByteArrayInputStream(data), out, key, iv, AES.ALGORITHM);
+        check(size + "位key/iv流式加密与byte[]一致", Arrays.equals(encrypted, out.toByteArray()));
+        out.reset();
+        AES.decrypt(new ByteArrayInputStream(encrypted), out, key, iv, AES.ALGORITHM);
+        check(size + "位key/iv流式解密", Arrays.equals(data, out.toByteArray()));
+
+        Path plainFile = Files.createTempFile("aes", ".plain");
+        Path cipherFile = Files.createTempFile("aes", ".enc");
+        Path resultFile = Files.createTempFile("aes", ".dec");
+        try {
+            Files.write(plainFile, data);
+            try (FileChannel in = FileChannel.open(plainFile);
+                 FileChannel channel = FileChannel.open(cipherFile, StandardOpenOption.WRITE)) {
+                long written = AES.encrypt(in, channel, key, iv, AES.ALGORITHM);
+                check(size + "位FileChannel加密长度", written == encrypted.length);
+            }
+            check(size + "位FileChannel加密与byte[]一致", Arrays.equals(encrypted, Files.readAllBytes(cipherFile)));
+
+            try (FileChannel in = FileChannel.open(cipherFile);
+                 FileChannel channel = FileChannel.open(resultFile, StandardOpenOption.WRITE)) {
+                AES.decrypt(in, channel, key, iv, AES.ALGORITHM);
+            }
+            check(size + "位FileChannel解密", Arrays.equals(data, Files.readAllBytes(resultFile)));
+        } finally {
+            Files.delete(plainFile);
+            Files.delete(cipherFile);
+            Files.delete(resultFile);
+        }
+    }
+
+    /**
+     * 超过分段长度的密文分成多段并行解密，结果和异常都与单线程解密相同。
+     */
+    public static void parallel(byte[] password) throws Exception {
+        int segments = ForkJoinPool.getCommonPoolParallelism() + 1;
+        byte[] data = new byte[segments * AES.PARALLEL_SEGMENT_SIZE + 100];
+        new Random(28).nextBytes(data);
+        byte[] key = AES.randomByte(password, 32);
+        byte[] iv = AES.randomByte(key, 16);
+        byte[] encrypted = AES.encrypt(data, key, iv, AES.ALGORITHM);
+        check(segments + "段并行解密", Arrays.equals(data, AES.decryptParallel(encrypted, key, iv)));
+        check(segments + "段并行解密与单线程一致", Arrays.equals(AES.decrypt(encrypted, key, iv, AES.ALGORITHM),
+                AES.decryptParallel(encrypted, key, iv)));
+
+        byte[] base64 = Base64.encode(AES.encrypt256(data, password));
+        check("256位并行解密与单线程一致", Arrays.equals(AES.decrypt256(base64, password),
+                AES.decrypt256Parallel(base64, password)));
+
+        // 破坏最后一个块，两种方式都应当因补码错误抛出BadPaddingException
+        encrypted[encrypted.length - 1] ^= 0x5A;
+        check("单线程解密补码错误", throwsBadPadding(() -> AES.decrypt(encrypted, key, iv, AES.ALGORITHM)));
+        check("并行解密补码错误", throwsBadPadding(() -> AES.decryptParallel(encrypted, key, iv)));
+    }
+
+    private static boolean throwsBadPadding(Decryption decryption) throws Exception {
+        try {
+            decryption.run();
+            return false;
+        } catch (BadPaddingException e) {
+            return true;
+        }
+    }
+
+    private interface Decryption {
+
+        byte[] run() throws Exception;
+    }
+
+    private static void check(String name, boolean ok) {
+        System.out.println(name + "： " + ok);
+        if (!ok) {
+            throw new IllegalStateException(name + "失败！");
+        }
+    }
+}
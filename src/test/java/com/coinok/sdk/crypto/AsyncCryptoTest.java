@@ -0,0 +1,80 @@
+package com.coinok.sdk.crypto;
+
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.params.MainNetParams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncCryptoTest {
+
+    private static final String PRIVATE_KEY = "5KN7MzqK5wt2TP1fQCYyHBtDrXdJuXbUzm4A9rKAteGu3Qi5CVR";
+
+    private static final String PASSPHRASE = "TestingOneTwoThree";
+
+    public static void main(String[] args) throws Exception {
+        defaultTest();
+        cancelTest();
+        loadTest();
+    }
+
+    public static void defaultTest() throws Exception {
+        NetworkParameters param = MainNetParams.get();
+        AsyncCrypto crypto = AsyncCrypto.getDefault();
+
+        String encoded = crypto.encryptToBip38(PRIVATE_KEY, PASSPHRASE).get();
+        System.out.println(encoded);
+        System.out.println(PRIVATE_KEY.equals(crypto.decodeBip38(encoded, PASSPHRASE, param).get()));
+
+        byte[] key = new byte[32];
+        byte[] data = "async".getBytes();
+        byte[] encrypted = crypto.encryptGcm(data, key, null).get();
+        System.out.println(new String(crypto.decryptGcm(encrypted, key, null).get()));
+    }
+
+    /**
+     * 取消和超时后scrypt停止计算，线程可以立即执行下一个任务。
+     */
+    public static void cancelTest() throws Exception {
+        CryptoExecutor executor = new CryptoExecutor(1, 16);
+        AsyncCrypto crypto = new AsyncCrypto(executor, 0, TimeUnit.MILLISECONDS);
+
+        CompletableFuture<String> future = crypto.encryptToBip38(PRIVATE_KEY, PASSPHRASE);
+        Thread.sleep(50);
+        long time1 = System.currentTimeMillis();
+        future.cancel(true);
+        String encoded = crypto.encryptToBip38(PRIVATE_KEY, PASSPHRASE).get();
+        System.out.println("取消后下一个任务耗时： " + (System.currentTimeMillis() - time1) + "ms " + encoded);
+
+        future = crypto.encryptToBip38(PRIVATE_KEY, PASSPHRASE, 20, TimeUnit.MILLISECONDS);
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            System.out.println("超时： " + e.getCause());
+        }
+        System.out.println("超时任务数： " + executor.getTimeoutCount());
+        executor.shutdown();
+    }
+
+    /**
+     * 队列已满时直接拒绝，通过队列长度和等待时间判断负载。
+     */
+    public static void loadTest() throws Exception {
+        CryptoExecutor executor = new CryptoExecutor(1, 4);
+        AsyncCrypto crypto = new AsyncCrypto(executor, 10, TimeUnit.SECONDS);
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(crypto.encryptToBip38(PRIVATE_KEY, PASSPHRASE));
+        }
+        System.out.println("排队数： " + executor.getQueueDepth() + "/" + executor.getQueueCapacity()
+                + " 拒绝数： " + executor.getRejectedCount());
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((r, e) -> null).get();
+        System.out.println("平均等待： " + executor.getAverageWaitNanos() / 1000000 + "ms 最长等待： "
+                + executor.getMaxWaitNanos() / 1000000 + "ms");
+        executor.shutdown();
+    }
+}
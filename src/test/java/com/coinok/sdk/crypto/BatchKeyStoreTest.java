@@ -0,0 +1,123 @@
+package com.coinok.sdk.crypto;
+
+import com.coinok.sdk.core.KeyGenerator;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.params.MainNetParams;
+
+import javax.crypto.AEADBadTagException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class BatchKeyStoreTest {
+
+    public static void main(String[] args) throws Exception {
+        NetworkParameters params = MainNetParams.get();
+        String password = "TestingOneTwoThree";
+
+        List<String> wifs = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            wifs.add(new KeyGenerator().getPrivateKeyWif(params));
+        }
+
+        long time1 = System.currentTimeMillis();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchKeyStore.write(wifs, password, out);
+        long time2 = System.currentTimeMillis();
+        System.out.println("加密" + wifs.size() + "条记录耗时： " + (time2 - time1) + "ms，大小： " + out.size());
+
+        BatchKeyStore.Reader reader = BatchKeyStore.open(new ByteArrayInputStream(out.toByteArray()), password);
+        int count = 0;
+        String wif;
+        while ((wif = reader.next()) != null) {
+            if (!wif.equals(wifs.get(count++))) {
+                throw new RuntimeException("第" + count + "条记录解密结果不一致！");
+            }
+        }
+        System.out.println("解密" + count + "条记录耗时： " + (System.currentTimeMillis() - time2) + "ms");
+
+        tampered(wifs.subList(0, 5), password);
+
+        rejectParams(out.toByteArray(), password, 1 << 30, 8, 1);
+        rejectParams(out.toByteArray(), password, 16384, 1 << 16, 1 << 16);
+        rejectParams(out.toByteArray(), password, 16383, 8, 1);
+    }
+
+    /**
+     * 删除、调换、重复记录，截断在记录边界，或者长度前缀过大时，读取都应当失败。
+     */
+    private static void tampered(List<String> wifs, String password) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchKeyStore.write(wifs, password, out);
+        byte[] data = out.toByteArray();
+
+        // 拆分为头部、各条记录（含长度前缀）和结尾
+        List<byte[]> parts = new ArrayList<>();
+        int offset = 33;
+        parts.add(Arrays.copyOfRange(data, 0, offset));
+        while (offset < data.length) {
+            int length = ByteBuffer.wrap(data, offset, 4).getInt();
+            int end = offset + 4 + (length == 0 ? 28 : length);
+            parts.add(Arrays.copyOfRange(data, offset, end));
+            offset = end;
+        }
+        int trailer = parts.size() - 1;
+
+        List<byte[]> dropped = new ArrayList<>(parts);
+        dropped.remove(2);
+        expectFailure("删除记录", dropped, password);
+
+        List<byte[]> swapped = new ArrayList<>(parts);
+        Collections.swap(swapped, 1, 2);
+        expectFailure("调换记录", swapped, password);
+
+        List<byte[]> duplicated = new ArrayList<>(parts);
+        duplicated.add(2, parts.get(1));
+        expectFailure("重复记录", duplicated, password);
+
+        List<byte[]> lastDropped = new ArrayList<>(parts);
+        lastDropped.remove(trailer - 1);
+        expectFailure("删除最后一条记录", lastDropped, password);
+
+        expectFailure("截断在记录边界", parts.subList(0, trailer), password);
+
+        List<byte[]> oversized = new ArrayList<>(parts.subList(0, 1));
+        oversized.add(ByteBuffer.allocate(4).putInt(Integer.MAX_VALUE).array());
+        expectFailure("长度前缀过大", oversized, password);
+    }
+
+    private static void expectFailure(String name, List<byte[]> parts, String password) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part);
+        }
+        BatchKeyStore.Reader reader = BatchKeyStore.open(new ByteArrayInputStream(out.toByteArray()), password);
+        try {
+            while (reader.next() != null) {
+                // 读完所有记录
+            }
+        } catch (AEADBadTagException | IOException e) {
+            System.out.println(name + "后读取失败： true");
+            return;
+        }
+        throw new RuntimeException(name + "后仍然读取成功！");
+    }
+
+    /**
+     * 头部的scrypt参数超出范围时，应当在派生密钥之前拒绝。
+     */
+    private static void rejectParams(byte[] data, String password, int n, int r, int p) throws Exception {
+        ByteBuffer.wrap(data, 5, 12).putInt(n).putInt(r).putInt(p);
+        try {
+            BatchKeyStore.open(new ByteArrayInputStream(data), password);
+            throw new RuntimeException("应当拒绝参数N=" + n + ", r=" + r + ", p=" + p);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.coinok.sdk.crypto;
+
+import com.coinok.sdk.core.KeyGenerator;
+import org.bitcoinj.params.MainNetParams;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 批量加密的结果与逐个调用{@link Bip38#encryptToBip38(String, String)}相同，进度回调和取消按说明工作。
+ * 结果不正确时抛出异常。
+ */
+public class Bip38BatchEncryptorTest {
+
+    private static final String PASSPHRASE = "TestingOneTwoThree";
+
+    public static void main(String[] args) throws Exception {
+        sameAsSingle();
+        cancel();
+        cancelRunning();
+        sharedBudget();
+        progressError();
+    }
+
+    /**
+     * 两个线程加密，其中一个私钥格式错误，只影响自己的结果。
+     */
+    public static void sameAsSingle() throws Exception {
+        List<String> wifs = wifs(6);
+        wifs.set(3, "5KN7MzqK5wt2TP1fQCYyHBtDrXdJuXbUzm4A9rKAteGu3Qi5CVS");
+
+        Set<Integer> progress = ConcurrentHashMap.newKeySet();
+        Bip38BatchEncryptor encryptor = new Bip38BatchEncryptor(2 * Bip38.SCRYPT_MEMORY, 2);
+        Bip38BatchEncryptor.Task task = encryptor.encrypt(wifs, PASSPHRASE, (completed, total) -> {
+            if (total != wifs.size() || !progress.add(completed)) {
+                throw new IllegalStateException("进度回调错误：" + completed + "/" + total);
+            }
+        });
+        List<String> results = task.get();
+
+        for (int i = 0; i < wifs.size(); i++) {
+            String expected = i == 3 ? null : Bip38.encryptToBip38(wifs.get(i), PASSPHRASE);
+            if (expected == null ? results.get(i) != null : !expected.equals(results.get(i))) {
+                throw new RuntimeException("第" + i + "个私钥的结果与encryptToBip38不一致！");
+            }
+        }
+        if (!task.getErrors().keySet().equals(Collections.singleton(3))) {
+            throw new RuntimeException("失败的私钥序号错误：" + task.getErrors().keySet());
+        }
+        if (progress.size() != wifs.size() || task.getCompleted() != wifs.size() || !task.isDone()) {
+            throw new RuntimeException("进度回调次数错误：" + progress);
+        }
+        System.out.println("批量加密结果一致： true");
+    }
+
+    /**
+     * 单线程加密，完成第2个私钥时取消，之后不再领取新的私钥。
+     */
+    public static void cancel() throws Exception {
+        List<String> wifs = wifs(10);
+        Bip38BatchEncryptor encryptor = new Bip38BatchEncryptor(Bip38.SCRYPT_MEMORY, 1);
+        Bip38BatchEncryptor.Task[] holder = new Bip38BatchEncryptor.Task[1];
+        Object lock = new Object();
+        synchronized (lock) {
+            holder[0] = encryptor.encrypt(wifs, PASSPHRASE, (completed, total) -> {
+                if (completed == 2) {
+                    synchronized (lock) {
+                        holder[0].cancel();
+                    }
+                }
+            });
+        }
+        Bip38BatchEncryptor.Task task = holder[0];
+        List<String> results = task.get();
+
+        if (!task.isCancelled() || task.getCompleted() != 2) {
+            throw new RuntimeException("取消后完成的数量错误：" + task.getCompleted());
+        }
+        for (int i = 0; i < wifs.size(); i++) {
+            if ((i < 2) != (results.get(i) != null)) {
+                throw new RuntimeException("取消后第" + i + "个结果错误！");
+            }
+        }
+        System.out.println("取消后停止加密： true");
+    }
+
+    /**
+     * 在scrypt计算过程中取消，工作线程被中断，正在计算的私钥没有结果，也不算作失败。
+     */
+    public static void cancelRunning() throws Exception {
+        List<String> wifs = wifs(3);
+        Bip38BatchEncryptor encryptor = new Bip38BatchEncryptor(Bip38.SCRYPT_MEMORY, 1);
+        Bip38BatchEncryptor.Task task = encryptor.encrypt(wifs, PASSPHRASE, null);
+        while (task.getCompleted() < 1) {
+            Thread.sleep(5);
+        }
+        // 第2个私钥的scrypt计算已经开始
+        Thread.sleep(50);
+        task.cancel();
+        List<String> results = task.get();
+
+        if (task.getCompleted() != 1 || results.get(0) == null || results.get(1) != null
+                || !task.getErrors().isEmpty()) {
+            throw new RuntimeException("中断后的结果错误：" + task.getCompleted() + ", " + task.getErrors());
+        }
+        if (encryptor.permits.availablePermits() != encryptor.getParallelism()) {
+            throw new RuntimeException("取消后没有归还计算名额！");
+        }
+        System.out.println("取消时中断正在进行的scrypt： true");
+    }
+
+    /**
+     * 同一个加密器上同时进行的两个任务共享计算名额，结果都正确，结束后名额全部归还。
+     */
+    public static void sharedBudget() throws Exception {
+        List<String> wifs = wifs(2);
+        Bip38BatchEncryptor encryptor = new Bip38BatchEncryptor(Bip38.SCRYPT_MEMORY, 2);
+        Bip38BatchEncryptor.Task first = encryptor.encrypt(wifs, PASSPHRASE, null);
+        Bip38BatchEncryptor.Task second = encryptor.encrypt(wifs, PASSPHRASE, null);
+        List<String> firstResults = first.get();
+        List<String> secondResults = second.get();
+
+        for (int i = 0; i < wifs.size(); i++) {
+            String expected = Bip38.encryptToBip38(wifs.get(i), PASSPHRASE);
+            if (!expected.equals(firstResults.get(i)) || !expected.equals(secondResults.get(i))) {
+                throw new RuntimeException("共享名额时第" + i + "个私钥的结果错误！");
+            }
+        }
+        if (encryptor.getParallelism() != 1 || encryptor.permits.availablePermits() != 1) {
+            throw new RuntimeException("计算名额错误：" + encryptor.permits.availablePermits());
+        }
+        System.out.println("多个任务共享内存预算： true");
+    }
+
+    /**
+     * 进度回调抛出异常时继续加密，异常记录在任务上。
+     */
+    public static void progressError() throws Exception {
+        List<String> wifs = wifs(2);
+        Bip38BatchEncryptor encryptor = new Bip38BatchEncryptor(Bip38.SCRYPT_MEMORY, 1);
+        Bip38BatchEncryptor.Task task = encryptor.encrypt(wifs, PASSPHRASE, (completed, total) -> {
+            throw new IllegalStateException("回调失败" + completed);
+        });
+        List<String> results = task.get();
+
+        RuntimeException error = task.getProgressError();
+        if (results.contains(null) || error == null || !"回调失败1".equals(error.getMessage())
+                || error.getSuppressed().length != 1) {
+            throw new RuntimeException("进度回调异常没有正确记录：" + error);
+        }
+        System.out.println("进度回调异常记录在任务上： true");
+    }
+
+    private static List<String> wifs(int count) {
+        List<String> wifs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            wifs.add(new KeyGenerator().getPrivateKeyWif(MainNetParams.get()));
+        }
+        return wifs;
+    }
+}
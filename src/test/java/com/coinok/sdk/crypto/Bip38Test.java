@@ -4,11 +4,14 @@ import com.coinok.sdk.core.KeyGenerator;
 import org.bitcoinj.core.NetworkParameters;
 import org.bitcoinj.params.MainNetParams;
 
+import java.util.List;
+
 public class Bip38Test {
 
     public static void main(String[] args) throws Exception {
         defaultTest();
         encryptedByWIF();
+        ecMultiplyTest();
     }
 
     public static void defaultTest() throws Exception {
@@ -26,6 +29,24 @@ public class Bip38Test {
         NetworkParameters param = MainNetParams.get();
         String key = Bip38.decode(encoded, passphrase, param);
         System.out.println(key);
+
+        byte[] keyOut = new byte[33];
+        int status = Bip38.decrypt(encoded, "WrongPassphrase", param, keyOut);
+        System.out.println(status == Bip38.DECRYPT_WRONG_PASSPHRASE);
+        System.out.println(Bip38.decrypt("6PRVWUbkzzsbcVac", passphrase, param, keyOut) == Bip38.DECRYPT_BAD_FORMAT);
+
+        // 调用方式错误时抛出IllegalArgumentException，而不是返回状态码
+        expectIllegalArgument(() -> Bip38.decrypt(encoded, null, param, keyOut));
+        expectIllegalArgument(() -> Bip38.decrypt(encoded, passphrase, param, new byte[32]));
+    }
+
+    private static void expectIllegalArgument(Runnable runnable) {
+        try {
+            runnable.run();
+            throw new RuntimeException("应当抛出IllegalArgumentException！");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
     }
 
     /**
@@ -43,4 +64,28 @@ public class Bip38Test {
         System.out.println(time2);
         System.out.println(result);
     }
+
+    /**
+     * EC-multiply模式：用户生成intermediate code，服务端批量生成加密私钥。
+     */
+    public static void ecMultiplyTest() throws Exception {
+        NetworkParameters param = MainNetParams.get();
+        String passphrase = "MOLON LABE";
+
+        String key = Bip38.decode("6PgNBNNzDkKdhkT6uJntUXwwzQV8Rr2tZcbkDcuC9DZRsS6AtHts4Ypo1j", passphrase, param);
+        System.out.println(key);
+        System.out.println(Bip38EcMultiply.confirm(
+                "cfrm38V8aXBn7JWA1ESmFMUn6erxeBGZGAxJPY4e36S9QWkzZKtaVqLNMgnifETYw7BPwWC9aPD", passphrase, param));
+
+        String code = Bip38EcMultiply.generateIntermediateCode(passphrase, 263183, 1);
+        System.out.println(code);
+
+        long time1 = System.currentTimeMillis();
+        List<Bip38EcMultiply.EncryptedKey> keys = Bip38EcMultiply.generateEncryptedKeys(code, 100, true, param);
+        System.out.println("生成100个加密私钥耗时： " + (System.currentTimeMillis() - time1) + "ms");
+
+        Bip38EcMultiply.EncryptedKey first = keys.get(0);
+        System.out.println(first.getEncryptedKey() + " " + first.getAddress());
+        System.out.println(first.getAddress().equals(Bip38EcMultiply.confirm(first.getConfirmationCode(), passphrase, param)));
+    }
 }
@@ -0,0 +1,120 @@
+package com.coinok.sdk.crypto;
+
+import org.bitcoinj.core.Utils;
+import org.bouncycastle.crypto.generators.SCrypt;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+/**
+ * 结果与RFC 7914的测试向量或BouncyCastle不一致时抛出异常。
+ */
+public class SCryptEngineTest {
+
+    public static void main(String[] args) throws Exception {
+        // 单核机器上默认没有lane线程池，并行计算退化为依次计算；需要在第一次使用SCryptEngine之前设置
+        System.setProperty(SCryptEngine.LANE_THREADS_PROPERTY, "3");
+
+        rfcVector();
+        compareWithBouncyCastle();
+        interruptParallel();
+        benchmark();
+    }
+
+    /**
+     * RFC 7914中的测试向量。
+     */
+    public static void rfcVector() {
+        byte[] result = SCryptEngine.generate("password".getBytes(), "NaCl".getBytes(), 1024, 8, 16, 64);
+        String expected = "fdbabe1c9d3472007856e7190d01e9fe7c6ad7cbc8237830e77376634b373162"
+                + "2eaf30d92e22a3886ff109279d9830dac727afb94a83ee6d8360cbdfa2cc0640";
+        check("RFC 7914", expected.equals(Utils.HEX.encode(result)));
+    }
+
+    /**
+     * 随机参数下和BouncyCastle的结果进行比较。32768, 8的工作数组超过每个线程保留的大小，用完即释放，
+     * 之后的计算需要重新分配。
+     */
+    public static void compareWithBouncyCastle() {
+        Random random = new Random(38);
+        int[][] params = {{16, 1, 1}, {1024, 8, 1}, {1024, 8, 8}, {16384, 8, 8}, {32768, 8, 1}, {16384, 8, 2}, {256, 3, 5}};
+        for (int[] param : params) {
+            byte[] passphrase = new byte[random.nextInt(32)];
+            byte[] salt = new byte[random.nextInt(32)];
+            random.nextBytes(passphrase);
+            random.nextBytes(salt);
+
+            byte[] expected = SCrypt.generate(passphrase, salt, param[0], param[1], param[2], 64);
+            boolean parallel = Arrays.equals(expected,
+                    SCryptEngine.generate(passphrase, salt, param[0], param[1], param[2], 64, true));
+            boolean serial = Arrays.equals(expected,
+                    SCryptEngine.generate(passphrase, salt, param[0], param[1], param[2], 64, false));
+            check(Arrays.toString(param), parallel && serial);
+        }
+    }
+
+    /**
+     * 并行计算时中断调用线程，线程池中的lane也停止，调用方很快收到CancellationException，
+     * 中断状态保留；之后的计算结果仍然正确。
+     */
+    public static void interruptParallel() throws Exception {
+        byte[] passphrase = "TestingOneTwoThree".getBytes();
+        byte[] salt = Utils.HEX.decode("e957a24a");
+        long start = System.nanoTime();
+        byte[] expected = SCryptEngine.generate(passphrase, salt, 16384, 8, 8, 64, true);
+        long full = System.nanoTime() - start;
+
+        Throwable[] result = new Throwable[1];
+        boolean[] interrupted = new boolean[1];
+        Thread thread = new Thread(() -> {
+            try {
+                SCryptEngine.generate(passphrase, salt, 16384, 8, 8, 64, true);
+            } catch (Throwable e) {
+                result[0] = e;
+            }
+            interrupted[0] = Thread.currentThread().isInterrupted();
+        });
+        thread.start();
+        Thread.sleep(50);
+        long interruptedAt = System.nanoTime();
+        thread.interrupt();
+        thread.join();
+        long stopped = System.nanoTime() - interruptedAt;
+
+        check("中断后抛出CancellationException", result[0] instanceof CancellationException && interrupted[0]);
+        check("中断后很快停止（" + stopped / 1000000 + "ms / " + full / 1000000 + "ms）", stopped < full / 2);
+        check("中断后继续计算", Arrays.equals(expected, SCryptEngine.generate(passphrase, salt, 16384, 8, 8, 64, true)));
+    }
+
+    private static void check(String name, boolean ok) {
+        System.out.println(name + "： " + ok);
+        if (!ok) {
+            throw new IllegalStateException(name + "的结果错误！");
+        }
+    }
+
+    public static void benchmark() {
+        byte[] passphrase = "TestingOneTwoThree".getBytes();
+        byte[] salt = Utils.HEX.decode("e957a24a");
+        int rounds = 20;
+
+        long time1 = System.currentTimeMillis();
+        for (int i = 0; i < rounds; i++) {
+            SCrypt.generate(passphrase, salt, 16384, 8, 8, 64);
+        }
+        long time2 = System.currentTimeMillis();
+        for (int i = 0; i < rounds; i++) {
+            SCryptEngine.generate(passphrase, salt, 16384, 8, 8, 64, false);
+        }
+        long time3 = System.currentTimeMillis();
+        for (int i = 0; i < rounds; i++) {
+            SCryptEngine.generate(passphrase, salt, 16384, 8, 8, 64, true);
+        }
+        long time4 = System.currentTimeMillis();
+
+        System.out.println("BouncyCastle： " + (time2 - time1) / rounds + "ms");
+        System.out.println("SCryptEngine： " + (time3 - time2) / rounds + "ms");
+        System.out.println("SCryptEngine（lane并行）： " + (time4 - time3) / rounds + "ms");
+    }
+}
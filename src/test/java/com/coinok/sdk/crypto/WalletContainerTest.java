@@ -0,0 +1,122 @@
+package com.coinok.sdk.crypto;
+
+import com.coinok.sdk.bip.Bip32Node;
+import com.coinok.sdk.core.KeyGenerator;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Utils;
+import org.bitcoinj.params.MainNetParams;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class WalletContainerTest {
+
+    public static void main(String[] args) throws Exception {
+        NetworkParameters params = MainNetParams.get();
+        String password = "TestingOneTwoThree";
+        Path path = Files.createTempFile("wallet", ".okw");
+
+        Bip32Node master = Bip32Node.getMasterKey(Utils.HEX.decode("000102030405060708090a0b0c0d0e0f"));
+        String wif = new KeyGenerator().getPrivateKeyWif(params);
+
+        try (WalletContainer.Writer writer = WalletContainer.create(path, password)) {
+            writer.addNode(master, Bip32Node.TYPE_BITCOIN, true);
+            for (int i = 0; i < 10000; i++) {
+                writer.addNode(master.getChild(i), Bip32Node.TYPE_BITCOIN, true);
+            }
+        }
+        try (WalletContainer.Writer writer = WalletContainer.append(path, password)) {
+            System.out.println("追加的私钥序号： " + writer.addWif(wif));
+        }
+
+        try (WalletContainer.Reader reader = WalletContainer.open(path, password)) {
+            System.out.println("记录数： " + reader.size());
+            System.out.println(reader.getNode(0).privSerialize(Bip32Node.TYPE_BITCOIN, true));
+            System.out.println(reader.getNode(7001).privSerialize(Bip32Node.TYPE_BITCOIN, true)
+                    .equals(master.getChild(7000).privSerialize(Bip32Node.TYPE_BITCOIN, true)));
+            System.out.println(wif.equals(reader.getWif(reader.size() - 1)));
+        }
+
+        interruptedAppend(path, password, wif);
+        rejectParams(path, password, 1 << 30, 8, 1);
+        rejectParams(path, password, 16384, 1 << 16, 1 << 16);
+        rejectParams(path, password, 16383, 8, 1);
+        Files.delete(path);
+    }
+
+    /**
+     * 模拟追加写入过程中中断：截断在新记录、新索引和新尾部中的各个位置，文件仍然可以打开，
+     * 只能看到上一次关闭时的记录，并且可以继续追加。结果不正确时抛出异常。
+     */
+    public static void interruptedAppend(Path path, String password, String lastWif) throws Exception {
+        NetworkParameters params = MainNetParams.get();
+        byte[] committed = Files.readAllBytes(path);
+        int count;
+        try (WalletContainer.Reader reader = WalletContainer.open(path, password)) {
+            count = reader.size();
+        }
+        String[] wifs = new String[3];
+        try (WalletContainer.Writer writer = WalletContainer.append(path, password)) {
+            for (int i = 0; i < wifs.length; i++) {
+                wifs[i] = new KeyGenerator().getPrivateKeyWif(params);
+                writer.addWif(wifs[i]);
+            }
+        }
+        byte[] appended = Files.readAllBytes(path);
+
+        // 新记录之中、新索引之中、新尾部之中
+        int[] cuts = {committed.length + 1, committed.length + 100, committed.length + 300,
+                appended.length - 10, appended.length - 1};
+        Path broken = Files.createTempFile("wallet", ".okw");
+        for (int cut : cuts) {
+            Files.write(broken, Arrays.copyOf(appended, cut));
+            try (WalletContainer.Reader reader = WalletContainer.open(broken, password)) {
+                if (reader.size() != count || !lastWif.equals(reader.getWif(count - 1))) {
+                    throw new RuntimeException("截断在" + cut + "位时读取结果错误！");
+                }
+            }
+            try (WalletContainer.Writer writer = WalletContainer.append(broken, password)) {
+                writer.addWif(wifs[0]);
+            }
+            try (WalletContainer.Reader reader = WalletContainer.open(broken, password)) {
+                if (reader.size() != count + 1 || !wifs[0].equals(reader.getWif(count))) {
+                    throw new RuntimeException("截断在" + cut + "位后继续追加的结果错误！");
+                }
+            }
+        }
+        Files.delete(broken);
+        System.out.println("追加中断后仍可读取： true");
+    }
+
+    /**
+     * 头部的scrypt参数超出范围时，打开和追加都应当在派生密钥之前拒绝。
+     */
+    private static void rejectParams(Path path, String password, int n, int r, int p) throws Exception {
+        byte[] data = Files.readAllBytes(path);
+        ByteBuffer.wrap(data, 5, 12).putInt(n).putInt(r).putInt(p);
+        Path crafted = Files.createTempFile("wallet", ".okw");
+        try {
+            Files.write(crafted, data);
+            expectRejected(() -> WalletContainer.open(crafted, password).close(), n, r, p);
+            expectRejected(() -> WalletContainer.append(crafted, password).close(), n, r, p);
+        } finally {
+            Files.delete(crafted);
+        }
+    }
+
+    private static void expectRejected(Action action, int n, int r, int p) throws Exception {
+        try {
+            action.run();
+            throw new RuntimeException("应当拒绝参数N=" + n + ", r=" + r + ", p=" + p);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private interface Action {
+
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,156 @@
+package com.coinok.sdk.header;
+
+import com.coinok.sdk.bip.Bip32Node;
+import com.coinok.sdk.core.KeyGenerator;
+import com.coinok.sdk.core.MultiSignAddressGenerator;
+import com.coinok.sdk.util.Tools;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.LegacyAddress;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.SegwitAddress;
+import org.bitcoinj.core.Utils;
+import org.bitcoinj.params.MainNetParams;
+import org.bitcoinj.params.TestNet3Params;
+import org.bitcoinj.params.UnitTestParams;
+import org.bitcoinj.script.ScriptBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class AddressCodecTest {
+
+    public static void main(String[] args) {
+        roundTripTest();
+        legacyCallSitesTest();
+        allocationTest();
+    }
+
+    /**
+     * 以NetworkParameters为参数的旧接口经过编码实现后，结果仍与bitcoinj一致，
+     * 包括没有登记的网络参数。不一致时抛出异常。
+     */
+    public static void legacyCallSitesTest() {
+        byte[] seed = Utils.HEX.decode("000102030405060708090a0b0c0d0e0f");
+        Bip32Node node = Bip32Node.getMasterKey(seed);
+        ECKey key = node.getEcKey();
+        List<ECKey> keys = new ArrayList<>();
+        MultiSignAddressGenerator multiSign = new MultiSignAddressGenerator();
+        for (int i = 2; i <= 4; i++) {
+            keys.add(ECKey.fromPublicOnly(ECKey.fromPrivate(BigInteger.valueOf(i)).getPubKey()));
+            multiSign.addECKey(keys.get(keys.size() - 1));
+        }
+        byte[] scriptHash = Utils.sha256hash160(ScriptBuilder.createMultiSigOutputScript(2, keys).getProgram());
+
+        NetworkParameters[] networks = {MainNetParams.get(), TestNet3Params.get(), LiteMainNetParam.get(),
+                UnitTestParams.get()};
+        for (NetworkParameters params : networks) {
+            String legacy = LegacyAddress.fromKey(params, key).toBase58();
+            check(params.getId() + " KeyGenerator",
+                    legacy.equals(new KeyGenerator(key, true).getAddressStr(params)));
+            check(params.getId() + " KeyGenerator(byte)",
+                    legacy.equals(new KeyGenerator(key, true).getAddressStr((byte) params.getAddressHeader())));
+            check(params.getId() + " Tools.ecKeyToAddress", legacy.equals(Tools.ecKeyToAddress(key, params)));
+            check(params.getId() + " Bip32Node.getAddress", legacy.equals(node.getAddress(params)));
+            check(params.getId() + " MultiSignAddressGenerator", LegacyAddress.fromScriptHash(params, scriptHash)
+                    .toBase58().equals(multiSign.generateAddress(params, 2)));
+            if (params.getSegwitAddressHrp() != null) {
+                check(params.getId() + " Bip32Node.getP2wpkhAddress",
+                        SegwitAddress.fromKey(params, key).toBech32().equals(node.getP2wpkhAddress(params)));
+            }
+        }
+    }
+
+    private static void check(String name, boolean ok) {
+        System.out.println(name + "： " + ok);
+        if (!ok) {
+            throw new IllegalStateException(name + "的结果与bitcoinj不一致！");
+        }
+    }
+
+    /**
+     * 编码结果与bitcoinj一致，解码得到原来的hash。
+     */
+    public static void roundTripTest() {
+        HeadInfo btc = HeadInfo.btcMain();
+        AddressCodec codec = btc.getAddressCodec();
+        System.out.println(codec.getClass().getSimpleName() + " " + AddressCodecs.providers().size());
+
+        byte[] hash = Utils.HEX.decode("751e76e8199196d454941c45d1b3a323f1433bd6");
+        System.out.println(codec.encode(btc, AddressType.P2PKH, hash)
+                .equals(LegacyAddress.fromPubKeyHash(MainNetParams.get(), hash).toBase58()));
+        System.out.println(codec.encode(btc, AddressType.P2SH, hash)
+                .equals(LegacyAddress.fromScriptHash(MainNetParams.get(), hash).toBase58()));
+        System.out.println(codec.encode(btc, AddressType.P2WPKH, hash)
+                .equals(SegwitAddress.fromHash(MainNetParams.get(), hash).toBech32()));
+
+        Random random = new Random(7);
+        byte[] out = new byte[32];
+        int failed = 0;
+        for (HeadInfo head : HeadInfo.values()) {
+            for (AddressType type : AddressType.values()) {
+                if (head.getSegwitHrp() == null && type.getHashLength() == 32) {
+                    continue;
+                }
+                if (head.getSegwitHrp() == null && type == AddressType.P2WPKH) {
+                    continue;
+                }
+                byte[] input = new byte[type.getHashLength()];
+                random.nextBytes(input);
+                String address = head.getAddressCodec().encode(head, type, input);
+                AddressType decoded = head.getAddressCodec().decode(head, address, out, 0);
+                boolean same = decoded == type;
+                for (int i = 0; i < input.length; i++) {
+                    same &= input[i] == out[i];
+                }
+                if (!same) {
+                    failed++;
+                    System.out.println(head.getName() + " " + head.getNetwork() + " " + type + " " + address);
+                }
+            }
+        }
+        System.out.println("failed: " + failed);
+
+        // 狗狗币地址用比特币网络解码时首字节不符
+        HeadInfo doge = HeadInfo.getInfo("Dogecoin", "Mainnet");
+        String address = doge.getAddressCodec().encode(doge, AddressType.P2PKH, hash);
+        System.out.println(address);
+        try {
+            codec.decode(btc, address, out, 0);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * 使用调用方的数组时，预热后每次编码、解码分配的内存。
+     */
+    public static void allocationTest() {
+        HeadInfo btc = HeadInfo.btcMain();
+        AddressCodec codec = btc.getAddressCodec();
+        byte[] hash = Utils.HEX.decode("751e76e8199196d454941c45d1b3a323f1433bd6");
+        char[] chars = new char[AddressCodec.MAX_LENGTH];
+        byte[] out = new byte[32];
+        String p2pkh = codec.encode(btc, AddressType.P2PKH, hash);
+        String p2wpkh = codec.encode(btc, AddressType.P2WPKH, hash);
+
+        int rounds = 200000;
+        long sink = 0;
+        for (int i = 0; i < rounds; i++) {
+            sink += codec.encode(btc, AddressType.P2PKH, hash, 0, chars, 0);
+        }
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocated = bean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < rounds; i++) {
+            sink += codec.encode(btc, AddressType.P2PKH, hash, 0, chars, 0);
+            sink += codec.encode(btc, AddressType.P2WPKH, hash, 0, chars, 0);
+            sink += codec.decode(btc, p2pkh, out, 0).ordinal();
+            sink += codec.decode(btc, p2wpkh, out, 0).ordinal();
+        }
+        allocated = bean.getThreadAllocatedBytes(threadId) - allocated;
+        System.out.println("bytes/op: " + (double) allocated / rounds / 4 + " " + sink);
+    }
+}
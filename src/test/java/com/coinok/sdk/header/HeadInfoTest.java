@@ -0,0 +1,40 @@
+package com.coinok.sdk.header;
+
+import com.coinok.sdk.segwit.HrpRegistry;
+
+public class HeadInfoTest {
+
+    public static void main(String[] args) {
+        byteTest();
+        configTest();
+    }
+
+    /**
+     * 按首字节查找返回共享的实例。
+     */
+    public static void byteTest() {
+        for (int prefix : new int[]{0X0, 0X80, 0X6f, 0Xef, 0X30, 0Xb0, 0X1e, 0X9e, 0X55}) {
+            HeadInfo info = HeadInfo.getInfoByByte((byte) prefix);
+            System.out.println(Integer.toHexString(prefix) + " "
+                    + (info == null ? null : info.getName() + " " + info.getNetwork()));
+        }
+        System.out.println(HeadInfo.getInfoByByte((byte) 0X80) == HeadInfo.btcMain());
+        System.out.println(HeadInfo.getInfoByByte((byte) 0Xef) == HeadInfo.btcTest());
+    }
+
+    /**
+     * networks.properties中配置的网络。
+     */
+    public static void configTest() {
+        HeadInfo bch = HeadInfo.getInfo("bitcoin cash", "mainnet");
+        System.out.println(bch.getAddressPrefix() + " " + Integer.toHexString(bch.getXpubVersion()));
+
+        HeadInfo doge = HeadInfo.getInfo("Dogecoin", "Mainnet");
+        System.out.println(Integer.toHexString(doge.getXprvVersion()) + " " + doge.getSegwitHrp());
+
+        HeadInfo ltcTest = HrpRegistry.get("tltc").getHead();
+        System.out.println(ltcTest.getName() + " " + ltcTest.getNetwork() + " "
+                + Integer.toHexString(ltcTest.getScriptPrefix() & 0XFF));
+        System.out.println(HeadInfo.values().size());
+    }
+}
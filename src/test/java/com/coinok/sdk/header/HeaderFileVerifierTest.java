@@ -0,0 +1,122 @@
+package com.coinok.sdk.header;
+
+import com.coinok.sdk.crypto.SCryptEngine;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Utils;
+import org.bitcoinj.params.MainNetParams;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class HeaderFileVerifierTest {
+
+    /**
+     * 比特币创世区块头。
+     */
+    private static final String BTC_GENESIS = "0100000000000000000000000000000000000000000000000000000000000000"
+            + "000000003ba3edfd7a7b12b27ac72c3e67768f617fc81bc3888a51323a9fb8aa4b1e5e4a29ab5f49ffff001d1dac2b7c";
+
+    /**
+     * 莱特币创世区块头。
+     */
+    private static final String LTC_GENESIS = "0100000000000000000000000000000000000000000000000000000000000000"
+            + "00000000d9ced4ed1130f7b7faad9be25323ffafa33232a17c3edf6cfd97bee6bafbdd97b9aa8e4ef0ff0f1ecd513f7c";
+
+    /**
+     * 几乎每个hash都满足的难度，用于生成测试链。
+     */
+    private static final long EASY_BITS = 0x207fffffL;
+
+    public static void main(String[] args) throws Exception {
+        genesisTest();
+        chainTest();
+    }
+
+    /**
+     * 真实的创世区块：比特币使用SHA-256d，莱特币使用scrypt。
+     */
+    public static void genesisTest() throws Exception {
+        check("比特币创世区块", verify(MainNetParams.get(), Utils.HEX.decode(BTC_GENESIS)), -1);
+        check("莱特币创世区块", verify(LiteMainNetParam.get(), Utils.HEX.decode(LTC_GENESIS)), -1);
+    }
+
+    /**
+     * 生成三个难度周期的测试链，再分别修改难度和前一区块hash。
+     */
+    public static void chainTest() throws Exception {
+        NetworkParameters btc = new MainNetParams() {
+            {
+                maxTarget = Utils.decodeCompactBits(EASY_BITS);
+            }
+        };
+        byte[] chain = mine(btc, 3 * btc.getInterval(), false);
+        check("比特币测试链", verify(btc, chain), -1);
+
+        byte[] badBits = chain.clone();
+        ByteBuffer.wrap(badBits).order(ByteOrder.LITTLE_ENDIAN).putInt(3000 * 80 + 72, 0x2000ffff);
+        check("错误的难度", verify(btc, badBits), 3000);
+
+        byte[] badLink = chain.clone();
+        badLink[5000 * 80 + 4] ^= 1;
+        check("错误的前一区块hash", verify(btc, badLink), 5000);
+
+        NetworkParameters ltc = new LiteMainNetParam() {
+            {
+                maxTarget = Utils.decodeCompactBits(EASY_BITS);
+            }
+        };
+        check("莱特币测试链", verify(ltc, mine(ltc, ltc.getInterval() + 100, true)), -1);
+    }
+
+    /**
+     * @param failedHeight： 期望的第一个错误高度，-1表示应当通过校验
+     */
+    private static void check(String name, HeaderFileVerifier.Result result, int failedHeight) {
+        System.out.println(name + "： " + result);
+        if (result.isValid() != (failedHeight < 0) || result.getFailedHeight() != failedHeight) {
+            throw new IllegalStateException(name + "的结果错误！");
+        }
+    }
+
+    private static HeaderFileVerifier.Result verify(NetworkParameters params, byte[] headers) throws Exception {
+        Path file = Files.createTempFile("headers", ".dat");
+        try {
+            Files.write(file, headers);
+            HeaderFileVerifier.Result result = new HeaderFileVerifier(params).verify(file);
+            System.out.println(result.getTipHash());
+            return result;
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static byte[] mine(NetworkParameters params, int count, boolean scrypt) {
+        ByteBuffer buffer = ByteBuffer.allocate(count * 80).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] prev = new byte[32];
+        byte[] header = new byte[80];
+        long time = 1500000000L;
+        for (int i = 0; i < count; i++) {
+            ByteBuffer h = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+            h.putInt(0, 1);
+            System.arraycopy(prev, 0, header, 4, 32);
+            h.putInt(68, (int) time);
+            h.putInt(72, (int) EASY_BITS);
+            for (int nonce = 0; ; nonce++) {
+                h.putInt(76, nonce);
+                byte[] pow = scrypt ? SCryptEngine.generate(header, header, 1024, 1, 1, 32, false)
+                        : Sha256Hash.hashTwice(header);
+                // 最高字节小于0x80即满足EASY_BITS
+                if ((pow[31] & 0XFF) < 0X7f) {
+                    break;
+                }
+            }
+            prev = Sha256Hash.hashTwice(header);
+            buffer.put(header);
+            time += params.getTargetTimespan() / 100;
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,140 @@
+package com.coinok.sdk.header;
+
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.store.BlockStore;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class HeaderRingTest {
+
+    private static final long BITS = 0x1e0fffffL;
+
+    public static void main(String[] args) throws Exception {
+        syncTest();
+        forkTest();
+    }
+
+    /**
+     * 同步三个难度周期，比较冷启动和预加载后访问BlockStore的次数。
+     */
+    public static void syncTest() throws Exception {
+        LiteMainNetParam params = new LiteMainNetParam();
+        CountingStore store = new CountingStore(params);
+        StoredBlock tip = store.getChainHead();
+        long start = System.nanoTime();
+        for (int i = 0; i < 3 * params.getInterval(); i++) {
+            tip = connect(params, store, tip);
+        }
+        System.out.println("sync: " + (System.nanoTime() - start) / 1000000 + "ms, store.get: " + store.gets);
+
+        // 重新启动：预加载后继续同步
+        LiteMainNetParam restarted = new LiteMainNetParam();
+        restarted.loadHeaders(store);
+        store.gets = 0;
+        for (int i = 0; i < params.getInterval(); i++) {
+            tip = connect(restarted, store, tip);
+        }
+        System.out.println("after load, store.get: " + store.gets);
+    }
+
+    /**
+     * 重组后只保留新链上的区块。
+     */
+    public static void forkTest() {
+        LiteMainNetParam params = new LiteMainNetParam();
+        HeaderRing ring = new HeaderRing(8);
+        StoredBlock[] main = new StoredBlock[12];
+        main[0] = new StoredBlock(header(params, Sha256Hash.ZERO_HASH, 0), BigInteger.ZERO, 0);
+        ring.add(main[0]);
+        for (int i = 1; i < main.length; i++) {
+            main[i] = new StoredBlock(header(params, main[i - 1].getHeader().getHash(), i), BigInteger.ZERO, i);
+            ring.add(main[i]);
+        }
+        check("保留最近8个区块", ring.size() == 8);
+        check("缓冲区内的祖先", ring.getAncestor(main[11], 4) == main[4]);
+        check("超出缓冲区的祖先", ring.getAncestor(main[11], 3) == null);
+
+        StoredBlock fork = new StoredBlock(header(params, main[8].getHeader().getHash(), 100), BigInteger.ZERO, 9);
+        ring.add(fork);
+        check("重组后的区块数", ring.size() == 6);
+        check("分叉链的祖先", ring.getAncestor(fork, 8) == main[8]);
+        check("旧链被丢弃", ring.getAncestor(main[11], 8) == null);
+    }
+
+    private static void check(String name, boolean ok) {
+        System.out.println(name + "： " + ok);
+        if (!ok) {
+            throw new IllegalStateException(name + "的结果错误！");
+        }
+    }
+
+    private static StoredBlock connect(LiteMainNetParam params, BlockStore store, StoredBlock prev) throws Exception {
+        Block next = header(params, prev.getHeader().getHash(), prev.getHeader().getTimeSeconds()
+                + params.getTargetTimespan() / 100);
+        params.checkDifficultyTransitions(prev, next, store);
+        StoredBlock stored = new StoredBlock(next, BigInteger.ZERO, prev.getHeight() + 1);
+        store.put(stored);
+        store.setChainHead(stored);
+        return stored;
+    }
+
+    private static Block header(NetworkParameters params, Sha256Hash prev, long time) {
+        return new Block(params, 1, prev, Sha256Hash.ZERO_HASH, time, BITS, 0, Collections.emptyList());
+    }
+
+    /**
+     * 记录get次数的内存BlockStore。
+     */
+    private static class CountingStore implements BlockStore {
+
+        private final NetworkParameters params;
+
+        private final Map<Sha256Hash, StoredBlock> blocks = new HashMap<>();
+
+        private StoredBlock head;
+
+        private long gets;
+
+        private CountingStore(NetworkParameters params) {
+            this.params = params;
+            head = new StoredBlock(header(params, Sha256Hash.ZERO_HASH, 0), BigInteger.ZERO, 0);
+            blocks.put(head.getHeader().getHash(), head);
+        }
+
+        @Override
+        public void put(StoredBlock block) {
+            blocks.put(block.getHeader().getHash(), block);
+        }
+
+        @Override
+        public StoredBlock get(Sha256Hash hash) {
+            gets++;
+            return blocks.get(hash);
+        }
+
+        @Override
+        public StoredBlock getChainHead() {
+            return head;
+        }
+
+        @Override
+        public void setChainHead(StoredBlock chainHead) {
+            head = chainHead;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public NetworkParameters getParams() {
+            return params;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.coinok.sdk.metrics;
+
+import com.coinok.sdk.bip.Bip32Node;
+import com.coinok.sdk.core.KeyGenerator;
+import com.coinok.sdk.crypto.AES;
+import com.coinok.sdk.crypto.Bip38;
+import com.coinok.sdk.header.HeadInfo;
+import org.bitcoinj.params.MainNetParams;
+
+/**
+ * 在JDK 17及以上使用多版本jar运行，并打开JFR记录，例如：
+ * <pre>
+ * java -XX:StartFlightRecording=filename=sdk.jfr -cp oklink-client-sdk.jar:... com.coinok.sdk.metrics.FlightEventsTest
+ * jfr print --categories "CoinOK SDK" sdk.jfr
+ * </pre>
+ * 应当看到Scrypt、Bip32BulkDerive和三个Base58Failure事件；AesKey耗时低于1ms时不会出现。
+ */
+public class FlightEventsTest {
+
+    public static void main(String[] args) throws Exception {
+        String wif = new KeyGenerator().getPrivateKeyWif(MainNetParams.get());
+        String bip38 = Bip38.encryptToBip38(wif, "TestingOneTwoThree");
+        System.out.println("bip38: " + Bip38.decode(bip38, "TestingOneTwoThree", MainNetParams.get()).equals(wif));
+
+        Bip32Node master = Bip32Node.getMasterKey(new byte[64]);
+        System.out.println("addresses: " + master.getP2wpkhAddresses(0, 2000, MainNetParams.get()).size());
+
+        AES.encrypt256("data".getBytes(), "password".getBytes());
+
+        expectFailure(() -> KeyGenerator.fromPrivateKeyWif(wif.substring(0, wif.length() - 1) + "1"));
+        expectFailure(() -> KeyGenerator.fromPrivateKeyWif("0OIl"));
+        expectFailure(() -> HeadInfo.btcMain().getAddressCodec().decode(HeadInfo.btcMain(),
+                "1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN3", new byte[20], 0));
+    }
+
+    private static void expectFailure(Runnable runnable) {
+        try {
+            runnable.run();
+            throw new IllegalStateException("应当失败！");
+        } catch (IllegalArgumentException e) {
+            System.out.println("failed as expected: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.coinok.sdk.metrics;
+
+import com.coinok.sdk.bip.Bip32Node;
+import com.coinok.sdk.core.KeyGenerator;
+import com.coinok.sdk.crypto.AES;
+import com.coinok.sdk.segwit.SegwitAddressUtil;
+import org.bitcoinj.params.MainNetParams;
+
+import java.util.Random;
+
+public class MetricsTest {
+
+    public static void main(String[] args) throws Exception {
+        bucketTest();
+        recordTest();
+        overheadTest();
+    }
+
+    /**
+     * 每个值都落在所在桶的上下界之间，相对误差不超过25%。
+     */
+    public static void bucketTest() {
+        Random random = new Random(1);
+        for (int i = 0; i < 1000000; i++) {
+            long nanos = i < 1000 ? i : (random.nextLong() >>> 1) >>> random.nextInt(63);
+            int bucket = OperationMetrics.bucket(nanos);
+            long lower = OperationMetrics.bucketLowerBound(bucket);
+            long upper = OperationMetrics.bucketUpperBound(bucket);
+            if (nanos < lower || nanos > upper
+                    || (upper != Long.MAX_VALUE && upper - lower > Math.max(1, lower / 4))) {
+                throw new RuntimeException(nanos + " -> " + bucket + " [" + lower + ", " + upper + "]");
+            }
+        }
+        System.out.println("buckets: " + OperationMetrics.BUCKETS + ", last lower bound: "
+                + OperationMetrics.bucketLowerBound(OperationMetrics.BUCKETS - 1));
+    }
+
+    /**
+     * 打开统计后执行一些操作，通过exporter输出。
+     */
+    public static void recordTest() throws Exception {
+        OperationMetrics metrics = Metrics.enable();
+        metrics.reset();
+
+        Bip32Node master = Bip32Node.getMasterKey(new byte[64]);
+        for (int i = 0; i < 100; i++) {
+            master.getChild(i);
+        }
+        KeyGenerator key = KeyGenerator.fromPrivateKeyWif(new KeyGenerator().getPrivateKeyWif(MainNetParams.get()));
+        key.getAddressStr(MainNetParams.get());
+        SegwitAddressUtil.decode("bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kv8f3t4");
+        AES.decryptGcm(AES.encryptGcm(new byte[1024], new byte[32]), new byte[32]);
+
+        metrics.export(snapshot -> System.out.println(snapshot));
+        if (metrics.snapshot(Operation.BIP32_DERIVE).getCount() != 100
+                || metrics.snapshot(Operation.WIF_DECODE).getCount() != 1
+                || metrics.snapshot(Operation.AES_DECRYPT).getCount() != 1) {
+            throw new RuntimeException("计数错误！");
+        }
+
+        Metrics.disable();
+        master.getChild(0);
+        System.out.println("after disable: " + metrics.snapshot(Operation.BIP32_DERIVE).getCount());
+    }
+
+    /**
+     * 关闭和打开时start/record本身的开销。
+     */
+    public static void overheadTest() {
+        int rounds = 10000000;
+        Metrics.disable();
+        long disabled = measure(rounds);
+        Metrics.enable();
+        long enabled = measure(rounds);
+        Metrics.disable();
+        System.out.printf("start+record: disabled %.2fns, enabled %.2fns%n", (double) disabled / rounds,
+                (double) enabled / rounds);
+    }
+
+    private static long measure(int rounds) {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < 5; r++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                Metrics.record(Operation.DIGEST_SHA, Metrics.start());
+            }
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+        return best;
+    }
+}
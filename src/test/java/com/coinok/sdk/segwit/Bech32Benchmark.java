@@ -0,0 +1,76 @@
+package com.coinok.sdk.segwit;
+
+import org.bitcoinj.core.Utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 比较Bech32的String接口和使用调用方数组的接口的吞吐量和每次调用分配的内存。
+ */
+public class Bech32Benchmark {
+
+    private static final String ADDRESS = "bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kv8f3t4";
+
+    private static final String TAPROOT_ADDRESS = "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0";
+
+    private static final int ROUNDS = 2000000;
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        byte[] hrp = "bc".getBytes();
+        byte[] data = Bech32.decode(ADDRESS).getData();
+        char[] chars = new char[Bech32.MAX_LENGTH];
+        byte[] values = new byte[Bech32.MAX_LENGTH];
+
+        Runnable encodeString = () -> sink += Bech32.encode(hrp, data).length();
+        Runnable encodeBuffer = () -> sink += Bech32.encode("bc", data, 0, data.length, chars, 0);
+        Runnable decodeString = () -> sink += Bech32.decode(ADDRESS).getData().length;
+        Runnable decodeBuffer = () -> sink += Bech32.decode(ADDRESS, values, 0);
+        Runnable validateV0 = () -> sink += SegwitAddressUtil.validate(ADDRESS);
+        Runnable validateV1 = () -> sink += SegwitAddressUtil.validate(TAPROOT_ADDRESS);
+
+        byte[] program = Utils.HEX.decode(SegwitAddressUtil.decode(ADDRESS));
+        List<byte[]> programs = Collections.nCopies(100, program);
+        Runnable segwitEncode = () -> sink += SegwitAddressUtil.encode(hrp, (byte) 0, program).length();
+        Runnable segwitEncodeBatch = () -> sink += SegwitAddressUtil.encode("bc", 0, programs).length;
+        Runnable segwitDecode = () -> sink += SegwitAddressUtil.decode(ADDRESS).length();
+
+        System.out.printf("%-16s %14s %14s%n", "case", "ops/s", "bytes/op");
+        run("encode(String)", encodeString);
+        run("encode(char[])", encodeBuffer);
+        run("decode(String)", decodeString);
+        run("decode(byte[])", decodeBuffer);
+        run("validate(v0)", validateV0);
+        run("validate(v1)", validateV1);
+        run("segwit encode", segwitEncode);
+        run("segwit decode", segwitDecode);
+        run("encode x100", segwitEncodeBatch, ROUNDS / 100);
+        System.out.println(sink);
+    }
+
+    private static void run(String name, Runnable runnable) {
+        run(name, runnable, ROUNDS);
+    }
+
+    private static void run(String name, Runnable runnable, int rounds) {
+        // 预热
+        for (int i = 0; i < rounds / 4; i++) {
+            runnable.run();
+        }
+
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocated = bean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            runnable.run();
+        }
+        long cost = System.nanoTime() - start;
+        allocated = bean.getThreadAllocatedBytes(threadId) - allocated;
+
+        System.out.printf("%-16s %14.0f %14.1f%n", name, rounds / (cost / 1e9), (double) allocated / rounds);
+    }
+}
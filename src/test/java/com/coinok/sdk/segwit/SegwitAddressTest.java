@@ -0,0 +1,51 @@
+package com.coinok.sdk.segwit;
+
+import java.util.Arrays;
+
+public class SegwitAddressTest {
+
+    public static void main(String[] args) {
+        taprootTest();
+        validateTest();
+        registryTest();
+    }
+
+    /**
+     * BIP350的P2TR地址：版本1使用Bech32m校验。
+     */
+    public static void taprootTest() {
+        String program = "79be667ef9dcbbac55a06295ce870b07029bfcdb2dce28d959f2815b16f81798";
+        String address = SegwitAddressUtil.encode(program, 1, true);
+        System.out.println(address);
+        System.out.println("bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0".equals(address));
+        System.out.println(program.equals(SegwitAddressUtil.decode(address)));
+    }
+
+    /**
+     * 版本与校验方式不符的地址也不合法。
+     */
+    public static void validateTest() {
+        int[] status = SegwitAddressUtil.validate(Arrays.asList(
+                "bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kv8f3t4",
+                "bc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vqzk5jj0",
+                // 版本1使用了Bech32校验
+                "bc1pw508d6qejxtdg4y5r3zarvary0c5xw7kw508d6qejxtdg4y5r3zarvary0c5xw7k7grplx",
+                // 版本0使用了Bech32m校验
+                "bc1qw508d6qejxtdg4y5r3zarvary0c5xw7kemeawh",
+                "tc1p0xlxvlhemja6c4dqv22uapctqupfhlxm9h8z3k2e72q4k9hcz7vq5zuyut"));
+        System.out.println(Arrays.toString(status));
+    }
+
+    /**
+     * 已注册的hrp都可以编码和校验，未注册的hrp直接拒绝。
+     */
+    public static void registryTest() {
+        byte[] program = new byte[20];
+        for (String hrp : new String[]{"bc", "tb", "bcrt", "ltc", "tltc"}) {
+            String address = SegwitAddressUtil.encode(hrp, 0, program);
+            System.out.println(address + " " + SegwitAddressUtil.validate(address));
+        }
+        String unknown = SegwitAddressUtil.encode("doge", 0, program);
+        System.out.println(SegwitAddressUtil.validate(unknown) == SegwitAddressUtil.INVALID_HRP);
+    }
+}
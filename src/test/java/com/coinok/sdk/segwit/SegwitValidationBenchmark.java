@@ -0,0 +1,85 @@
+package com.coinok.sdk.segwit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 比较逐个检查和批量检查隔离见证地址的吞吐量，并确认两者结果一致。
+ * <p>
+ * 在JDK 17以上使用打包后的jar运行时，需要加上--add-modules jdk.incubator.vector才会使用Vector API：
+ * <pre>
+ * java --add-modules jdk.incubator.vector -cp target/oklink-client-sdk-0.0.1-SNAPSHOT.jar:target/test-classes:... \
+ *     com.coinok.sdk.segwit.SegwitValidationBenchmark
+ * </pre>
+ */
+public class SegwitValidationBenchmark {
+
+    private static final int SIZE = 100000;
+
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        List<String> addresses = addresses(new Random(42));
+        System.out.println("implementation: " + SegwitAddressUtil.getBulkImplementation());
+
+        int[] bulk = SegwitAddressUtil.validate(addresses);
+        int mismatch = 0;
+        for (int i = 0; i < bulk.length; i++) {
+            if (bulk[i] != SegwitAddressUtil.validate(addresses.get(i))) {
+                mismatch++;
+            }
+        }
+        System.out.println("mismatch: " + mismatch);
+
+        long sink = 0;
+        for (int round = 0; round < ROUNDS / 4; round++) {
+            sink += scalar(addresses) + SegwitAddressUtil.validate(addresses).length;
+        }
+
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            sink += scalar(addresses);
+        }
+        long scalar = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            sink += SegwitAddressUtil.validate(addresses)[round];
+        }
+        long batch = System.nanoTime() - start;
+
+        System.out.printf("%-16s %14.0f%n", "validate", (double) SIZE * ROUNDS / (scalar / 1e9));
+        System.out.printf("%-16s %14.0f%n", "validate(List)", (double) SIZE * ROUNDS / (batch / 1e9));
+        System.out.println(sink);
+    }
+
+    private static long scalar(List<String> addresses) {
+        long sum = 0;
+        for (String address : addresses) {
+            sum += SegwitAddressUtil.validate(address);
+        }
+        return sum;
+    }
+
+    /**
+     * 随机的v0、v1地址，约十分之一修改了一个字符。
+     */
+    private static List<String> addresses(Random random) {
+        String[] hrps = {"bc", "tb", "bcrt", "ltc"};
+        List<String> addresses = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            int version = random.nextInt(2);
+            byte[] program = new byte[version == 0 && random.nextBoolean() ? 20 : 32];
+            random.nextBytes(program);
+            String address = SegwitAddressUtil.encode(hrps[random.nextInt(hrps.length)], version, program);
+            if (random.nextInt(10) == 0) {
+                char[] chars = address.toCharArray();
+                chars[random.nextInt(chars.length)] = "qpzry9x8gf2tvdw0s3jn54khce6mua7lQ1b!".charAt(random.nextInt(36));
+                address = new String(chars);
+            }
+            addresses.add(address);
+        }
+        return addresses;
+    }
+}